@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. It accepts the same arguments as the JMH command line, but the results are written
+ * in JSON format to {@code jmh-result.json} unless other format or file are specified, so they can be compared between
+ * runs without further processing.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public final class BenchmarkRunner {
+
+    /** The default results file. */
+    public static final String DEFAULT_RESULT = "jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Runs the benchmarks selected by the specified JMH command line arguments.
+     *
+     * @param args the JMH command line arguments
+     * @throws Exception if the arguments are invalid or the benchmarks can't be run
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        Options options = new OptionsBuilder().parent(cli)
+                                              .resultFormat(cli.getResultFormat().orElse(ResultFormatType.JSON))
+                                              .result(cli.getResult().orElse(DEFAULT_RESULT))
+                                              .build();
+        new Runner(options).run();
+    }
+}
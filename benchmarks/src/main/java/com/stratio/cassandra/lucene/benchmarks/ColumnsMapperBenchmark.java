@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.benchmarks;
+
+import com.stratio.cassandra.lucene.column.Columns;
+import com.stratio.cassandra.lucene.column.ColumnsMapper;
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.db.rows.Row;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for {@link ColumnsMapper#addColumns(Columns, Row)}, which extracts the regular columns of each indexed row,
+ * with collections of several sizes.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnsMapperBenchmark {
+
+    /** The number of different rows to be mapped. */
+    private static final int ROWS = 1024;
+
+    @Param({"0", "10", "100"})
+    public int elements;
+
+    private ColumnsMapper mapper;
+    private Row[] rows;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        CFMetaData metadata = SyntheticData.metadata();
+        Random random = new Random(0);
+        mapper = new ColumnsMapper();
+        rows = new Row[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = SyntheticData.row(metadata, random, i, elements);
+        }
+    }
+
+    @Benchmark
+    public Columns addColumns() {
+        Columns columns = new Columns();
+        mapper.addColumns(columns, rows[index++ & (ROWS - 1)]);
+        return columns;
+    }
+}
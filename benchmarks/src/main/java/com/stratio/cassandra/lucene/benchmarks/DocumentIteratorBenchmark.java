@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.benchmarks;
+
+import com.stratio.cassandra.lucene.index.DirectoryType;
+import com.stratio.cassandra.lucene.index.DocumentIterator;
+import com.stratio.cassandra.lucene.index.FSIndex;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for reading all the matches of a query through a {@link DocumentIterator}, which fetches the documents from
+ * the index in pages of the specified size, sorted either by a field or by relevance.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentIteratorBenchmark {
+
+    /** The number of indexed documents. */
+    private static final int DOCUMENTS = 100000;
+
+    /** The max number of documents to be read per iteration. */
+    private static final int LIMIT = 10000;
+
+    @Param({"100", "1000", "10000"})
+    public int page;
+
+    @Param({"field", "relevance"})
+    public String sort;
+
+    private FSIndex index;
+    private Query query;
+    private Sort luceneSort;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        index = new FSIndex("benchmark",
+                            Files.createTempDirectory("benchmark"),
+                            new StandardAnalyzer(),
+                            60,
+                            64,
+                            5,
+                            30,
+                            0,
+                            DirectoryType.AUTO,
+                            false);
+        Sort mergeSort = new Sort(new SortField("word", SortField.Type.STRING));
+        index.init(mergeSort, Collections.singleton("id"));
+        Random random = new Random(0);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            index.upsert(new Term("id", String.valueOf(i)), SyntheticData.document(random, i));
+        }
+        index.commit();
+        index.refresh();
+        if (sort.equals("field")) {
+            query = new MatchAllDocsQuery();
+            luceneSort = mergeSort;
+        } else {
+            query = new TermQuery(new Term("text", "lorem"));
+            luceneSort = new Sort(SortField.FIELD_SCORE, new SortField("word", SortField.Type.STRING));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        index.delete();
+    }
+
+    @Benchmark
+    public int read(Blackhole blackhole) {
+        int count = 0;
+        try (DocumentIterator iterator = index.search(null, query, luceneSort, page)) {
+            while (count < LIMIT && iterator.hasNext()) {
+                blackhole.consume(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+}
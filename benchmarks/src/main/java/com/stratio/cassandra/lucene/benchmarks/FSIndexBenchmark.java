@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.benchmarks;
+
+import com.stratio.cassandra.lucene.index.DirectoryType;
+import com.stratio.cassandra.lucene.index.FSIndex;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for {@link FSIndex#upsert(Term, Document)} throughput, which is the write path of every indexed row. The
+ * index is created in a temporary directory, and the written identifiers are eventually repeated so the benchmark
+ * covers both insertions and updates.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FSIndexBenchmark {
+
+    /** The number of different documents to be written. */
+    private static final int DOCUMENTS = 1 << 16;
+
+    @Param({"64"})
+    public int ramBufferMB;
+
+    @Param({"AUTO", "NIO"})
+    public String directoryType;
+
+    private FSIndex index;
+    private Document[] documents;
+    private Term[] terms;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(0);
+        documents = new Document[DOCUMENTS];
+        terms = new Term[DOCUMENTS];
+        for (int i = 0; i < DOCUMENTS; i++) {
+            documents[i] = SyntheticData.document(random, i);
+            terms[i] = new Term("id", String.valueOf(i));
+        }
+        index = new FSIndex("benchmark",
+                            Files.createTempDirectory("benchmark"),
+                            new StandardAnalyzer(),
+                            60,
+                            ramBufferMB,
+                            5,
+                            30,
+                            0,
+                            DirectoryType.parse(directoryType),
+                            false);
+        index.init(new Sort(new SortField("word", SortField.Type.STRING)), Collections.singleton("id"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        index.commit();
+        index.delete();
+    }
+
+    @Benchmark
+    public void upsert() {
+        int i = next++ & (DOCUMENTS - 1);
+        index.upsert(terms[i], documents[i]);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.benchmarks;
+
+import com.stratio.cassandra.lucene.key.KeyMapper;
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.Term;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the {@link KeyMapper} conversions between Cassandra primary keys and Lucene terms and documents, which
+ * are done for each written row and for each read document of wide tables.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyMapperBenchmark {
+
+    /** The number of different primary keys to be mapped. */
+    private static final int KEYS = 1024;
+
+    private KeyMapper mapper;
+    private DecoratedKey[] keys;
+    private Clustering[] clusterings;
+    private Document[] documents;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        CFMetaData metadata = SyntheticData.metadata();
+        mapper = new KeyMapper(metadata);
+        keys = new DecoratedKey[KEYS];
+        clusterings = new Clustering[KEYS];
+        documents = new Document[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = SyntheticData.key(metadata, i);
+            clusterings[i] = SyntheticData.clustering(i);
+            documents[i] = new Document();
+            mapper.addFields(documents[i], keys[i], clusterings[i]);
+        }
+    }
+
+    @Benchmark
+    public Term term() {
+        int i = index++ & (KEYS - 1);
+        return mapper.term(keys[i], clusterings[i]);
+    }
+
+    @Benchmark
+    public Document addFields() {
+        int i = index++ & (KEYS - 1);
+        Document document = new Document();
+        mapper.addFields(document, keys[i], clusterings[i]);
+        return document;
+    }
+
+    @Benchmark
+    public Clustering clustering() {
+        return mapper.clustering(documents[index++ & (KEYS - 1)]);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.benchmarks;
+
+import com.stratio.cassandra.lucene.index.RAMIndex;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the coordinator post-processing of the rows collected from all the replicas. It reproduces the batched
+ * top-k selection done by {@code IndexService#process}, which indexes each batch of rows in a {@link RAMIndex} and
+ * merges its best rows with the best rows of the previous batches, without the Cassandra read path around it.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostProcessingBenchmark {
+
+    /** The number of rows per batch, the same as used by {@code IndexService}. */
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"10", "100", "1000"})
+    public int limit;
+
+    @Param({"field", "relevance"})
+    public String sort;
+
+    private Document[] documents;
+    private Query query;
+    private Sort luceneSort;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        documents = new Document[rows];
+        for (int i = 0; i < rows; i++) {
+            documents[i] = SyntheticData.document(random, i);
+        }
+        if (sort.equals("field")) {
+            query = new MatchAllDocsQuery();
+            luceneSort = new Sort(new SortField("word", SortField.Type.STRING));
+        } else {
+            query = new TermQuery(new Term("text", "lorem"));
+            luceneSort = new Sort(SortField.FIELD_SCORE);
+        }
+    }
+
+    @Benchmark
+    public TopFieldDocs process() {
+        TopFieldDocs best = null;
+        for (int start = 0; start < rows; start += BATCH_SIZE) {
+            RAMIndex index = new RAMIndex(new StandardAnalyzer());
+            TopFieldDocs batchDocs;
+            try {
+                for (int i = start; i < Math.min(start + BATCH_SIZE, rows); i++) {
+                    index.add(documents[i]);
+                }
+                batchDocs = index.search(query, luceneSort, limit);
+            } finally {
+                index.close();
+            }
+            best = best == null
+                   ? batchDocs
+                   : TopDocs.merge(new Sort(batchDocs.fields), limit, new TopFieldDocs[]{best, batchDocs});
+        }
+        return best;
+    }
+}
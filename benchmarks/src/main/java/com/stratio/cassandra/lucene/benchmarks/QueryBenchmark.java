@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.benchmarks;
+
+import com.stratio.cassandra.lucene.schema.Schema;
+import com.stratio.cassandra.lucene.search.condition.Condition;
+import org.apache.lucene.search.Query;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.stratio.cassandra.lucene.schema.SchemaBuilders.*;
+import static com.stratio.cassandra.lucene.search.SearchBuilders.*;
+
+/**
+ * Benchmark for the construction of the Lucene {@link Query} of the geospatial and temporal conditions, whose queries
+ * are built from spatial prefix trees and date ranges for each search.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    /** The number of different conditions to be built. */
+    private static final int CONDITIONS = 1024;
+
+    @Param({"geo_distance", "geo_bbox", "date_range", "bitemporal"})
+    public String condition;
+
+    private Schema schema;
+    private Condition[] conditions;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        schema = schema().mapper("geo_point", geoPointMapper("lat", "lon").maxLevels(8))
+                         .mapper("date_range", dateRangeMapper("from", "to"))
+                         .mapper("bitemporal", bitemporalMapper("vt_from", "vt_to", "tt_from", "tt_to"))
+                         .build();
+        Random random = new Random(0);
+        conditions = new Condition[CONDITIONS];
+        for (int i = 0; i < CONDITIONS; i++) {
+            double longitude = random.nextDouble() * 340 - 170;
+            double latitude = random.nextDouble() * 160 - 80;
+            Date from = new Date(Math.abs(random.nextLong()) % 4102444800000L);
+            Date to = new Date(from.getTime() + random.nextInt(Integer.MAX_VALUE));
+            switch (condition) {
+                case "geo_distance":
+                    conditions[i] = geoDistance("geo_point", longitude, latitude, "10km").build();
+                    break;
+                case "geo_bbox":
+                    conditions[i] = geoBBox("geo_point", longitude, longitude + 10, latitude, latitude + 10).build();
+                    break;
+                case "date_range":
+                    conditions[i] = dateRange("date_range").from(from).to(to).build();
+                    break;
+                case "bitemporal":
+                    conditions[i] = bitemporal("bitemporal").vtFrom(from).vtTo(to).ttFrom(from).ttTo(to).build();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown condition type " + condition);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        schema.close();
+    }
+
+    @Benchmark
+    public Query query() {
+        return conditions[index++ & (CONDITIONS - 1)].query(schema);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.benchmarks;
+
+import com.stratio.cassandra.lucene.column.Columns;
+import com.stratio.cassandra.lucene.schema.Schema;
+import com.stratio.cassandra.lucene.schema.SchemaBuilder;
+import org.apache.cassandra.db.marshal.*;
+import org.apache.lucene.document.Document;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Date;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.stratio.cassandra.lucene.schema.SchemaBuilders.*;
+
+/**
+ * Benchmark for {@link Schema#addFields(Document, Columns)}, which maps the columns of each indexed row to Lucene
+ * fields, with a single mapper of each type.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaBenchmark {
+
+    /** The number of different rows to be mapped. */
+    private static final int ROWS = 1024;
+
+    @Param({"string", "text", "integer", "long", "double", "date", "uuid", "inet", "boolean", "geo_point",
+            "date_range", "bitemporal"})
+    public String mapper;
+
+    private Schema schema;
+    private Columns[] rows;
+    private int index = 0;
+
+    @Setup
+    public void setup() throws UnknownHostException {
+        Random random = new Random(0);
+        rows = new Columns[ROWS];
+        SchemaBuilder builder = schema();
+        switch (mapper) {
+            case "string":
+                builder.mapper("c", stringMapper());
+                for (int i = 0; i < ROWS; i++) {
+                    rows[i] = new Columns().addComposed("c", SyntheticData.word(random), UTF8Type.instance);
+                }
+                break;
+            case "text":
+                builder.mapper("c", textMapper().analyzer("english"));
+                for (int i = 0; i < ROWS; i++) {
+                    rows[i] = new Columns().addComposed("c", SyntheticData.text(random, 20), UTF8Type.instance);
+                }
+                break;
+            case "integer":
+                builder.mapper("c", integerMapper());
+                for (int i = 0; i < ROWS; i++) {
+                    rows[i] = new Columns().addComposed("c", random.nextInt(), Int32Type.instance);
+                }
+                break;
+            case "long":
+                builder.mapper("c", longMapper());
+                for (int i = 0; i < ROWS; i++) {
+                    rows[i] = new Columns().addComposed("c", random.nextLong(), LongType.instance);
+                }
+                break;
+            case "double":
+                builder.mapper("c", doubleMapper());
+                for (int i = 0; i < ROWS; i++) {
+                    rows[i] = new Columns().addComposed("c", random.nextDouble(), DoubleType.instance);
+                }
+                break;
+            case "date":
+                builder.mapper("c", dateMapper());
+                for (int i = 0; i < ROWS; i++) {
+                    rows[i] = new Columns().addComposed("c", date(random), TimestampType.instance);
+                }
+                break;
+            case "uuid":
+                builder.mapper("c", uuidMapper());
+                for (int i = 0; i < ROWS; i++) {
+                    UUID uuid = new UUID(random.nextLong(), random.nextLong());
+                    rows[i] = new Columns().addComposed("c", uuid, UUIDType.instance);
+                }
+                break;
+            case "inet":
+                builder.mapper("c", inetMapper());
+                for (int i = 0; i < ROWS; i++) {
+                    byte[] address = new byte[4];
+                    random.nextBytes(address);
+                    rows[i] = new Columns().addComposed("c",
+                                                        InetAddress.getByAddress(address),
+                                                        InetAddressType.instance);
+                }
+                break;
+            case "boolean":
+                builder.mapper("c", booleanMapper());
+                for (int i = 0; i < ROWS; i++) {
+                    rows[i] = new Columns().addComposed("c", random.nextBoolean(), BooleanType.instance);
+                }
+                break;
+            case "geo_point":
+                builder.mapper("c", geoPointMapper("lat", "lon").maxLevels(8));
+                for (int i = 0; i < ROWS; i++) {
+                    rows[i] = new Columns().addComposed("lat", random.nextDouble() * 180 - 90, DoubleType.instance)
+                                           .addComposed("lon", random.nextDouble() * 360 - 180, DoubleType.instance);
+                }
+                break;
+            case "date_range":
+                builder.mapper("c", dateRangeMapper("from", "to"));
+                for (int i = 0; i < ROWS; i++) {
+                    Date from = date(random);
+                    Date to = new Date(from.getTime() + random.nextInt(Integer.MAX_VALUE));
+                    rows[i] = new Columns().addComposed("from", from, TimestampType.instance)
+                                           .addComposed("to", to, TimestampType.instance);
+                }
+                break;
+            case "bitemporal":
+                builder.mapper("c", bitemporalMapper("vt_from", "vt_to", "tt_from", "tt_to"));
+                for (int i = 0; i < ROWS; i++) {
+                    Date vtFrom = date(random);
+                    Date ttFrom = date(random);
+                    rows[i] = new Columns().addComposed("vt_from", vtFrom, TimestampType.instance)
+                                           .addComposed("vt_to", new Date(vtFrom.getTime() + 1000),
+                                                        TimestampType.instance)
+                                           .addComposed("tt_from", ttFrom, TimestampType.instance)
+                                           .addComposed("tt_to", new Date(ttFrom.getTime() + 1000),
+                                                        TimestampType.instance);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mapper type " + mapper);
+        }
+        schema = builder.build();
+    }
+
+    private static Date date(Random random) {
+        return new Date(Math.abs(random.nextLong()) % 4102444800000L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        schema.close();
+    }
+
+    @Benchmark
+    public Document addFields() {
+        Document document = new Document();
+        schema.addFields(document, rows[index++ & (ROWS - 1)]);
+        return document;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.benchmarks;
+
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.ColumnDefinition;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.LivenessInfo;
+import org.apache.cassandra.db.marshal.*;
+import org.apache.cassandra.db.rows.BTreeRow;
+import org.apache.cassandra.db.rows.BufferCell;
+import org.apache.cassandra.db.rows.CellPath;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.util.BytesRef;
+
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Deterministic synthetic data shared by the benchmarks, so they can run offline and without a Cassandra node.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+final class SyntheticData {
+
+    /** The words used to build the synthetic texts. */
+    private static final String[] WORDS = {"lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing",
+                                           "elit", "sed", "do", "eiusmod", "tempor", "incididunt", "ut", "labore",
+                                           "et", "dolore", "magna", "aliqua"};
+
+    // Avoid loading cassandra.yaml
+    static {
+        Config.setClientMode(true);
+    }
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Returns the metadata of a table with an integer partition key, an integer clustering key, and text, long, set and
+     * map regular columns.
+     *
+     * @return the table metadata
+     */
+    static CFMetaData metadata() {
+        return CFMetaData.Builder.create("benchmarks", "synthetic")
+                                 .withId(UUID.nameUUIDFromBytes("benchmarks.synthetic".getBytes()))
+                                 .withPartitioner(Murmur3Partitioner.instance)
+                                 .addPartitionKey("pk", Int32Type.instance)
+                                 .addClusteringColumn("ck", Int32Type.instance)
+                                 .addRegularColumn("text", UTF8Type.instance)
+                                 .addRegularColumn("number", LongType.instance)
+                                 .addRegularColumn("tags", SetType.getInstance(UTF8Type.instance, true))
+                                 .addRegularColumn("scores", MapType.getInstance(UTF8Type.instance,
+                                                                                 Int32Type.instance,
+                                                                                 true))
+                                 .build();
+    }
+
+    /**
+     * Returns the decorated partition key with the specified value.
+     *
+     * @param metadata the table metadata
+     * @param pk the partition key value
+     * @return the decorated partition key
+     */
+    static DecoratedKey key(CFMetaData metadata, int pk) {
+        return metadata.decorateKey(ByteBufferUtil.bytes(pk));
+    }
+
+    /**
+     * Returns the clustering key with the specified value.
+     *
+     * @param ck the clustering key value
+     * @return the clustering key
+     */
+    static Clustering clustering(int ck) {
+        return new Clustering(ByteBufferUtil.bytes(ck));
+    }
+
+    /**
+     * Returns a live row of the table returned by {@link #metadata()} with all its regular columns set.
+     *
+     * @param metadata the table metadata
+     * @param random the source of the column values
+     * @param ck the clustering key value
+     * @param elements the number of elements of the set and map columns
+     * @return a row
+     */
+    static Row row(CFMetaData metadata, Random random, int ck, int elements) {
+        long timestamp = System.currentTimeMillis() * 1000;
+        int nowInSec = (int) (timestamp / 1000000);
+        Row.Builder builder = BTreeRow.unsortedBuilder(nowInSec);
+        builder.newRow(clustering(ck));
+        builder.addPrimaryKeyLivenessInfo(LivenessInfo.create(metadata, timestamp, nowInSec));
+        builder.addCell(BufferCell.live(metadata,
+                                        column(metadata, "text"),
+                                        timestamp,
+                                        UTF8Type.instance.decompose(text(random, 10))));
+        builder.addCell(BufferCell.live(metadata,
+                                        column(metadata, "number"),
+                                        timestamp,
+                                        LongType.instance.decompose(random.nextLong())));
+        for (int i = 0; i < elements; i++) {
+            String element = word(random) + i;
+            builder.addCell(BufferCell.live(metadata,
+                                            column(metadata, "tags"),
+                                            timestamp,
+                                            ByteBufferUtil.EMPTY_BYTE_BUFFER,
+                                            CellPath.create(UTF8Type.instance.decompose(element))));
+            builder.addCell(BufferCell.live(metadata,
+                                            column(metadata, "scores"),
+                                            timestamp,
+                                            Int32Type.instance.decompose(random.nextInt()),
+                                            CellPath.create(UTF8Type.instance.decompose(element))));
+        }
+        return builder.build();
+    }
+
+    private static ColumnDefinition column(CFMetaData metadata, String name) {
+        return metadata.getColumnDefinition(ByteBufferUtil.bytes(name));
+    }
+
+    /**
+     * Returns a random word.
+     *
+     * @param random the source of randomness
+     * @return a random word
+     */
+    static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    /**
+     * Returns a random text with the specified number of words.
+     *
+     * @param random the source of randomness
+     * @param words the number of words
+     * @return a random text
+     */
+    static String text(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            sb.append(i == 0 ? "" : " ").append(word(random));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns a Lucene {@link Document} with a unique {@code id} field, a sortable {@code word} field and a {@code
+     * text} field.
+     *
+     * @param random the source of randomness
+     * @param id the document identifier
+     * @return a document
+     */
+    static Document document(Random random, int id) {
+        String word = word(random);
+        Document document = new Document();
+        document.add(new StringField("id", String.valueOf(id), Field.Store.YES));
+        document.add(new StringField("word", word, Field.Store.NO));
+        document.add(new SortedDocValuesField("word", new BytesRef(word)));
+        document.add(new TextField("text", text(random, 20), Field.Store.NO));
+        return document;
+    }
+}
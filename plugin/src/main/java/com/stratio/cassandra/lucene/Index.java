@@ -25,19 +25,24 @@ import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.db.marshal.UTF8Type;
 import org.apache.cassandra.db.partitions.PartitionIterator;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.db.rows.Row;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.exceptions.InvalidRequestException;
 import org.apache.cassandra.index.IndexRegistry;
 import org.apache.cassandra.index.transactions.IndexTransaction;
 import org.apache.cassandra.schema.IndexMetadata;
 import org.apache.cassandra.service.ClientState;
+import org.apache.cassandra.service.LuceneCountVerbHandler;
+import org.apache.cassandra.utils.Pair;
 import org.apache.cassandra.utils.concurrent.OpOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
@@ -74,6 +79,15 @@ public class Index implements org.apache.cassandra.index.Index {
         }
     }
 
+    // Setup count requests handler
+    static {
+        try {
+            LuceneCountVerbHandler.register();
+        } catch (Exception e) {
+            logger.error("Unable to set Lucene count requests handler", e);
+        }
+    }
+
     /**
      * Builds a new Lucene index for the specified {@link ColumnFamilyStore} using the specified {@link IndexMetadata}.
      *
@@ -125,7 +139,8 @@ public class Index implements org.apache.cassandra.index.Index {
     @Override
     public Callable<?> getInitializationTask() {
         logger.info("Getting initialization task of {}", name);
-        if (table.isEmpty() || SystemKeyspace.isIndexBuilt(table.keyspace.getName(), indexMetadata.name)) {
+        if (table.isEmpty()
+            || (SystemKeyspace.isIndexBuilt(table.keyspace.getName(), indexMetadata.name) && !service.needsRebuild())) {
             logger.info("Index {} doesn't need (re)building", name);
             return null;
         } else {
@@ -329,7 +344,7 @@ public class Index implements org.apache.cassandra.index.Index {
     @Override
     public long getEstimatedResultRows() {
         logger.trace("Getting the estimated result rows");
-        return 1;
+        return service.getEstimatedResultRows();
     }
 
     /*
@@ -430,6 +445,26 @@ public class Index implements org.apache.cassandra.index.Index {
         }
     }
 
+    /**
+     * Returns the number of rows matched by the search of the specified {@link ReadCommand} in this index, without
+     * reading them, and the partial results of the search aggregations, if any.
+     *
+     * @param command the read command being counted
+     * @param orderGroup the Cassandra read order group
+     * @return the number of matched rows and the partial aggregation results, which are {@code null} if the search
+     * has no aggregations
+     * @throws InvalidRequestException if the command's search is not valid
+     */
+    public Pair<Long, ByteBuffer> count(ReadCommand command, ReadOrderGroup orderGroup) {
+        logger.trace("Counting {}", command);
+        try {
+            return service.count(command, orderGroup);
+        } catch (Exception e) {
+            logger.debug("Error counting command: " + command, e);
+            throw new InvalidRequestException(e.getMessage());
+        }
+    }
+
     /**
      * Validates the specified {@link RowFilter.CustomExpression}.
      *
@@ -445,4 +480,33 @@ public class Index implements org.apache.cassandra.index.Index {
             throw new InvalidRequestException(e.getMessage());
         }
     }
+
+    /**
+     * Validates the specified {@link ReadCommand} before it is executed by Cassandra. Searches with aggregations are
+     * rejected, because they can only be executed by the Lucene query handler.
+     *
+     * @param command the read command to be validated
+     * @throws InvalidRequestException if the command is not valid
+     */
+    @Override
+    public void validate(ReadCommand command) throws InvalidRequestException {
+        logger.trace("Validating {}", command);
+        try {
+            service.validate(command);
+        } catch (Exception e) {
+            logger.debug("Invalid read command: " + command, e);
+            throw new InvalidRequestException(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the values of the index sort of the specified {@link Search} for the specified rows.
+     *
+     * @param search a search
+     * @param rows the rows and their partition keys
+     * @return the sort values of each row, in the same order, or {@code null} if they can't be used for paging
+     */
+    List<Object[]> sortValues(Search search, List<Pair<DecoratedKey, Row>> rows) {
+        return service.sortValues(search, rows);
+    }
 }
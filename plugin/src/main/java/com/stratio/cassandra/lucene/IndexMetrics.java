@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
+import com.stratio.cassandra.lucene.index.ShardedFSIndex;
+import com.stratio.cassandra.lucene.util.TaskQueue;
+import org.apache.cassandra.metrics.CassandraMetricsRegistry.MetricName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
+
+/**
+ * The metrics of a Lucene index, registered in the Cassandra's metrics registry so they are exposed through JMX and the
+ * configured metrics reporters, with names like {@code
+ * com.stratio.cassandra.lucene:type=LuceneIndex,keyspace=ks,table=t,index=i,name=SearchLuceneLatency}.
+ *
+ * The latencies of the phases of indexing and searching are recorded in timers, so the phase behind a latency
+ * regression can be identified.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+class IndexMetrics {
+
+    private static final String GROUP = "com.stratio.cassandra.lucene";
+    private static final String TYPE = "LuceneIndex";
+
+    private final String keyspace;
+    private final String table;
+    private final String index;
+    private final List<MetricName> names = new ArrayList<>();
+
+    /** The time spent indexing each row in the index writer, once it is taken from the indexing queue. */
+    final Timer indexing;
+
+    /** The time spent by each queued indexing task waiting to be run, by indexing queue. */
+    private final Timer[] queueWaits;
+
+    /** The number of reads from Cassandra done before indexing partial updates of rows. */
+    final Counter readsBeforeWrite;
+
+    /** The time spent parsing and validating the JSON searches. */
+    final Timer searchParse;
+
+    /** The time spent by each search collecting hits from the Lucene index. */
+    final Timer searchLucene;
+
+    /** The time spent by each search reading the matched rows from Cassandra. */
+    final Timer searchRead;
+
+    /** The time spent by each search post processing the rows gathered by the coordinator. */
+    final Timer searchPostProcess;
+
+    /** The number of hits collected from the Lucene index by each search. */
+    final Histogram searchHits;
+
+    /** The time spent refreshing the index readers with new changes, by shard. */
+    final Timer refresh;
+
+    /** The time spent committing the index changes to disk. */
+    final Timer commit;
+
+    /**
+     * Registers the metrics of the specified index.
+     *
+     * @param keyspace the keyspace name
+     * @param table the table name
+     * @param index the index name
+     * @param lucene the Lucene index
+     * @param queue the indexing queue
+     */
+    IndexMetrics(String keyspace, String table, String index, ShardedFSIndex lucene, TaskQueue queue) {
+        this.keyspace = keyspace;
+        this.table = table;
+        this.index = index;
+        indexing = Metrics.timer(name("IndexingLatency"));
+        queueWaits = new Timer[queue.getNumThreads()];
+        for (int i = 0; i < queueWaits.length; i++) {
+            int thread = i;
+            gauge("IndexingQueueDepth-" + i, () -> queue.getQueueSize(thread));
+            queueWaits[i] = Metrics.timer(name("IndexingQueueWait-" + i));
+        }
+        readsBeforeWrite = Metrics.counter(name("ReadsBeforeWrite"));
+        searchParse = Metrics.timer(name("SearchParseLatency"));
+        searchLucene = Metrics.timer(name("SearchLuceneLatency"));
+        searchRead = Metrics.timer(name("SearchReadLatency"));
+        searchPostProcess = Metrics.timer(name("SearchPostProcessLatency"));
+        searchHits = Metrics.histogram(name("SearchHits"), true);
+        refresh = Metrics.timer(name("RefreshLatency"));
+        commit = Metrics.timer(name("CommitLatency"));
+        gauge("Merges", lucene::getMerges);
+        gauge("RunningMerges", lucene::getRunningMerges);
+        gauge("WaitingMerges", lucene::getWaitingMerges);
+        gauge("MergedBytes", lucene::getMergedBytes);
+        gauge("MergeTime", () -> TimeUnit.NANOSECONDS.toMillis(lucene.getMergesTime()));
+        gauge("Staleness", () -> TimeUnit.NANOSECONDS.toMillis(lucene.getStaleness()));
+        gauge("IndexingBufferBytes", lucene::getRAMBufferBytes);
+        gauge("IndexingBufferFlushes", lucene::getBufferFlushes);
+    }
+
+    /**
+     * Returns the registry name of the specified metric of the index, keeping it for {@link #release()}.
+     *
+     * @param metric the metric name
+     * @return the registry name
+     */
+    private MetricName name(String metric) {
+        String scope = String.format("%s.%s.%s", keyspace, table, index);
+        String mbean = String.format("%s:type=%s,keyspace=%s,table=%s,index=%s,name=%s",
+                                     GROUP,
+                                     TYPE,
+                                     keyspace,
+                                     table,
+                                     index,
+                                     metric);
+        MetricName name = new MetricName(GROUP, TYPE, metric, scope, mbean);
+        names.add(name);
+        return name;
+    }
+
+    private <T> void gauge(String metric, Gauge<T> gauge) {
+        MetricName name = name(metric);
+        Metrics.remove(name); // Replace any gauge of a previous instance of the index
+        Metrics.register(name, gauge);
+    }
+
+    /**
+     * Records the specified time waited by a task in the specified indexing queue.
+     *
+     * @param queue the index of the indexing queue
+     * @param nanos the waited time in nanoseconds
+     */
+    void queueWait(int queue, long nanos) {
+        queueWaits[queue].update(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the specified time spent in a phase.
+     *
+     * @param timer the timer of the phase
+     * @param startNanos the start time of the phase, as returned by {@link System#nanoTime()}
+     */
+    static void time(Timer timer, long startNanos) {
+        timer.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Removes all the metrics of the index from the Cassandra's metrics registry.
+     */
+    void release() {
+        names.forEach(Metrics::remove);
+        names.clear();
+    }
+}
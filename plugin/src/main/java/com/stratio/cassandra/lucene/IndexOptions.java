@@ -16,6 +16,7 @@
 package com.stratio.cassandra.lucene;
 
 import com.google.common.base.MoreObjects;
+import com.stratio.cassandra.lucene.index.DirectoryType;
 import com.stratio.cassandra.lucene.schema.Schema;
 import com.stratio.cassandra.lucene.schema.SchemaBuilder;
 import org.apache.cassandra.config.CFMetaData;
@@ -55,6 +56,55 @@ public class IndexOptions {
     public static final String INDEXING_QUEUES_SIZE_OPTION = "indexing_queues_size";
     public static final int DEFAULT_INDEXING_QUEUES_SIZE = 50;
 
+    public static final String SEARCH_THREADS_OPTION = "search_threads";
+    public static final int DEFAULT_SEARCH_THREADS = 0;
+
+    public static final String INDEX_SHARDS_OPTION = "index_shards";
+    public static final int DEFAULT_INDEX_SHARDS = 1;
+    public static final int MAX_INDEX_SHARDS = 64;
+
+    public static final String SEARCH_CACHE_SIZE_OPTION = "search_cache_size";
+    public static final int DEFAULT_SEARCH_CACHE_SIZE = 0;
+
+    public static final String SEARCH_CACHE_DOCUMENTS_OPTION = "search_cache_documents";
+    public static final int DEFAULT_SEARCH_CACHE_DOCUMENTS = 10000;
+
+    public static final String INDEXED_ROWS_CACHE_SIZE_OPTION = "indexed_rows_cache_size";
+    public static final int DEFAULT_INDEXED_ROWS_CACHE_SIZE = 0;
+
+    public static final String DIRECTORY_TYPE_OPTION = "directory_type";
+    public static final DirectoryType DEFAULT_DIRECTORY_TYPE = DirectoryType.AUTO;
+
+    public static final String DIRECTORY_PRELOAD_OPTION = "directory_preload";
+    public static final boolean DEFAULT_DIRECTORY_PRELOAD = false;
+
+    public static final String READ_PREFETCH_OPTION = "read_prefetch";
+    public static final int DEFAULT_READ_PREFETCH = 0;
+
+    public static final String SEARCH_LEASE_SECONDS_OPTION = "search_lease_seconds";
+    public static final int DEFAULT_SEARCH_LEASE_SECONDS = 0;
+
+    public static final String MAX_SEARCH_LEASES_OPTION = "max_search_leases";
+    public static final int DEFAULT_MAX_SEARCH_LEASES = 100;
+
+    public static final String COUNT_VERIFY_SECONDS_OPTION = "count_verify_seconds";
+    public static final int DEFAULT_COUNT_VERIFY_SECONDS = 0;
+
+    public static final String WARMING_QUERIES_OPTION = "warming_queries";
+    public static final int DEFAULT_WARMING_QUERIES = 0;
+
+    public static final String INDEXING_RAM_BUDGET_MB_OPTION = "indexing_ram_budget_mb";
+    public static final int DEFAULT_INDEXING_RAM_BUDGET_MB = 0;
+
+    public static final String MAX_MERGE_THREADS_OPTION = "max_merge_threads";
+    public static final int DEFAULT_MAX_MERGE_THREADS = 0;
+
+    public static final String MERGE_THROUGHPUT_MB_PER_SEC_OPTION = "merge_throughput_mb_per_sec";
+    public static final int DEFAULT_MERGE_THROUGHPUT_MB_PER_SEC = 0;
+
+    public static final String MERGE_COMPACTION_THROTTLE_OPTION = "merge_compaction_throttle";
+    public static final boolean DEFAULT_MERGE_COMPACTION_THROTTLE = false;
+
     public static final String EXCLUDED_DATA_CENTERS_OPTION = "excluded_data_centers";
     public static final List<String> DEFAULT_EXCLUDED_DATA_CENTERS = Collections.emptyList();
 
@@ -87,6 +137,54 @@ public class IndexOptions {
     /** The size of the asynchronous indexing queues */
     public final int indexingQueuesSize;
 
+    /** The number of threads to search index segments concurrently */
+    public final int searchThreads;
+
+    /** The number of token range shards in which the index is split */
+    public final int indexShards;
+
+    /** The max number of cached search results */
+    public final int searchCacheSize;
+
+    /** The max number of documents cached by all the cached search results */
+    public final int searchCacheDocuments;
+
+    /** The max number of cached indexed rows to avoid read-before-write */
+    public final int indexedRowsCacheSize;
+
+    /** The type of the Lucene file system directory */
+    public final DirectoryType directoryType;
+
+    /** If memory-mapped index files should be loaded into physical memory when they are opened */
+    public final boolean directoryPreload;
+
+    /** The number of partitions read ahead of the current one while iterating over search results */
+    public final int readPrefetch;
+
+    /** The time that paged searches keep their index searchers between pages, in seconds */
+    public final int searchLeaseSeconds;
+
+    /** The max number of paged searches keeping their index searchers in the node */
+    public final int maxSearchLeases;
+
+    /** The time during which written rows are read to verify their liveness when counted, in seconds */
+    public final int countVerifySeconds;
+
+    /** The number of recent searches run on each new index searcher before publishing it */
+    public final int warmingQueries;
+
+    /** The max RAM used by the indexing buffers of all the indexes in the node, in MB */
+    public final int indexingRamBudgetMB;
+
+    /** The max number of segment merges running at the same time in the node */
+    public final int maxMergeThreads;
+
+    /** The max throughput of the segment merges of all the indexes in the node, in MB/s */
+    public final int mergeThroughputMBPerSec;
+
+    /** If segment merges should be throttled with the Cassandra's compaction throughput */
+    public final boolean mergeCompactionThrottle;
+
     /** The names of the data centers excluded from indexing */
     public final List<String> excludedDataCenters;
 
@@ -104,6 +202,22 @@ public class IndexOptions {
         maxCachedMB = parseMaxCachedMB(options);
         indexingThreads = parseIndexingThreads(options);
         indexingQueuesSize = parseIndexingQueuesSize(options);
+        searchThreads = parseSearchThreads(options);
+        indexShards = parseIndexShards(options);
+        searchCacheSize = parseSearchCacheSize(options);
+        searchCacheDocuments = parseSearchCacheDocuments(options);
+        indexedRowsCacheSize = parseIndexedRowsCacheSize(options);
+        directoryType = parseDirectoryType(options);
+        directoryPreload = parseDirectoryPreload(options);
+        readPrefetch = parseReadPrefetch(options);
+        searchLeaseSeconds = parseSearchLeaseSeconds(options);
+        maxSearchLeases = parseMaxSearchLeases(options);
+        countVerifySeconds = parseCountVerifySeconds(options);
+        warmingQueries = parseWarmingQueries(options);
+        indexingRamBudgetMB = parseIndexingRamBudgetMB(options);
+        maxMergeThreads = parseMaxMergeThreads(options);
+        mergeThroughputMBPerSec = parseMergeThroughputMBPerSec(options);
+        mergeCompactionThrottle = parseMergeCompactionThrottle(options);
         excludedDataCenters = parseExcludedDataCenters(options);
         path = parsePath(options, tableMetadata, indexMetadata);
         schema = parseSchema(options, tableMetadata);
@@ -122,6 +236,22 @@ public class IndexOptions {
         parseMaxCachedMB(options);
         parseIndexingThreads(options);
         parseIndexingQueuesSize(options);
+        parseSearchThreads(options);
+        parseIndexShards(options);
+        parseSearchCacheSize(options);
+        parseSearchCacheDocuments(options);
+        parseIndexedRowsCacheSize(options);
+        parseDirectoryType(options);
+        parseDirectoryPreload(options);
+        parseReadPrefetch(options);
+        parseSearchLeaseSeconds(options);
+        parseMaxSearchLeases(options);
+        parseCountVerifySeconds(options);
+        parseWarmingQueries(options);
+        parseIndexingRamBudgetMB(options);
+        parseMaxMergeThreads(options);
+        parseMergeThroughputMBPerSec(options);
+        parseMergeCompactionThrottle(options);
         parseExcludedDataCenters(options);
         parseSchema(options, metadata);
         parsePath(options, metadata, null);
@@ -230,6 +360,286 @@ public class IndexOptions {
         }
     }
 
+    private static int parseSearchThreads(Map<String, String> options) {
+        String searchThreadsOption = options.get(SEARCH_THREADS_OPTION);
+        if (searchThreadsOption != null) {
+            int searchThreads;
+            try {
+                searchThreads = Integer.parseInt(searchThreadsOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'{}' must be a positive integer", SEARCH_THREADS_OPTION);
+            }
+            if (searchThreads < 0) {
+                throw new IndexException("'{}' must be positive", SEARCH_THREADS_OPTION);
+            }
+            return searchThreads;
+        } else {
+            return DEFAULT_SEARCH_THREADS;
+        }
+    }
+
+    private static int parseIndexShards(Map<String, String> options) {
+        String indexShardsOption = options.get(INDEX_SHARDS_OPTION);
+        if (indexShardsOption != null) {
+            int indexShards;
+            try {
+                indexShards = Integer.parseInt(indexShardsOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'{}' must be a strictly positive integer", INDEX_SHARDS_OPTION);
+            }
+            if (indexShards <= 0) {
+                throw new IndexException("'{}' must be strictly positive", INDEX_SHARDS_OPTION);
+            }
+            if (indexShards > MAX_INDEX_SHARDS) {
+                throw new IndexException("'{}' must not be greater than {}", INDEX_SHARDS_OPTION, MAX_INDEX_SHARDS);
+            }
+            return indexShards;
+        } else {
+            return DEFAULT_INDEX_SHARDS;
+        }
+    }
+
+    private static int parseSearchCacheSize(Map<String, String> options) {
+        String searchCacheSizeOption = options.get(SEARCH_CACHE_SIZE_OPTION);
+        if (searchCacheSizeOption != null) {
+            int searchCacheSize;
+            try {
+                searchCacheSize = Integer.parseInt(searchCacheSizeOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'{}' must be a positive integer", SEARCH_CACHE_SIZE_OPTION);
+            }
+            if (searchCacheSize < 0) {
+                throw new IndexException("'{}' must be positive", SEARCH_CACHE_SIZE_OPTION);
+            }
+            return searchCacheSize;
+        } else {
+            return DEFAULT_SEARCH_CACHE_SIZE;
+        }
+    }
+
+    private static int parseSearchCacheDocuments(Map<String, String> options) {
+        String searchCacheDocumentsOption = options.get(SEARCH_CACHE_DOCUMENTS_OPTION);
+        if (searchCacheDocumentsOption != null) {
+            int searchCacheDocuments;
+            try {
+                searchCacheDocuments = Integer.parseInt(searchCacheDocumentsOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'{}' must be a strictly positive integer", SEARCH_CACHE_DOCUMENTS_OPTION);
+            }
+            if (searchCacheDocuments <= 0) {
+                throw new IndexException("'{}' must be strictly positive", SEARCH_CACHE_DOCUMENTS_OPTION);
+            }
+            return searchCacheDocuments;
+        } else {
+            return DEFAULT_SEARCH_CACHE_DOCUMENTS;
+        }
+    }
+
+    private static int parseIndexedRowsCacheSize(Map<String, String> options) {
+        String indexedRowsCacheSizeOption = options.get(INDEXED_ROWS_CACHE_SIZE_OPTION);
+        if (indexedRowsCacheSizeOption != null) {
+            int indexedRowsCacheSize;
+            try {
+                indexedRowsCacheSize = Integer.parseInt(indexedRowsCacheSizeOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'{}' must be a positive integer", INDEXED_ROWS_CACHE_SIZE_OPTION);
+            }
+            if (indexedRowsCacheSize < 0) {
+                throw new IndexException("'{}' must be positive", INDEXED_ROWS_CACHE_SIZE_OPTION);
+            }
+            return indexedRowsCacheSize;
+        } else {
+            return DEFAULT_INDEXED_ROWS_CACHE_SIZE;
+        }
+    }
+
+    private static DirectoryType parseDirectoryType(Map<String, String> options) {
+        String directoryTypeOption = options.get(DIRECTORY_TYPE_OPTION);
+        if (directoryTypeOption != null) {
+            DirectoryType directoryType = DirectoryType.parse(directoryTypeOption);
+            if (directoryType == null) {
+                throw new IndexException("'{}' must be one of {}",
+                                         DIRECTORY_TYPE_OPTION,
+                                         Arrays.toString(DirectoryType.values()).toLowerCase());
+            }
+            return directoryType;
+        } else {
+            return DEFAULT_DIRECTORY_TYPE;
+        }
+    }
+
+    private static boolean parseDirectoryPreload(Map<String, String> options) {
+        String directoryPreloadOption = options.get(DIRECTORY_PRELOAD_OPTION);
+        if (directoryPreloadOption != null) {
+            if (directoryPreloadOption.equalsIgnoreCase("true")) {
+                return true;
+            } else if (directoryPreloadOption.equalsIgnoreCase("false")) {
+                return false;
+            }
+            throw new IndexException("'{}' must be a boolean", DIRECTORY_PRELOAD_OPTION);
+        } else {
+            return DEFAULT_DIRECTORY_PRELOAD;
+        }
+    }
+
+    private static int parseReadPrefetch(Map<String, String> options) {
+        String readPrefetchOption = options.get(READ_PREFETCH_OPTION);
+        if (readPrefetchOption != null) {
+            int readPrefetch;
+            try {
+                readPrefetch = Integer.parseInt(readPrefetchOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'{}' must be a positive integer", READ_PREFETCH_OPTION);
+            }
+            if (readPrefetch < 0) {
+                throw new IndexException("'{}' must be positive", READ_PREFETCH_OPTION);
+            }
+            return readPrefetch;
+        } else {
+            return DEFAULT_READ_PREFETCH;
+        }
+    }
+
+    private static int parseSearchLeaseSeconds(Map<String, String> options) {
+        String searchLeaseSecondsOption = options.get(SEARCH_LEASE_SECONDS_OPTION);
+        if (searchLeaseSecondsOption != null) {
+            int searchLeaseSeconds;
+            try {
+                searchLeaseSeconds = Integer.parseInt(searchLeaseSecondsOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'{}' must be a positive integer", SEARCH_LEASE_SECONDS_OPTION);
+            }
+            if (searchLeaseSeconds < 0) {
+                throw new IndexException("'{}' must be positive", SEARCH_LEASE_SECONDS_OPTION);
+            }
+            return searchLeaseSeconds;
+        } else {
+            return DEFAULT_SEARCH_LEASE_SECONDS;
+        }
+    }
+
+    private static int parseMaxSearchLeases(Map<String, String> options) {
+        String maxSearchLeasesOption = options.get(MAX_SEARCH_LEASES_OPTION);
+        if (maxSearchLeasesOption != null) {
+            int maxSearchLeases;
+            try {
+                maxSearchLeases = Integer.parseInt(maxSearchLeasesOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'{}' must be a strictly positive integer", MAX_SEARCH_LEASES_OPTION);
+            }
+            if (maxSearchLeases <= 0) {
+                throw new IndexException("'{}' must be strictly positive", MAX_SEARCH_LEASES_OPTION);
+            }
+            return maxSearchLeases;
+        } else {
+            return DEFAULT_MAX_SEARCH_LEASES;
+        }
+    }
+
+    private static int parseCountVerifySeconds(Map<String, String> options) {
+        String countVerifySecondsOption = options.get(COUNT_VERIFY_SECONDS_OPTION);
+        if (countVerifySecondsOption != null) {
+            int countVerifySeconds;
+            try {
+                countVerifySeconds = Integer.parseInt(countVerifySecondsOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'{}' must be a positive integer", COUNT_VERIFY_SECONDS_OPTION);
+            }
+            if (countVerifySeconds < 0) {
+                throw new IndexException("'{}' must be positive", COUNT_VERIFY_SECONDS_OPTION);
+            }
+            return countVerifySeconds;
+        } else {
+            return DEFAULT_COUNT_VERIFY_SECONDS;
+        }
+    }
+
+    private static int parseWarmingQueries(Map<String, String> options) {
+        String warmingQueriesOption = options.get(WARMING_QUERIES_OPTION);
+        if (warmingQueriesOption != null) {
+            int warmingQueries;
+            try {
+                warmingQueries = Integer.parseInt(warmingQueriesOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'{}' must be a positive integer", WARMING_QUERIES_OPTION);
+            }
+            if (warmingQueries < 0) {
+                throw new IndexException("'{}' must be positive", WARMING_QUERIES_OPTION);
+            }
+            return warmingQueries;
+        } else {
+            return DEFAULT_WARMING_QUERIES;
+        }
+    }
+
+    private static int parseIndexingRamBudgetMB(Map<String, String> options) {
+        String indexingRamBudgetOption = options.get(INDEXING_RAM_BUDGET_MB_OPTION);
+        if (indexingRamBudgetOption != null) {
+            int indexingRamBudgetMB;
+            try {
+                indexingRamBudgetMB = Integer.parseInt(indexingRamBudgetOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'{}' must be a positive integer", INDEXING_RAM_BUDGET_MB_OPTION);
+            }
+            if (indexingRamBudgetMB < 0) {
+                throw new IndexException("'{}' must be positive", INDEXING_RAM_BUDGET_MB_OPTION);
+            }
+            return indexingRamBudgetMB;
+        } else {
+            return DEFAULT_INDEXING_RAM_BUDGET_MB;
+        }
+    }
+
+    private static int parseMaxMergeThreads(Map<String, String> options) {
+        String maxMergeThreadsOption = options.get(MAX_MERGE_THREADS_OPTION);
+        if (maxMergeThreadsOption != null) {
+            int maxMergeThreads;
+            try {
+                maxMergeThreads = Integer.parseInt(maxMergeThreadsOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'{}' must be a strictly positive integer", MAX_MERGE_THREADS_OPTION);
+            }
+            if (maxMergeThreads <= 0) {
+                throw new IndexException("'{}' must be strictly positive", MAX_MERGE_THREADS_OPTION);
+            }
+            return maxMergeThreads;
+        } else {
+            return DEFAULT_MAX_MERGE_THREADS;
+        }
+    }
+
+    private static int parseMergeThroughputMBPerSec(Map<String, String> options) {
+        String mergeThroughputOption = options.get(MERGE_THROUGHPUT_MB_PER_SEC_OPTION);
+        if (mergeThroughputOption != null) {
+            int mergeThroughput;
+            try {
+                mergeThroughput = Integer.parseInt(mergeThroughputOption);
+            } catch (NumberFormatException e) {
+                throw new IndexException("'{}' must be a positive integer", MERGE_THROUGHPUT_MB_PER_SEC_OPTION);
+            }
+            if (mergeThroughput < 0) {
+                throw new IndexException("'{}' must be positive", MERGE_THROUGHPUT_MB_PER_SEC_OPTION);
+            }
+            return mergeThroughput;
+        } else {
+            return DEFAULT_MERGE_THROUGHPUT_MB_PER_SEC;
+        }
+    }
+
+    private static boolean parseMergeCompactionThrottle(Map<String, String> options) {
+        String mergeCompactionThrottleOption = options.get(MERGE_COMPACTION_THROTTLE_OPTION);
+        if (mergeCompactionThrottleOption != null) {
+            if (mergeCompactionThrottleOption.equalsIgnoreCase("true")) {
+                return true;
+            } else if (mergeCompactionThrottleOption.equalsIgnoreCase("false")) {
+                return false;
+            }
+            throw new IndexException("'{}' must be a boolean", MERGE_COMPACTION_THROTTLE_OPTION);
+        } else {
+            return DEFAULT_MERGE_COMPACTION_THROTTLE;
+        }
+    }
+
     private static List<String> parseExcludedDataCenters(Map<String, String> options) {
         String excludedDataCentersOption = options.get(EXCLUDED_DATA_CENTERS_OPTION);
         if (excludedDataCentersOption != null) {
@@ -278,6 +688,22 @@ public class IndexOptions {
                           .add("maxCachedMB", maxCachedMB)
                           .add("indexingThreads", indexingThreads)
                           .add("indexingQueuesSize", indexingQueuesSize)
+                          .add("searchThreads", searchThreads)
+                          .add("indexShards", indexShards)
+                          .add("searchCacheSize", searchCacheSize)
+                          .add("searchCacheDocuments", searchCacheDocuments)
+                          .add("indexedRowsCacheSize", indexedRowsCacheSize)
+                          .add("directoryType", directoryType)
+                          .add("directoryPreload", directoryPreload)
+                          .add("readPrefetch", readPrefetch)
+                          .add("searchLeaseSeconds", searchLeaseSeconds)
+                          .add("maxSearchLeases", maxSearchLeases)
+                          .add("countVerifySeconds", countVerifySeconds)
+                          .add("warmingQueries", warmingQueries)
+                          .add("indexingRamBudgetMB", indexingRamBudgetMB)
+                          .add("maxMergeThreads", maxMergeThreads)
+                          .add("mergeThroughputMBPerSec", mergeThroughputMBPerSec)
+                          .add("mergeCompactionThrottle", mergeCompactionThrottle)
                           .add("excludedDataCenters", excludedDataCenters)
                           .add("path", path)
                           .add("schema", schema)
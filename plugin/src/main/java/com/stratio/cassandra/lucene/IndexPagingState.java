@@ -16,6 +16,7 @@
 package com.stratio.cassandra.lucene;
 
 import com.google.common.base.MoreObjects;
+import com.stratio.cassandra.lucene.search.Search;
 import com.stratio.cassandra.lucene.search.SearchBuilder;
 import com.stratio.cassandra.lucene.util.SimplePartitionIterator;
 import com.stratio.cassandra.lucene.util.SimpleRowIterator;
@@ -23,15 +24,19 @@ import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.marshal.UTF8Type;
 import org.apache.cassandra.db.partitions.PartitionIterator;
+import org.apache.cassandra.db.rows.Row;
 import org.apache.cassandra.db.rows.RowIterator;
 import org.apache.cassandra.dht.AbstractBounds;
 import org.apache.cassandra.service.LuceneStorageProxy;
 import org.apache.cassandra.service.pager.PagingState;
+import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.Pair;
+import org.apache.lucene.util.BytesRef;
 
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static com.stratio.cassandra.lucene.util.ByteBufferUtils.compose;
 import static com.stratio.cassandra.lucene.util.ByteBufferUtils.decompose;
@@ -51,6 +56,8 @@ import static org.apache.cassandra.utils.ByteBufferUtil.writeShortLength;
  */
 public class IndexPagingState {
 
+    private static final byte NULL = 0, INTEGER = 1, LONG = 2, FLOAT = 3, DOUBLE = 4, BYTES = 5;
+
     /** The number of remaining rows. */
     private int remaining;
 
@@ -60,6 +67,15 @@ public class IndexPagingState {
     /** The last row positions */
     private final Map<DecoratedKey, Clustering> entries;
 
+    /** The index sort values of the last rows, if known */
+    private final Map<DecoratedKey, Object[]> sortValues;
+
+    /** The identifier of the index searchers leased by the search, if any */
+    private UUID lease;
+
+    /** The last rows seen since the last update of their sort values */
+    private final Map<DecoratedKey, Row> lastRows;
+
     /**
      * Constructor taking the remaining rows.
      *
@@ -68,6 +84,8 @@ public class IndexPagingState {
     private IndexPagingState(int remaining) {
         this.remaining = remaining;
         this.entries = new LinkedHashMap<>();
+        this.sortValues = new HashMap<>();
+        this.lastRows = new HashMap<>();
     }
 
     /**
@@ -87,7 +105,39 @@ public class IndexPagingState {
                 keysToRemove.add(key);
             }
         }
-        keysToRemove.forEach(entries::remove);
+        keysToRemove.forEach(this::remove);
+    }
+
+    private void put(DecoratedKey key, Row row) {
+        entries.put(key, row.clustering());
+        sortValues.remove(key);
+        lastRows.put(key, row);
+    }
+
+    private void remove(DecoratedKey key) {
+        entries.remove(key);
+        sortValues.remove(key);
+        lastRows.remove(key);
+    }
+
+    /**
+     * Returns the identifier shared by all the pages of the search, which is used by replicas to lease index searchers.
+     *
+     * @return the lease identifier, {@code null} if the state has been written by a previous version
+     */
+    UUID lease() {
+        return lease;
+    }
+
+    /**
+     * Returns the index sort values of the last seen row for the specified {@link ReadCommand}, if they are known.
+     *
+     * @param command a read command
+     * @return the sort values of the last seen row for {@code command}, or {@code null} if they are unknown
+     */
+    Object[] sortValuesForCommand(ReadCommand command) {
+        Pair<DecoratedKey, Clustering> position = forCommand(command);
+        return position == null ? null : sortValues.get(position.left);
     }
 
     /**
@@ -144,6 +194,17 @@ public class IndexPagingState {
     }
 
     private void rewrite(ReadCommand command) throws ReflectiveOperationException {
+        rewrite(command, searchBuilder -> searchBuilder.paging(this));
+    }
+
+    /**
+     * Modifies the Lucene search contained in the specified {@link ReadCommand} with the specified function.
+     *
+     * @param command a read command using the Lucene index
+     * @param rewriter the modification to be applied to the search
+     * @throws ReflectiveOperationException
+     */
+    static void rewrite(ReadCommand command, Consumer<SearchBuilder> rewriter) throws ReflectiveOperationException {
 
         Field field = Expression.class.getDeclaredField("value");
         field.setAccessible(true);
@@ -152,12 +213,12 @@ public class IndexPagingState {
 
         ByteBuffer value = (ByteBuffer) field.get(expression);
         SearchBuilder searchBuilder = SearchBuilder.fromJson(UTF8Type.instance.compose(value));
-        searchBuilder.paging(this);
+        rewriter.accept(searchBuilder);
         ByteBuffer newValue = UTF8Type.instance.decompose(searchBuilder.toJson());
         field.set(expression, newValue);
     }
 
-    private Expression expression(ReadCommand command) throws ReflectiveOperationException {
+    private static Expression expression(ReadCommand command) throws ReflectiveOperationException {
 
         // Try with custom expressions
         for (Expression expression : command.rowFilter().getExpressions()) {
@@ -204,7 +265,12 @@ public class IndexPagingState {
      * @return a Lucene paging state
      */
     static IndexPagingState build(PagingState state, int limit) {
-        return state == null ? new IndexPagingState(limit) : build(state.partitionKey);
+        if (state == null) {
+            IndexPagingState pagingState = new IndexPagingState(limit);
+            pagingState.lease = UUID.randomUUID();
+            return pagingState;
+        }
+        return build(state.partitionKey);
     }
 
     /**
@@ -235,8 +301,7 @@ public class IndexPagingState {
             while (partition.hasNext()) {
                 SimpleRowIterator newRowIterator = new SimpleRowIterator(partition);
                 rowIterators.add(newRowIterator);
-                Clustering clustering = newRowIterator.getRow().clustering();
-                entries.put(key, clustering);
+                put(key, newRowIterator.getRow());
                 if (remaining > 0) {
                     remaining--;
                 }
@@ -273,8 +338,7 @@ public class IndexPagingState {
                 clear(bound);
                 SimpleRowIterator newRowIterator = new SimpleRowIterator(partition);
                 rowIterators.add(newRowIterator);
-                Clustering clustering = newRowIterator.getRow().clustering();
-                entries.put(key, clustering);
+                put(key, newRowIterator.getRow());
                 if (remaining > 0) {
                     remaining--;
                 }
@@ -289,10 +353,35 @@ public class IndexPagingState {
         return new SimplePartitionIterator(rowIterators);
     }
 
+    /**
+     * Updates the index sort values of the rows seen in the last call to {@link #update(ReadQuery, PartitionIterator,
+     * ConsistencyLevel)}, so the next page can be searched right after them without locating them in the index.
+     *
+     * @param index the index used by the query
+     * @param search the search of the query
+     */
+    void updateSortValues(Index index, Search search) {
+        List<DecoratedKey> keys = new ArrayList<>(lastRows.keySet());
+        List<Pair<DecoratedKey, Row>> rows = keys.stream()
+                                                 .map(key -> Pair.create(key, lastRows.get(key)))
+                                                 .collect(toList());
+        List<Object[]> values = hasMorePages ? index.sortValues(search, rows) : null;
+        if (values != null) {
+            for (int i = 0; i < keys.size(); i++) {
+                sortValues.put(keys.get(i), values.get(i));
+            }
+        }
+        lastRows.clear();
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString() {
-        return MoreObjects.toStringHelper(this).add("remaining", remaining).add("entries", entries).toString();
+        return MoreObjects.toStringHelper(this)
+                          .add("remaining", remaining)
+                          .add("entries", entries)
+                          .add("lease", lease)
+                          .toString();
     }
 
     /**
@@ -312,9 +401,18 @@ public class IndexPagingState {
             return compose(values);
         }).collect(toList()).toArray(entryValues);
         ByteBuffer values = compose(entryValues);
-        ByteBuffer out = ByteBuffer.allocate(2 + values.remaining());
+        ByteBuffer sorts = compose(entries.keySet().stream().map(key -> {
+            Object[] keySortValues = sortValues.get(key);
+            return keySortValues == null ? ByteBufferUtil.EMPTY_BYTE_BUFFER : sortValues(keySortValues);
+        }).toArray(ByteBuffer[]::new));
+        ByteBuffer out = ByteBuffer.allocate(2 + values.remaining() + sorts.remaining() + (lease == null ? 0 : 16));
         writeShortLength(out, remaining);
         out.put(values);
+        out.put(sorts);
+        if (lease != null) {
+            out.putLong(lease.getMostSignificantBits());
+            out.putLong(lease.getLeastSignificantBits());
+        }
         out.flip();
         return out;
     }
@@ -329,6 +427,7 @@ public class IndexPagingState {
     public static IndexPagingState build(ByteBuffer bb) {
         int remaining = readShortLength(bb);
         IndexPagingState state = new IndexPagingState(remaining);
+        List<DecoratedKey> keys = new ArrayList<>();
         Arrays.asList(decompose(bb))
               .stream()
               .forEach(bbe -> {
@@ -336,7 +435,82 @@ public class IndexPagingState {
                   DecoratedKey key = DatabaseDescriptor.getPartitioner().decorateKey(values[0]);
                   Clustering clustering = new Clustering(Arrays.copyOfRange(values, 1, values.length));
                   state.entries.put(key, clustering);
+                  keys.add(key);
               });
+
+        // Sort values are optional to keep compatibility with the states written by previous versions
+        if (bb.hasRemaining()) {
+            ByteBuffer[] sorts = decompose(bb);
+            for (int i = 0; i < sorts.length && i < keys.size(); i++) {
+                if (sorts[i].hasRemaining()) {
+                    state.sortValues.put(keys.get(i), sortValues(sorts[i]));
+                }
+            }
+        }
+        if (bb.remaining() >= 16) {
+            state.lease = new UUID(bb.getLong(), bb.getLong());
+        }
         return state;
     }
+
+    private static ByteBuffer sortValues(Object[] values) {
+        ByteBuffer[] components = new ByteBuffer[values.length];
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            ByteBuffer component;
+            if (value == null) {
+                component = ByteBuffer.allocate(1).put(NULL);
+            } else if (value instanceof Integer) {
+                component = ByteBuffer.allocate(5).put(INTEGER).putInt((Integer) value);
+            } else if (value instanceof Long) {
+                component = ByteBuffer.allocate(9).put(LONG).putLong((Long) value);
+            } else if (value instanceof Float) {
+                component = ByteBuffer.allocate(5).put(FLOAT).putFloat((Float) value);
+            } else if (value instanceof Double) {
+                component = ByteBuffer.allocate(9).put(DOUBLE).putDouble((Double) value);
+            } else if (value instanceof BytesRef) {
+                BytesRef bytesRef = (BytesRef) value;
+                component = ByteBuffer.allocate(1 + bytesRef.length)
+                                      .put(BYTES)
+                                      .put(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+            } else {
+                throw new IndexException("Unsupported sort value type {}", value.getClass());
+            }
+            component.flip();
+            components[i] = component;
+        }
+        return compose(components);
+    }
+
+    private static Object[] sortValues(ByteBuffer bb) {
+        ByteBuffer[] components = decompose(bb);
+        Object[] values = new Object[components.length];
+        for (int i = 0; i < components.length; i++) {
+            ByteBuffer component = components[i];
+            byte type = component.get();
+            switch (type) {
+                case NULL:
+                    values[i] = null;
+                    break;
+                case INTEGER:
+                    values[i] = component.getInt();
+                    break;
+                case LONG:
+                    values[i] = component.getLong();
+                    break;
+                case FLOAT:
+                    values[i] = component.getFloat();
+                    break;
+                case DOUBLE:
+                    values[i] = component.getDouble();
+                    break;
+                case BYTES:
+                    values[i] = new BytesRef(ByteBufferUtil.getArray(component));
+                    break;
+                default:
+                    throw new IndexException("Unsupported sort value type {}", type);
+            }
+        }
+        return values;
+    }
 }
@@ -16,14 +16,18 @@
 package com.stratio.cassandra.lucene;
 
 import com.stratio.cassandra.lucene.search.Search;
+import com.stratio.cassandra.lucene.search.aggregation.Aggregations;
 import com.stratio.cassandra.lucene.util.TimeCounter;
 import org.apache.cassandra.cql3.*;
+import org.apache.cassandra.cql3.selection.Selection;
 import org.apache.cassandra.cql3.statements.BatchStatement;
 import org.apache.cassandra.cql3.statements.IndexTarget;
 import org.apache.cassandra.cql3.statements.ParsedStatement;
 import org.apache.cassandra.cql3.statements.SelectStatement;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.filter.RowFilter;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.UTF8Type;
 import org.apache.cassandra.db.partitions.PartitionIterator;
 import org.apache.cassandra.exceptions.InvalidRequestException;
 import org.apache.cassandra.service.ClientState;
@@ -32,11 +36,14 @@ import org.apache.cassandra.service.QueryState;
 import org.apache.cassandra.transport.messages.ResultMessage;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.MD5Digest;
+import org.apache.cassandra.utils.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -54,6 +61,12 @@ class IndexQueryHandler implements QueryHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(IndexQueryHandler.class);
 
+    /** The name of the column containing the results of aggregation queries. */
+    static final String AGGREGATIONS_COLUMN = "aggregations";
+
+    /** If the current thread is building the read command of a count request. */
+    private static final ThreadLocal<Boolean> buildingCount = ThreadLocal.withInitial(() -> false);
+
     private static Method getPageSize;
     private static Method processResults;
 
@@ -201,15 +214,177 @@ class IndexQueryHandler implements QueryHandler {
         int limit = select.getLimit(options);
         int page = (int) getPageSize.invoke(select, options);
 
+        if (search.usesAggregations()) {
+            if (!isIndexOnly(select, options)) {
+                throw new InvalidRequestException("Lucene aggregations can't be combined with other filters");
+            }
+            if (!isSingleReplica(options)) {
+                throw new InvalidRequestException("Lucene aggregations are only supported with consistency " +
+                                                  "levels ONE and LOCAL_ONE");
+            }
+            return executeAggregationLuceneQuery(select, options, search);
+        }
+
+        if (isCount(select) && isIndexOnly(select, options) && isSingleReplica(options)) {
+            Rows rows = executeCountLuceneQuery(select, options);
+            if (rows != null) {
+                return rows;
+            }
+        }
+
         if (search.requiresPostProcessing() && page > 0 && page < limit) {
-            return executeSortedLuceneQuery(select, state, options);
+            return executeSortedLuceneQuery(select, state, options, index, search);
         }
 
         // Process
         return execute(select, state, options);
     }
 
-    private Rows executeSortedLuceneQuery(SelectStatement select, QueryState state, QueryOptions options)
+    /**
+     * Returns if the specified statement only selects the number of rows, as in {@code SELECT count(*)}.
+     *
+     * @param select a select statement
+     * @return {@code true} if the statement only selects the number of rows, {@code false} otherwise
+     */
+    private static boolean isCount(SelectStatement select) {
+        Selection selection = select.getSelection();
+        return selection.isAggregate()
+               && selection.getColumns().isEmpty()
+               && select.getResultMetadata().names.size() == 1
+               && !select.parameters.isJson
+               && !select.parameters.isDistinct;
+    }
+
+    /**
+     * Returns if the Lucene search expression is the only row filter expression of the specified statement. Other
+     * expressions, such as the ones allowed by {@code ALLOW FILTERING}, can't be answered by the index alone.
+     *
+     * @param select a select statement
+     * @param options the query options
+     * @return {@code true} if the statement is only filtered by the Lucene search, {@code false} otherwise
+     */
+    private static boolean isIndexOnly(SelectStatement select, QueryOptions options) {
+        return select.getRowFilter(options).getExpressions().size() == 1;
+    }
+
+    /**
+     * Returns if the specified query options request reading a single replica, so the counts of the index of a single
+     * replica per token range honor the requested consistency level.
+     *
+     * @param options the query options
+     * @return {@code true} if the consistency level is {@code ONE} or {@code LOCAL_ONE}, {@code false} otherwise
+     */
+    private static boolean isSingleReplica(QueryOptions options) {
+        ConsistencyLevel cl = options.getConsistency();
+        return cl == ConsistencyLevel.ONE || cl == ConsistencyLevel.LOCAL_ONE;
+    }
+
+    /**
+     * Executes the specified count statement without reading the matched rows. Each replica returns the total hit
+     * count of its index for each token range, and these counts are summed. Queries restricted to partition keys are
+     * not answered this way, and {@code null} is returned for them.
+     *
+     * @param select a statement only selecting the number of rows
+     * @param options the query options
+     * @return the number of rows, or {@code null} if the statement can't be answered with counts of the index
+     */
+    private Rows executeCountLuceneQuery(SelectStatement select, QueryOptions options) {
+
+        List<Pair<Long, ByteBuffer>> replies = counts(select, options);
+        if (replies == null) {
+            return null;
+        }
+        long count = replies.stream().mapToLong(reply -> reply.left).sum();
+        count = Math.min(count, select.getLimit(options));
+
+        List<List<ByteBuffer>> rows = new ArrayList<>(1);
+        rows.add(Collections.singletonList(LongType.instance.decompose(count)));
+        return new Rows(new ResultSet(select.getResultMetadata(), rows));
+    }
+
+    /**
+     * Executes the specified statement computing the aggregations of the specified search instead of returning the
+     * matched rows. Each replica computes the partial results of the aggregations for each token range while counting
+     * the hits in its index, and these partial results are merged into a single row with a single {@code aggregations}
+     * text column containing the JSON results.
+     *
+     * @param select a statement with aggregations
+     * @param options the query options
+     * @param search the search with the aggregations to be computed
+     * @return a single row containing the results of the aggregations
+     */
+    private Rows executeAggregationLuceneQuery(SelectStatement select, QueryOptions options, Search search) {
+
+        List<Pair<Long, ByteBuffer>> replies = counts(select, options);
+        if (replies == null) {
+            throw new InvalidRequestException("Lucene aggregations are not supported in searches restricted to " +
+                                              "partition keys");
+        }
+        List<String> partials = new ArrayList<>(replies.size());
+        for (Pair<Long, ByteBuffer> reply : replies) {
+            partials.add(UTF8Type.instance.compose(reply.right));
+        }
+        String results = Aggregations.merge(search.aggregations(), partials);
+
+        ColumnSpecification column = new ColumnSpecification(select.keyspace(),
+                                                             select.columnFamily(),
+                                                             new ColumnIdentifier(AGGREGATIONS_COLUMN, true),
+                                                             UTF8Type.instance);
+        List<List<ByteBuffer>> rows = new ArrayList<>(1);
+        rows.add(Collections.singletonList(UTF8Type.instance.decompose(results)));
+        return new Rows(new ResultSet(new ResultSet.ResultMetadata(Collections.singletonList(column)), rows));
+    }
+
+    /**
+     * Counts the rows matched by the Lucene search of the specified statement without reading them. Each replica
+     * returns the total hit count of its index and the partial results of the search aggregations, if any, for each
+     * token range. Each token range is counted by a single replica, so the replies are neither reconciled nor repaired,
+     * and the requested consistency level must be {@code ONE} or {@code LOCAL_ONE}. The command is not limited because
+     * each token range returns a single count, and the limit is applied by the caller. Queries restricted to partition
+     * keys are not answered this way, and {@code null} is returned for them.
+     *
+     * @param select a statement
+     * @param options the query options
+     * @return the count and the partial aggregation results of each token range, or {@code null} if the statement
+     * can't be answered with counts of the index
+     */
+    private List<Pair<Long, ByteBuffer>> counts(SelectStatement select, QueryOptions options) {
+
+        // Check consistency level
+        ConsistencyLevel cl = options.getConsistency();
+        checkNotNull(cl, "Invalid empty consistency level");
+        cl.validateForRead(select.keyspace());
+
+        // Build the command, which is validated by the index
+        int nowInSec = FBUtilities.nowInSeconds();
+        ReadQuery query;
+        buildingCount.set(true);
+        try {
+            query = select.getQuery(options, nowInSec, Integer.MAX_VALUE);
+        } finally {
+            buildingCount.set(false);
+        }
+        if (!(query instanceof PartitionRangeReadCommand)) {
+            return null;
+        }
+        return LuceneStorageProxy.count((PartitionRangeReadCommand) query, cl);
+    }
+
+    /**
+     * Returns if the current thread is building the read command of a count request, which is the only kind of read
+     * command allowed to compute aggregations.
+     *
+     * @return {@code true} if the current thread is building a count command, {@code false} otherwise
+     */
+    static boolean isBuildingCount() {
+        return buildingCount.get();
+    }
+
+    private Rows executeSortedLuceneQuery(SelectStatement select,
+                                          QueryState state,
+                                          QueryOptions options,
+                                          Index index,
+                                          Search search)
     throws ReflectiveOperationException {
 
         // Check consistency level
@@ -229,6 +404,7 @@ class IndexQueryHandler implements QueryHandler {
         try (PartitionIterator data = data(query, cl, state)) {
             PartitionIterator processedData = pagingState.update(query, data, options.getConsistency());
             Rows rows = (Rows) processResults.invoke(select, processedData, options, nowInSec, page);
+            pagingState.updateSortValues(index, search);
             rows.result.metadata.setHasMorePages(pagingState.toPagingState());
             return rows;
         }
@@ -19,12 +19,33 @@ import com.stratio.cassandra.lucene.index.DocumentIterator;
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.filter.ClusteringIndexFilter;
+import org.apache.cassandra.db.partitions.ImmutableBTreePartition;
 import org.apache.cassandra.db.partitions.UnfilteredPartitionIterator;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.tracing.TraceState;
+import org.apache.cassandra.tracing.Tracing;
+import org.apache.cassandra.utils.Pair;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * {@link UnfilteredPartitionIterator} for retrieving rows from a {@link DocumentIterator}.
  *
+ * The partitions are read in the order of the documents, but up to a certain number of them can be read ahead of the
+ * returned one in a separate thread pool, so the reads of the next partitions overlap each other and the consumption
+ * of the current partition. The prefetched partitions are fully loaded in memory to release their SSTable readers.
+ *
+ * The time spent getting documents from the index and reading partitions from Cassandra, and the number of fetched
+ * documents, are recorded in the {@link IndexMetrics} when the iterator is closed.
+ *
  * @author Andres de la Pena {@literal <adelapena@stratio.com>}
  */
 abstract class IndexReader implements UnfilteredPartitionIterator {
@@ -34,6 +55,13 @@ abstract class IndexReader implements UnfilteredPartitionIterator {
     protected final ReadOrderGroup orderGroup;
     protected final DocumentIterator documents;
     protected UnfilteredRowIterator next;
+    private final int prefetch;
+    private final ExecutorService executor;
+    private final Deque<Future<UnfilteredRowIterator>> reads = new ArrayDeque<>();
+    private final IndexMetrics metrics;
+    private final int initialDocuments;
+    private final LongAdder readNanos = new LongAdder();
+    private long luceneNanos;
 
     /**
      * Constructor taking the Cassandra read data and the Lucene results iterator.
@@ -42,12 +70,25 @@ abstract class IndexReader implements UnfilteredPartitionIterator {
      * @param table the base table
      * @param orderGroup the order group of the read operation
      * @param documents the documents iterator
+     * @param prefetch the number of partitions to be read ahead of the returned one
+     * @param executor the executor for reading partitions ahead, {@code null} means sequential reads
+     * @param metrics the index metrics
      */
-    IndexReader(ReadCommand command, ColumnFamilyStore table, ReadOrderGroup orderGroup, DocumentIterator documents) {
+    IndexReader(ReadCommand command,
+                ColumnFamilyStore table,
+                ReadOrderGroup orderGroup,
+                DocumentIterator documents,
+                int prefetch,
+                ExecutorService executor,
+                IndexMetrics metrics) {
         this.command = command;
         this.table = table;
         this.orderGroup = orderGroup;
         this.documents = documents;
+        this.prefetch = executor == null ? 0 : prefetch;
+        this.executor = executor;
+        this.metrics = metrics;
+        initialDocuments = documents.getNumReadDocuments();
     }
 
     /** {@inheritDoc} */
@@ -79,7 +120,43 @@ abstract class IndexReader implements UnfilteredPartitionIterator {
         return result;
     }
 
-    protected abstract boolean prepareNext();
+    private boolean prepareNext() {
+        while (next == null) {
+
+            // Keep the read ahead queue full
+            while (reads.size() <= prefetch) {
+                long start = System.nanoTime();
+                Pair<DecoratedKey, ClusteringIndexFilter> read = nextRead();
+                luceneNanos += System.nanoTime() - start;
+                if (read == null) {
+                    break;
+                }
+                reads.add(read(read.left, read.right));
+            }
+
+            Future<UnfilteredRowIterator> read = reads.poll();
+            if (read == null) {
+                return false;
+            }
+            UnfilteredRowIterator data = get(read);
+            if (data != null) {
+                if (data.isEmpty()) {
+                    data.close();
+                } else {
+                    next = data;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the partition key and the clustering filter of the next partition to be read, consuming the documents
+     * that are going to be read with it.
+     *
+     * @return the next partition key and clustering filter, or {@code null} if there are no more documents
+     */
+    protected abstract Pair<DecoratedKey, ClusteringIndexFilter> nextRead();
 
     /** {@inheritDoc} */
     @Override
@@ -95,11 +172,52 @@ abstract class IndexReader implements UnfilteredPartitionIterator {
                 next.close();
             }
         } finally {
-            documents.close();
+            try {
+
+                // Running reads must finish before the order group is closed
+                for (Future<UnfilteredRowIterator> read : reads) {
+                    if (!read.cancel(false)) {
+                        UnfilteredRowIterator data = get(read);
+                        if (data != null) {
+                            data.close();
+                        }
+                    }
+                }
+                reads.clear();
+            } finally {
+                documents.close();
+                metrics.searchLucene.update(luceneNanos, TimeUnit.NANOSECONDS);
+                metrics.searchRead.update(readNanos.sum(), TimeUnit.NANOSECONDS);
+                metrics.searchHits.update(documents.getNumReadDocuments() - initialDocuments);
+            }
+        }
+    }
+
+    private Future<UnfilteredRowIterator> read(DecoratedKey key, ClusteringIndexFilter filter) {
+        if (executor == null) {
+            return CompletableFuture.completedFuture(timed(() -> query(key, filter)));
+        }
+        TraceState state = Tracing.instance.get();
+        return executor.submit(() -> {
+            Tracing.instance.set(state);
+            try {
+                return timed(() -> load(query(key, filter)));
+            } finally {
+                Tracing.instance.set(null);
+            }
+        });
+    }
+
+    private UnfilteredRowIterator timed(Supplier<UnfilteredRowIterator> read) {
+        long start = System.nanoTime();
+        try {
+            return read.get();
+        } finally {
+            readNanos.add(System.nanoTime() - start);
         }
     }
 
-    protected UnfilteredRowIterator read(DecoratedKey key, ClusteringIndexFilter filter) {
+    private UnfilteredRowIterator query(DecoratedKey key, ClusteringIndexFilter filter) {
         return SinglePartitionReadCommand.create(isForThrift(),
                                                  table.metadata,
                                                  command.nowInSec(),
@@ -109,4 +227,29 @@ abstract class IndexReader implements UnfilteredPartitionIterator {
                                                  key,
                                                  filter).queryMemtableAndDisk(table, orderGroup.baseReadOpOrderGroup());
     }
+
+    private static UnfilteredRowIterator load(UnfilteredRowIterator data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return ImmutableBTreePartition.create(data).unfilteredIterator();
+        } finally {
+            data.close();
+        }
+    }
+
+    private static UnfilteredRowIterator get(Future<UnfilteredRowIterator> read) {
+        try {
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexException(e, "Interrupted while reading partition");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IndexException(e.getCause(), "Error while reading partition");
+        }
+    }
 }
@@ -21,7 +21,6 @@ import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.ReadCommand;
 import org.apache.cassandra.db.ReadOrderGroup;
 import org.apache.cassandra.db.filter.ClusteringIndexFilter;
-import org.apache.cassandra.db.rows.UnfilteredRowIterator;
 import org.apache.cassandra.utils.Pair;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.search.ScoreDoc;
@@ -49,25 +48,18 @@ class IndexReaderSkinny extends IndexReader {
                       ColumnFamilyStore table,
                       ReadOrderGroup orderGroup,
                       DocumentIterator documents) {
-        super(command, table, orderGroup, documents);
+        super(command, table, orderGroup, documents, service.readPrefetch, service.readExecutor, service.metrics);
         this.service = service;
     }
 
+    /** {@inheritDoc} */
     @Override
-    protected boolean prepareNext() {
-        while (next == null && documents.hasNext()) {
-            Pair<Document, ScoreDoc> nextDoc = documents.next();
-            DecoratedKey key = service.decoratedKey(nextDoc.left);
-            ClusteringIndexFilter filter = command.clusteringIndexFilter(key);
-            UnfilteredRowIterator data = read(key, filter);
-            if (data != null) {
-                if (data.isEmpty()) {
-                    data.close();
-                } else {
-                    next = data;
-                }
-            }
+    protected Pair<DecoratedKey, ClusteringIndexFilter> nextRead() {
+        if (!documents.hasNext()) {
+            return null;
         }
-        return next != null;
+        Pair<Document, ScoreDoc> nextDoc = documents.next();
+        DecoratedKey key = service.decoratedKey(nextDoc.left);
+        return Pair.create(key, command.clusteringIndexFilter(key));
     }
 }
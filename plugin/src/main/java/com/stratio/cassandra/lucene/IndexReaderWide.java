@@ -19,7 +19,6 @@ import com.stratio.cassandra.lucene.index.DocumentIterator;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.filter.ClusteringIndexFilter;
 import org.apache.cassandra.db.filter.ClusteringIndexNamesFilter;
-import org.apache.cassandra.db.rows.UnfilteredRowIterator;
 import org.apache.cassandra.utils.Pair;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.search.ScoreDoc;
@@ -51,42 +50,30 @@ class IndexReaderWide extends IndexReader {
                     ColumnFamilyStore table,
                     ReadOrderGroup orderGroup,
                     DocumentIterator documents) {
-        super(command, table, orderGroup, documents);
+        super(command, table, orderGroup, documents, service.readPrefetch, service.readExecutor, service.metrics);
         this.service = service;
         this.comparator = service.metadata.comparator;
     }
 
+    /** {@inheritDoc} */
     @Override
-    protected boolean prepareNext() {
+    protected Pair<DecoratedKey, ClusteringIndexFilter> nextRead() {
+        while (true) {
 
-        if (next != null) {
-            return true;
-        }
-
-        if (nextDoc == null) {
-            if (!documents.hasNext()) {
-                return false;
+            if (nextDoc == null) {
+                if (!documents.hasNext()) {
+                    return null;
+                }
+                nextDoc = documents.next();
             }
-            nextDoc = documents.next();
-        }
 
-        DecoratedKey key = service.decoratedKey(nextDoc.left);
-        NavigableSet<Clustering> clusterings = clusterings(key);
+            DecoratedKey key = service.decoratedKey(nextDoc.left);
+            NavigableSet<Clustering> clusterings = clusterings(key);
 
-        if (clusterings.isEmpty()) {
-            return prepareNext();
-        }
-
-        ClusteringIndexFilter filter = new ClusteringIndexNamesFilter(clusterings, false);
-        UnfilteredRowIterator data = read(key, filter);
-
-        if (data.isEmpty()) {
-            data.close();
-            return prepareNext();
+            if (!clusterings.isEmpty()) {
+                return Pair.create(key, new ClusteringIndexNamesFilter(clusterings, false));
+            }
         }
-
-        next = data;
-        return true;
     }
 
     private NavigableSet<Clustering> clusterings(DecoratedKey key) {
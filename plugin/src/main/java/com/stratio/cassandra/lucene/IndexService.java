@@ -15,16 +15,26 @@
  */
 package com.stratio.cassandra.lucene;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
 import com.stratio.cassandra.lucene.column.Columns;
 import com.stratio.cassandra.lucene.column.ColumnsMapper;
 import com.stratio.cassandra.lucene.index.DocumentIterator;
-import com.stratio.cassandra.lucene.index.FSIndex;
+import com.stratio.cassandra.lucene.index.IndexingMemory;
+import com.stratio.cassandra.lucene.index.MergeCoordinator;
 import com.stratio.cassandra.lucene.index.RAMIndex;
+import com.stratio.cassandra.lucene.index.SearchCache;
+import com.stratio.cassandra.lucene.index.SearchLeases;
+import com.stratio.cassandra.lucene.index.ShardedFSIndex;
 import com.stratio.cassandra.lucene.key.PartitionMapper;
 import com.stratio.cassandra.lucene.key.TokenMapper;
 import com.stratio.cassandra.lucene.schema.Schema;
 import com.stratio.cassandra.lucene.search.Search;
 import com.stratio.cassandra.lucene.search.SearchBuilder;
+import com.stratio.cassandra.lucene.search.aggregation.AggregationCollector;
+import com.stratio.cassandra.lucene.search.aggregation.Aggregations;
 import com.stratio.cassandra.lucene.util.*;
 import com.stratio.cassandra.lucene.util.TaskQueue;
 import org.apache.cassandra.config.CFMetaData;
@@ -41,18 +51,31 @@ import org.apache.cassandra.db.marshal.UTF8Type;
 import org.apache.cassandra.db.partitions.PartitionIterator;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.db.rows.*;
+import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.index.Index;
 import org.apache.cassandra.index.transactions.IndexTransaction;
 import org.apache.cassandra.schema.IndexMetadata;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.NoSpamLogger;
 import org.apache.cassandra.utils.Pair;
 import org.apache.cassandra.utils.concurrent.OpOrder;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.TermsQuery;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MultiCollector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,8 +83,13 @@ import javax.management.JMException;
 import javax.management.ObjectName;
 import java.lang.management.ManagementFactory;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+import static org.apache.lucene.search.BooleanClause.Occur.FILTER;
 import static org.apache.lucene.search.SortField.FIELD_SCORE;
 
 /**
@@ -73,6 +101,18 @@ abstract class IndexService implements IndexServiceMBean {
 
     protected static final Logger logger = LoggerFactory.getLogger(IndexService.class);
 
+    /** The max number of parsed searches to be kept in memory. */
+    private static final int MAX_PARSED_SEARCHES = 1000;
+
+    /** The max number of recently indexed rows tracked to verify their liveness when counted. */
+    static final int MAX_VERIFIED_WRITES = 10000;
+
+    /** The max number of rows to be indexed in memory at once during post processing. */
+    private static final int POST_PROCESSING_BATCH_SIZE = 1000;
+
+    /** The error message of the searches with aggregations not sent by the Lucene query handler. */
+    private static final String AGGREGATIONS_REQUIRE_HANDLER = "Lucene aggregations require the Lucene query handler";
+
     final String qualifiedName;
     final TokenMapper tokenMapper;
     final PartitionMapper partitionMapper;
@@ -80,12 +120,24 @@ abstract class IndexService implements IndexServiceMBean {
     protected final ColumnFamilyStore table;
     protected final CFMetaData metadata;
     protected final Schema schema;
-    private final FSIndex lucene;
+    private final ShardedFSIndex lucene;
+    private final SearchCache cache;
+    private final SearchLeases leases;
+    private final long leaseMillis;
+    private final Cache<String, Search> searches;
+    private final ResultsEstimator estimator;
+    private final RowCache rowCache;
+    private final Cache<Term, Boolean> recentWrites;
+    private final long countVerifyNanos;
+    private volatile long recentWritesEviction;
     private final String name;
     private final String column;
     private final ColumnDefinition columnDefinition;
     private final TaskQueue queue;
     private final boolean mapsMultiCells;
+    final int readPrefetch;
+    final ExecutorService readExecutor;
+    final IndexMetrics metrics;
     private String mbeanName;
     private ObjectName mbean;
 
@@ -123,13 +175,60 @@ abstract class IndexService implements IndexServiceMBean {
 
         // Setup FS index and write queue
         queue = new TaskQueue(options.indexingThreads, options.indexingQueuesSize);
-        lucene = new FSIndex(name,
-                             options.path,
-                             options.schema.getAnalyzer(),
-                             options.refreshSeconds,
-                             options.ramBufferMB,
-                             options.maxMergeMB,
-                             options.maxCachedMB);
+        IndexingMemory.grow(options.indexingRamBudgetMB);
+        MergeCoordinator.grow(options.maxMergeThreads,
+                              options.mergeThroughputMBPerSec,
+                              options.mergeCompactionThrottle);
+        lucene = new ShardedFSIndex(name,
+                                    options.path,
+                                    options.schema.getAnalyzer(),
+                                    options.refreshSeconds,
+                                    options.ramBufferMB,
+                                    options.maxMergeMB,
+                                    options.maxCachedMB,
+                                    options.searchThreads,
+                                    options.indexShards,
+                                    options.directoryType,
+                                    options.directoryPreload,
+                                    options.warmingQueries);
+
+        // Setup search caches
+        cache = options.searchCacheSize > 0
+                ? new SearchCache(options.searchCacheSize, options.searchCacheDocuments)
+                : null;
+        searches = CacheBuilder.newBuilder().maximumSize(MAX_PARSED_SEARCHES).build();
+        estimator = new ResultsEstimator(MAX_PARSED_SEARCHES,
+                                         lucene::getGeneration,
+                                         search -> lucene.estimateHits(search.query(schema, null)));
+
+        // Setup paged search leases
+        leaseMillis = TimeUnit.SECONDS.toMillis(options.searchLeaseSeconds);
+        leases = leaseMillis > 0 ? SearchLeases.get(options.maxSearchLeases) : null;
+
+        // Setup indexed rows cache
+        rowCache = options.indexedRowsCacheSize > 0 ? new RowCache(options.indexedRowsCacheSize) : null;
+
+        // Setup partition reads ahead
+        readPrefetch = options.readPrefetch;
+        readExecutor = ReadExecutor.get(readPrefetch);
+
+        // Setup tracking of the rows to be verified when counted
+        countVerifyNanos = TimeUnit.SECONDS.toNanos(options.countVerifySeconds);
+        recentWritesEviction = System.nanoTime() - countVerifyNanos;
+        recentWrites = options.countVerifySeconds > 0
+                       ? CacheBuilder.newBuilder()
+                                     .expireAfterWrite(options.countVerifySeconds, TimeUnit.SECONDS)
+                                     .maximumSize(MAX_VERIFIED_WRITES)
+                                     .removalListener((RemovalNotification<Term, Boolean> notification) -> {
+                                         if (notification.getCause() == RemovalCause.SIZE) {
+                                             recentWritesEviction = System.nanoTime();
+                                         }
+                                     })
+                                     .build()
+                       : null;
+
+        // Setup metrics
+        metrics = new IndexMetrics(metadata.ksName, metadata.cfName, name, lucene, queue);
     }
 
     private static String column(IndexMetadata indexMetadata) {
@@ -153,6 +252,10 @@ abstract class IndexService implements IndexServiceMBean {
         // Initialize index
         List<SortField> keySortFields = keySortFields();
         Sort keySort = new Sort(keySortFields.toArray(new SortField[keySortFields.size()]));
+        if (cache != null) {
+            lucene.addRefreshListener(cache::invalidate);
+        }
+        lucene.addRefreshTimeListener(nanos -> metrics.refresh.update(nanos, TimeUnit.NANOSECONDS));
         try {
             lucene.init(keySort, fieldsToLoad());
         } catch (Exception e) {
@@ -249,11 +352,70 @@ abstract class IndexService implements IndexServiceMBean {
                            ? ((RowFilter.CustomExpression) expression).getValue()
                            : expression.getIndexValue();
         String json = UTF8Type.instance.compose(value);
-        Search search = SearchBuilder.fromJson(json).build();
+        Search search = search(json);
         search.validate(schema);
         return search;
     }
 
+    /**
+     * Validates the specified {@link ReadCommand}, which is being built by the current thread to be executed. Its
+     * search is remembered by the current thread to estimate the result rows of the command. Searches with aggregations
+     * are rejected unless the command is being built by the Lucene query handler to be sent with count requests,
+     * because they can't be answered with rows.
+     *
+     * @param command the read command to be validated
+     */
+    void validate(ReadCommand command) {
+        Search search = search(command);
+        if (search.usesAggregations() && !IndexQueryHandler.isBuildingCount()) {
+            throw new IndexException(AGGREGATIONS_REQUIRE_HANDLER);
+        }
+        estimator.setCurrentSearch(search);
+    }
+
+    /**
+     * Returns the estimated number of rows matched by the search of the last read command validated by the current
+     * thread, computed from the document frequencies of its terms in the local index. The estimates are cached until
+     * the index searchers are refreshed.
+     *
+     * Cassandra doesn't tell which command is being estimated, but it estimates each range command in the same thread
+     * that has just built and validated it. Threads that haven't validated any search of this index, as well as
+     * searches requiring a full scan, get an estimate of a single row, so all the token ranges are queried at once.
+     *
+     * @return the estimated number of result rows
+     */
+    long getEstimatedResultRows() {
+        long estimate = estimator.estimate();
+        Tracer.trace("Lucene index estimates {} result rows", estimate);
+        return estimate;
+    }
+
+    /**
+     * Returns the {@link Search} represented by the specified JSON expression.
+     *
+     * The parsed searches are cached by both their original and their normalized JSON, so all the expressions
+     * representing the same search share the same {@link Search} instance.
+     *
+     * @param expression a JSON search expression
+     * @return the parsed search
+     */
+    private Search search(String expression) {
+        long start = System.nanoTime();
+        Search search = searches.getIfPresent(expression);
+        if (search == null) {
+            SearchBuilder builder = SearchBuilder.fromJson(expression);
+            String json = builder.toJson();
+            search = searches.getIfPresent(json);
+            if (search == null) {
+                search = builder.build();
+                searches.put(json, search);
+            }
+            searches.put(expression, search);
+        }
+        IndexMetrics.time(metrics.searchParse, start);
+        return search;
+    }
+
     /**
      * Returns the names of the Lucene fields to be loaded from index during searches.
      *
@@ -306,6 +468,15 @@ abstract class IndexService implements IndexServiceMBean {
      */
     abstract Term term(DecoratedKey key, Row row);
 
+    /**
+     * Returns a Lucene {@link Term} uniquely identifying the {@link Row} with the specified primary key.
+     *
+     * @param key the partition key
+     * @param clustering the clustering key
+     * @return a Lucene identifying {@link Term}
+     */
+    abstract Term term(DecoratedKey key, Clustering clustering);
+
     /**
      * Returns a Lucene {@link Term} uniquely identifying the specified {@link Document}.
      *
@@ -342,6 +513,85 @@ abstract class IndexService implements IndexServiceMBean {
         }
     }
 
+    /**
+     * Returns the result of merging the specified partial update of a {@link Row} with the last indexed version of that
+     * row, if it is cached. This allows to skip read-before-write.
+     *
+     * @param key the partition key
+     * @param row the partial update of the row
+     * @param nowInSec now in seconds
+     * @return the merged row, or {@code null} if the row is not cached
+     */
+    Row cachedRow(DecoratedKey key, Row row, int nowInSec) {
+        return rowCache == null ? null : rowCache.merge(key, row, nowInSec);
+    }
+
+    /**
+     * Caches the specified full {@link Row}, so later partial updates of it can skip read-before-write.
+     *
+     * @param key the partition key
+     * @param row the full row
+     * @param nowInSec now in seconds
+     */
+    void cacheRow(DecoratedKey key, Row row, int nowInSec) {
+        if (rowCache != null) {
+            rowCache.put(key, row, nowInSec);
+        }
+    }
+
+    /**
+     * Removes the specified {@link Row} from the cache of indexed rows.
+     *
+     * @param key the partition key
+     * @param clustering the clustering key
+     */
+    void uncacheRow(DecoratedKey key, Clustering clustering) {
+        if (rowCache != null) {
+            rowCache.invalidate(key, clustering);
+        }
+    }
+
+    /**
+     * Removes all the {@link Row}s in the specified partition from the cache of indexed rows.
+     *
+     * @param key the partition key
+     */
+    void uncacheRows(DecoratedKey key) {
+        if (rowCache != null) {
+            rowCache.invalidate(key);
+        }
+    }
+
+    /**
+     * Returns the index shard containing the documents of the partition identified by the specified key.
+     *
+     * @param key the partition key
+     * @return the index shard owning {@code key}
+     */
+    int shard(DecoratedKey key) {
+        return TokenMapper.shard(key.getToken(), lucene.getNumShards());
+    }
+
+    /**
+     * Returns the index shards containing the documents which could be selected by the specified {@link ReadCommand}.
+     *
+     * @param command the read command
+     * @return the index shards to be searched
+     */
+    private List<Integer> shards(ReadCommand command) {
+        if (command instanceof SinglePartitionReadCommand) {
+            DecoratedKey key = ((SinglePartitionReadCommand) command).partitionKey();
+            return Collections.singletonList(shard(key));
+        } else if (command instanceof PartitionRangeReadCommand) {
+            DataRange dataRange = ((PartitionRangeReadCommand) command).dataRange();
+            Token start = dataRange.startKey().getToken();
+            Token stop = dataRange.stopKey().getToken();
+            return TokenMapper.shards(start, stop, lucene.getNumShards());
+        } else {
+            throw new IndexException("Unsupported read command {}", command.getClass());
+        }
+    }
+
     /**
      * Returns a {@link NavigableSet} of the specified clusterings, sorted by the table metadata.
      *
@@ -380,8 +630,25 @@ abstract class IndexService implements IndexServiceMBean {
                                      OpOrder.Group opGroup,
                                      IndexTransaction.Type transactionType);
 
+    /**
+     * Returns if the index files have been discarded at startup because they were written with a different number of
+     * shards, so the index should be rebuilt.
+     *
+     * @return {@code true} if the index should be rebuilt, {@code false} otherwise
+     */
+    final boolean needsRebuild() {
+        return lucene.needsRebuild();
+    }
+
     /** Deletes all the index contents. */
     final void truncate() {
+        if (rowCache != null) {
+            rowCache.invalidate();
+        }
+        invalidateLeases();
+        if (recentWrites != null) {
+            recentWrites.invalidateAll();
+        }
         queue.submitSynchronous(lucene::truncate);
     }
 
@@ -393,28 +660,41 @@ abstract class IndexService implements IndexServiceMBean {
         } catch (JMException e) {
             logger.error("Error while unregistering Lucene index MBean", e);
         } finally {
+            invalidateLeases();
+            metrics.release();
             lucene.delete();
         }
     }
 
+    private void invalidateLeases() {
+        if (leases != null) {
+            leases.invalidate(key -> ((List<?>) key).get(0).equals(qualifiedName));
+        }
+    }
+
     /**
      * Upserts the specified {@link Row}.
      *
+     * The indexing is batched, so a later update or deletion of the same row queued in the same batch will discard it.
+     *
      * @param key the partition key
      * @param row the row to be upserted
      * @param nowInSec now in seconds
      */
     void upsert(DecoratedKey key, Row row, int nowInSec) {
-        queue.submitAsynchronous(key, () -> {
-            Term term = term(key, row);
+        Term term = term(key, row);
+        submit(key, term, () -> {
             Columns columns = columns(key, row).cleanDeleted(nowInSec);
             Document document = new Document();
             schema.addFields(document, columns);
             if (document.getFields().isEmpty()) {
-                lucene.delete(term);
+                lucene.delete(shard(key), term);
             } else {
                 addKeyFields(document, key, row);
-                lucene.upsert(term, document);
+                lucene.upsert(shard(key), term, document);
+                if (recentWrites != null) {
+                    recentWrites.put(term, Boolean.TRUE);
+                }
             }
         });
     }
@@ -426,10 +706,8 @@ abstract class IndexService implements IndexServiceMBean {
      * @param row the row to be deleted
      */
     void delete(DecoratedKey key, Row row) {
-        queue.submitAsynchronous(key, () -> {
-            Term term = term(key, row);
-            lucene.delete(term);
-        });
+        Term term = term(key, row);
+        submit(key, term, () -> lucene.delete(shard(key), term));
     }
 
     /**
@@ -438,9 +716,28 @@ abstract class IndexService implements IndexServiceMBean {
      * @param key the partition key
      */
     void delete(DecoratedKey key) {
-        queue.submitAsynchronous(key, () -> {
-            Term term = term(key);
-            lucene.delete(term);
+        Term term = term(key);
+        submit(key, term, () -> lucene.delete(shard(key), term));
+    }
+
+    /**
+     * Submits the specified indexing task to the batched indexing queue, recording the time it waits in the queue and
+     * the time it takes to run.
+     *
+     * @param key the partition key, choosing the queue
+     * @param term the term identifying the indexed rows, coalescing the tasks in the same batch
+     * @param task the indexing task
+     */
+    private void submit(DecoratedKey key, Term term, Runnable task) {
+        int thread = queue.getThread(key);
+        long submitted = System.nanoTime();
+        queue.submitBatched(key, term, () -> {
+            long start = System.nanoTime();
+            if (thread >= 0) {
+                metrics.queueWait(thread, start - submitted);
+            }
+            task.run();
+            IndexMetrics.time(metrics.indexing, start);
         });
     }
 
@@ -454,31 +751,193 @@ abstract class IndexService implements IndexServiceMBean {
 
         // Parse search
         Tracer.trace("Building Lucene search");
-        String expression = expression(command);
-        Search search = SearchBuilder.fromJson(expression).build();
-        Query query = search.query(schema, query(command).orElse(null));
-        Query after = after(search.paging(), command);
+        Search search = search(command);
+        if (search.usesAggregations()) {
+            throw new IndexException(AGGREGATIONS_REQUIRE_HANDLER);
+        }
+        Query range = query(command).orElse(null);
         Sort sort = sort(search);
+        FieldDoc afterValues = afterValues(search, sort, command);
+        Query after = afterValues == null ? after(search.paging(), command) : null;
         int count = command.limits().count();
+        List<Integer> shards = shards(command);
 
-        // Refresh if required
+        // Wait for the previous writes to be searchable if required
         if (search.refresh()) {
-            Tracer.trace("Refreshing Lucene index searcher");
-            refresh();
+            Tracer.trace("Waiting for Lucene index searcher refresh");
+            queue.awaitSubmitted();
+            lucene.waitForWrites(shards, command.getTimeout());
         }
 
         // Search
         Tracer.trace("Lucene index searching for {} rows", count);
-        DocumentIterator documents = lucene.search(after, query, sort, count);
+        Supplier<DocumentIterator> first = () -> {
+            Query query = search.query(schema, range);
+            return afterValues == null
+                   ? lucene.search(shards, after, query, sort, count)
+                   : lucene.searchAfter(shards, afterValues, query, sort, count);
+        };
+        Supplier<DocumentIterator> cached = () -> {
+            if (cache == null) {
+                return first.get();
+            }
+            // Equivalent expressions share the same parsed search, so it can be used as key
+            List<Object> afterKey = afterValues == null ? null : Arrays.asList(afterValues.fields);
+            List<Object> key = Arrays.asList(search, range, after, afterKey, count, shards, lucene.getGeneration());
+            return cache.search(key,
+                                first,
+                                last -> lucene.search(shards,
+                                                      new TermQuery(term(last.left)),
+                                                      search.query(schema, range),
+                                                      sort,
+                                                      count));
+        };
+        DocumentIterator documents = leased(search.paging(), command, cached);
         return (ReadOrderGroup orderGroup) -> indexReader(documents, command, orderGroup);
     }
 
+    /**
+     * Returns the {@link DocumentIterator} continuing the lease of the specified paging state for the specified
+     * command, if there is one for the last returned row. Otherwise, the search is run, and it is leased if possible.
+     *
+     * @param pagingState the paging state of the search, maybe {@code null}
+     * @param command the read command
+     * @param search the search to be run if there is no lease to be continued
+     * @return the found documents
+     */
+    private DocumentIterator leased(IndexPagingState pagingState,
+                                    ReadCommand command,
+                                    Supplier<DocumentIterator> search) {
+        if (leases == null || pagingState == null || pagingState.lease() == null) {
+            return search.get();
+        }
+        Object range = command instanceof SinglePartitionReadCommand
+                       ? ((SinglePartitionReadCommand) command).partitionKey()
+                       : ((PartitionRangeReadCommand) command).dataRange().keyRange();
+        List<Object> key = Arrays.asList(qualifiedName, pagingState.lease(), range);
+        Pair<DecoratedKey, Clustering> last = pagingState.forCommand(command);
+        Term position = last == null ? null : term(last.left, last.right);
+        return leases.search(key, leaseMillis, position, document -> term(document.left), search);
+    }
+
+    /**
+     * Returns the number of rows matched by the search of the specified read command in the local index, which is the
+     * total hit count of the search, capped by the command limit, and the partial results of its aggregations, if any.
+     * The matched rows indexed during the last {@link IndexOptions#countVerifySeconds} are read to verify that they
+     * are still live, and the rest of them are counted without reading them.
+     *
+     * This is only reached through the count requests sent by {@link IndexQueryHandler}, which are not read commands,
+     * so ordinary reads are never answered with counts.
+     *
+     * @param command the read command
+     * @param orderGroup the Cassandra read order group
+     * @return the number of matched rows and the partial results of the aggregations as UTF-8 JSON, which are
+     * {@code null} if the search has no aggregations
+     */
+    Pair<Long, ByteBuffer> count(ReadCommand command, ReadOrderGroup orderGroup) {
+
+        // Parse search
+        Tracer.trace("Building Lucene count");
+        TimeCounter time = TimeCounter.create().start();
+        Search search = search(command);
+        Query query = search.query(schema, query(command).orElse(null));
+        List<Integer> shards = shards(command);
+
+        // Wait for the previous writes to be searchable if required
+        if (search.refresh()) {
+            Tracer.trace("Waiting for Lucene index searcher refresh");
+            queue.awaitSubmitted();
+            lucene.waitForWrites(shards, command.getTimeout());
+        }
+
+        // Count, computing the aggregations if required
+        long start = System.nanoTime();
+        ByteBuffer partials = null;
+        long count;
+        if (search.usesAggregations()) {
+            Map<String, AggregationCollector> collectors = Aggregations.collectors(search.aggregations(), schema);
+            TotalHitCountCollector counter = new TotalHitCountCollector();
+            List<Collector> all = new ArrayList<>(collectors.values());
+            all.add(counter);
+            lucene.search(shards, query, MultiCollector.wrap(all));
+            count = counter.getTotalHits();
+            partials = ByteBufferUtil.bytes(Aggregations.partials(collectors), StandardCharsets.UTF_8);
+        } else {
+            count = lucene.count(shards, query);
+        }
+        IndexMetrics.time(metrics.searchLucene, start);
+        metrics.searchHits.update(count);
+
+        // Skip the matched rows that are not live anymore
+        if (recentWrites != null) {
+            if (System.nanoTime() - recentWritesEviction < countVerifyNanos) {
+                Tracer.trace("Lucene index verifies all the matched rows because more than {} rows have been " +
+                             "recently indexed", MAX_VERIFIED_WRITES);
+                NoSpamLogger.log(logger,
+                                 NoSpamLogger.Level.INFO,
+                                 1,
+                                 TimeUnit.MINUTES,
+                                 "Counts of {} read all the matched rows because more than {} rows have been " +
+                                 "indexed within the last {} seconds",
+                                 name,
+                                 MAX_VERIFIED_WRITES,
+                                 TimeUnit.NANOSECONDS.toSeconds(countVerifyNanos));
+                count -= unliveRows(command, query, shards, orderGroup);
+            } else if (recentWrites.size() > 0) {
+                BooleanQuery.Builder builder = new BooleanQuery.Builder();
+                builder.add(query, FILTER);
+                builder.add(new TermsQuery(new ArrayList<>(recentWrites.asMap().keySet())), FILTER);
+                count -= unliveRows(command, builder.build(), shards, orderGroup);
+            }
+        }
+        count = Math.min(count, command.limits().count());
+        Tracer.trace("Lucene index counts {} rows", count);
+        logger.debug("Counted {} rows in {}", count, time.stop());
+        return Pair.create(count, partials);
+    }
+
+    /**
+     * Returns how many of the indexed rows matched by the specified query are not live anymore, reading them from
+     * Cassandra.
+     *
+     * @param command the read command
+     * @param query the Lucene query matching the rows to be verified
+     * @param shards the shards to be searched
+     * @param orderGroup the Cassandra read order group
+     * @return the number of matched indexed rows that are not live
+     */
+    private long unliveRows(ReadCommand command, Query query, List<Integer> shards, ReadOrderGroup orderGroup) {
+        long hits = lucene.count(shards, query);
+        if (hits == 0) {
+            return 0;
+        }
+        long live = 0;
+        List<SortField> keySortFields = keySortFields();
+        Sort keySort = new Sort(keySortFields.toArray(new SortField[keySortFields.size()]));
+        int count = (int) Math.min(hits, Integer.MAX_VALUE);
+        DocumentIterator documents = lucene.search(shards, null, query, keySort, count);
+        try (IndexReader reader = indexReader(documents, command, orderGroup)) {
+            while (reader.hasNext()) {
+                try (UnfilteredRowIterator partition = reader.next()) {
+                    while (partition.hasNext()) {
+                        Unfiltered unfiltered = partition.next();
+                        if (unfiltered.isRow() && ((Row) unfiltered).hasLiveData(command.nowInSec())) {
+                            live++;
+                        }
+                    }
+                }
+            }
+        }
+        Tracer.trace("Lucene index verifies {} indexed rows, {} are live", hits, live);
+        return hits - live;
+    }
+
     private Search search(ReadCommand command) {
-        return SearchBuilder.fromJson(expression(command)).build();
+        return search(expression(command));
     }
 
     private Search search(SinglePartitionReadCommand.Group group) {
-        return SearchBuilder.fromJson(expression(group)).build();
+        return search(expression(group));
     }
 
     private String expression(ReadCommand command) {
@@ -571,6 +1030,32 @@ abstract class IndexService implements IndexServiceMBean {
         }
     }
 
+    /**
+     * Returns the index sort values of the last row retrieved by the specified {@link ReadCommand}, as they have been
+     * recorded in the paging state of the specified {@link Search}. The values are not used with relevance sorts,
+     * because the scores computed by the coordinator are not the same as the ones computed by this index.
+     *
+     * @param search the search
+     * @param sort the sort of {@code search}
+     * @param command the read command
+     * @return a hit with the sort values, or {@code null} if they are unknown
+     */
+    private FieldDoc afterValues(Search search, Sort sort, ReadCommand command) {
+        IndexPagingState pagingState = search.paging();
+        if (pagingState == null || search.usesRelevance()) {
+            return null;
+        }
+        try {
+            Object[] values = pagingState.sortValuesForCommand(command);
+            if (values == null || values.length != sort.getSort().length) {
+                return null;
+            }
+            return new FieldDoc(Integer.MAX_VALUE, Float.NaN, values);
+        } catch (RuntimeException e) {
+            throw new IndexException(e, "Invalid paging state");
+        }
+    }
+
     /**
      * Returns a Lucene {@link Query} to retrieve the row identified by the specified paging state.
      *
@@ -612,6 +1097,7 @@ abstract class IndexService implements IndexServiceMBean {
                                NavigableSet<Clustering> clusterings,
                                int nowInSec,
                                OpOrder.Group opGroup) {
+        metrics.readsBeforeWrite.inc();
         ClusteringIndexNamesFilter filter = new ClusteringIndexNamesFilter(clusterings, false);
         ColumnFilter columnFilter = ColumnFilter.all(metadata);
         return SinglePartitionReadCommand.create(metadata, nowInSec, key, columnFilter, filter)
@@ -685,82 +1171,166 @@ abstract class IndexService implements IndexServiceMBean {
     private PartitionIterator postProcess(PartitionIterator partitions, Search search, int limit, int nowInSec) {
         if (search.requiresFullScan()) {
 
-            List<Pair<DecoratedKey, SimpleRowIterator>> collectedRows = collect(partitions);
-
             // Skip if the search doesn't require any kind of sorting
-            if (search.requiresPostProcessing() && !collectedRows.isEmpty()) {
-                return process(search, limit, nowInSec, collectedRows);
+            if (search.requiresPostProcessing()) {
+                long start = System.nanoTime();
+                try {
+                    return process(search, limit, nowInSec, partitions);
+                } finally {
+                    IndexMetrics.time(metrics.searchPostProcess, start);
+                }
             }
+
+            collect(partitions);
         }
         return partitions;
     }
 
-    private List<Pair<DecoratedKey, SimpleRowIterator>> collect(PartitionIterator partitions) {
-        List<Pair<DecoratedKey, SimpleRowIterator>> rows = new ArrayList<>();
+    private void collect(PartitionIterator partitions) {
+        int rows = 0;
         TimeCounter time = TimeCounter.create().start();
         try {
             while (partitions.hasNext()) {
                 try (RowIterator partition = partitions.next()) {
-                    DecoratedKey key = partition.partitionKey();
                     while (partition.hasNext()) {
-                        SimpleRowIterator rowIterator = new SimpleRowIterator(partition);
-                        rows.add(Pair.create(key, rowIterator));
+                        partition.next();
+                        rows++;
                     }
                 }
             }
         } finally {
-            logger.debug("Collected {} rows in {}", rows.size(), time.stop());
+            logger.debug("Collected {} rows in {}", rows, time.stop());
         }
-        return rows;
     }
 
-    private SimplePartitionIterator process(Search search,
-                                            int limit,
-                                            int nowInSec,
-                                            List<Pair<DecoratedKey, SimpleRowIterator>> collectedRows) {
+    private SimplePartitionIterator process(Search search, int limit, int nowInSec, PartitionIterator partitions) {
         TimeCounter time = TimeCounter.create().start();
-        List<SimpleRowIterator> processedRows = new LinkedList<>();
+        Query query = search.postProcessingQuery(schema);
+        Sort sort = sort(search);
+        int collectedRows = 0;
+        List<SimpleRowIterator> batch = new ArrayList<>(POST_PROCESSING_BATCH_SIZE);
+        Pair<TopFieldDocs, List<SimpleRowIterator>> best = Pair.create(null, Collections.emptyList());
         try {
 
-            // Index collected rows in memory
-            RAMIndex index = new RAMIndex(schema.getAnalyzer());
-            Map<Term, SimpleRowIterator> rowsByTerm = new HashMap<>();
-            for (Pair<DecoratedKey, SimpleRowIterator> pair : collectedRows) {
-                DecoratedKey key = pair.left;
-                SimpleRowIterator rowIterator = pair.right;
-                Row row = rowIterator.getRow();
-                Term term = term(key, row);
-                rowsByTerm.put(term, rowIterator);
-                Document document = document(key, row, search);
-                index.add(document);
+            // Collect rows in batches, keeping only the best rows seen so far
+            while (partitions.hasNext()) {
+                try (RowIterator partition = partitions.next()) {
+                    while (partition.hasNext()) {
+                        batch.add(new SimpleRowIterator(partition));
+                        collectedRows++;
+                        if (batch.size() == POST_PROCESSING_BATCH_SIZE) {
+                            best = process(search, query, sort, limit, best, batch);
+                            batch = new ArrayList<>(POST_PROCESSING_BATCH_SIZE);
+                        }
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                best = process(search, query, sort, limit, best, batch);
             }
 
-            // Repeat search to sort partial results
-            Query query = search.postProcessingQuery(schema);
-            Sort sort = sort(search);
-            List<Pair<Document, ScoreDoc>> documents = index.search(query, sort, limit, fieldsToLoad());
-            index.close();
-
-            // Collect post processed results
-            for (Pair<Document, ScoreDoc> pair : documents) {
-                Document document = pair.left;
-                Float score = pair.right.score;
-                Term term = term(document);
-                SimpleRowIterator rowIterator = rowsByTerm.get(term);
-                rowIterator.setDecorator(row -> decorate(row, score, nowInSec));
-                processedRows.add(rowIterator);
+            // Decorate post processed results with their scores
+            ScoreDoc[] scoreDocs = best.left == null ? new ScoreDoc[0] : best.left.scoreDocs;
+            for (int i = 0; i < scoreDocs.length; i++) {
+                Float score = scoreDocs[i].score;
+                best.right.get(i).setDecorator(row -> decorate(row, score, nowInSec));
             }
 
         } finally {
             Tracer.trace("Lucene post-process {} collected rows to {} result rows",
-                         collectedRows.size(),
-                         processedRows.size());
+                         collectedRows,
+                         best.right.size());
             logger.debug("Post-processed {} collected rows to {} result rows in {}",
-                         collectedRows.size(),
-                         processedRows.size(),
+                         collectedRows,
+                         best.right.size(),
                          time.stop());
         }
-        return new SimplePartitionIterator(processedRows);
+        return new SimplePartitionIterator(best.right);
+    }
+
+    /**
+     * Returns the best {@code limit} rows between the specified best rows found so far and a new batch of rows. The
+     * batch is indexed in memory to be sorted, and then its best rows are merged with the previous best rows using
+     * their sort values, without indexing them again.
+     *
+     * @param search the search to be post processed
+     * @param query the post processing query
+     * @param sort the post processing sort
+     * @param limit the max number of rows to be returned
+     * @param best the best rows found so far and their sort values, which are in the same order
+     * @param batch the new batch of rows
+     * @return the new best rows and their sort values, which are in the same order
+     */
+    private Pair<TopFieldDocs, List<SimpleRowIterator>> process(Search search,
+                                                               Query query,
+                                                               Sort sort,
+                                                               int limit,
+                                                               Pair<TopFieldDocs, List<SimpleRowIterator>> best,
+                                                               List<SimpleRowIterator> batch) {
+
+        // Index the batch in memory and sort it
+        RAMIndex index = new RAMIndex(schema.getAnalyzer());
+        TopFieldDocs batchDocs;
+        try {
+            for (SimpleRowIterator rowIterator : batch) {
+                index.add(document(rowIterator.partitionKey(), rowIterator.getRow(), search));
+            }
+            batchDocs = index.search(query, sort, limit);
+        } finally {
+            index.close();
+        }
+        if (best.left == null) {
+            return Pair.create(batchDocs, rows(batchDocs, batch));
+        }
+
+        // Merge with the previous best rows, the ids of the merged hits are their positions in the merged list
+        List<List<SimpleRowIterator>> rowLists = Arrays.asList(best.right, batch);
+        TopFieldDocs[] shardHits = new TopFieldDocs[]{best.left, batchDocs};
+        TopFieldDocs merged = TopDocs.merge(new Sort(batchDocs.fields), limit, shardHits);
+        List<SimpleRowIterator> rows = new ArrayList<>(merged.scoreDocs.length);
+        for (ScoreDoc scoreDoc : merged.scoreDocs) {
+            rows.add(rowLists.get(scoreDoc.shardIndex).get(scoreDoc.doc));
+            scoreDoc.doc = rows.size() - 1;
+        }
+        return Pair.create(merged, rows);
+    }
+
+    /**
+     * Returns the values of the {@link Sort} of the specified {@link Search} for the specified rows, so a paged search
+     * can start right after any of them without searching them in the index. The rows are indexed in memory with the
+     * same fields used by the coordinator post processing.
+     *
+     * @param search a search
+     * @param rows the rows and their partition keys
+     * @return the sort values of each row, in the same order, or {@code null} if the search is sorted by relevance
+     */
+    List<Object[]> sortValues(Search search, List<Pair<DecoratedKey, Row>> rows) {
+        if (search.usesRelevance() || rows.isEmpty()) {
+            return null;
+        }
+        RAMIndex index = new RAMIndex(schema.getAnalyzer());
+        try {
+            for (Pair<DecoratedKey, Row> row : rows) {
+                index.add(document(row.left, row.right, search));
+            }
+            TopFieldDocs topDocs = index.search(new MatchAllDocsQuery(), sort(search), rows.size());
+            Object[][] values = new Object[rows.size()][];
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                values[scoreDoc.doc] = ((FieldDoc) scoreDoc).fields;
+            }
+            return Arrays.asList(values);
+        } finally {
+            index.close();
+        }
+    }
+
+    private static List<SimpleRowIterator> rows(TopFieldDocs topDocs, List<SimpleRowIterator> rows) {
+        List<SimpleRowIterator> selected = new ArrayList<>(topDocs.scoreDocs.length);
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            selected.add(rows.get(scoreDoc.doc));
+            scoreDoc.doc = selected.size() - 1;
+        }
+        return selected;
     }
 
     private Row decorate(Row row, Float score, int nowInSec) {
@@ -793,7 +1363,11 @@ abstract class IndexService implements IndexServiceMBean {
     /** {@inheritDoc} */
     @Override
     public final void commit() {
-        queue.submitSynchronous(lucene::commit);
+        queue.submitSynchronous(() -> {
+            long start = System.nanoTime();
+            lucene.commit();
+            IndexMetrics.time(metrics.commit, start);
+        });
     }
 
     /** {@inheritDoc} */
@@ -808,6 +1382,140 @@ abstract class IndexService implements IndexServiceMBean {
         return lucene.getNumDeletedDocs();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public long getSearchSlices() {
+        return lucene.getSearchSlices();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getSearchSliceMeanTime() {
+        long slices = lucene.getSearchSlices();
+        return slices == 0 ? 0 : lucene.getSearchSlicesTime() / 1_000_000D / slices;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getDirectoryMappedBytes() {
+        return lucene.getMappedBytes();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getDirectoryReadMeanTime() {
+        long reads = lucene.getDirectoryReads();
+        return reads == 0 ? 0 : lucene.getDirectoryReadsTime() / 1_000_000D / reads;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getIndexingBufferBytes() {
+        return lucene.getRAMBufferBytes();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getNodeIndexingBufferBytes() {
+        return IndexingMemory.used();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getNodeIndexingBudgetBytes() {
+        return IndexingMemory.budget();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getSearchSkippedDocs() {
+        return lucene.getSkippedDocs();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getSearchCacheHits() {
+        return cache == null ? 0 : cache.getHits();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getSearchCacheMisses() {
+        return cache == null ? 0 : cache.getMisses();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getSearchCacheEvictions() {
+        return cache == null ? 0 : cache.getEvictions();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getSearchCacheSize() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getSearchLeases() {
+        return leases == null ? 0 : leases.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getIndexedRowsCacheHits() {
+        return rowCache == null ? 0 : rowCache.getHits();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getIndexedRowsCacheMisses() {
+        return rowCache == null ? 0 : rowCache.getMisses();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void pauseMerges() {
+        lucene.pauseMerges();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void resumeMerges() {
+        lucene.resumeMerges();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isMergesPaused() {
+        return lucene.isMergesPaused();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setMergePriority(boolean mergePriority) {
+        lucene.setMergePriority(mergePriority);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isMergePriority() {
+        return lucene.isMergePriority();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getNodeRunningMerges() {
+        return MergeCoordinator.running();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getNodeWaitingMerges() {
+        return MergeCoordinator.waiting();
+    }
+
     /** {@inheritDoc} */
     @Override
     public void forceMerge(int maxNumSegments, boolean doWait) {
@@ -39,6 +39,158 @@ public interface IndexServiceMBean {
      */
     int getNumDeletedDocs();
 
+    /**
+     * Returns the total number of index slices searched concurrently by the search thread pool.
+     *
+     * @return the number of searched slices
+     */
+    long getSearchSlices();
+
+    /**
+     * Returns the mean time spent searching an index slice, in milliseconds.
+     *
+     * @return the mean slice search time in milliseconds
+     */
+    double getSearchSliceMeanTime();
+
+    /**
+     * Returns the size of the currently open memory-mapped index files.
+     *
+     * @return the number of mapped bytes
+     */
+    long getDirectoryMappedBytes();
+
+    /**
+     * Returns the mean time spent in bulk reads from the index files, in milliseconds, estimated from a sample of the
+     * reads. This time grows when memory-mapped files are read from disk instead of from the OS page cache.
+     *
+     * @return the mean directory read time in milliseconds
+     */
+    double getDirectoryReadMeanTime();
+
+    /**
+     * Returns the RAM currently used by the indexing buffers of this index.
+     *
+     * @return the used RAM in bytes
+     */
+    long getIndexingBufferBytes();
+
+    /**
+     * Returns the RAM currently used by the indexing buffers of all the indexes in the node.
+     *
+     * @return the used RAM in bytes
+     */
+    long getNodeIndexingBufferBytes();
+
+    /**
+     * Returns the max RAM to be used by the indexing buffers of all the indexes in the node.
+     *
+     * @return the RAM budget in bytes
+     */
+    long getNodeIndexingBudgetBytes();
+
+    /**
+     * Returns the number of non-competitive documents skipped by relevance searches without scoring them.
+     *
+     * @return the number of skipped documents
+     */
+    long getSearchSkippedDocs();
+
+    /**
+     * Returns the number of searches whose results have been found in the search cache.
+     *
+     * @return the number of search cache hits
+     */
+    long getSearchCacheHits();
+
+    /**
+     * Returns the number of searches whose results have not been found in the search cache.
+     *
+     * @return the number of search cache misses
+     */
+    long getSearchCacheMisses();
+
+    /**
+     * Returns the number of search results which have been evicted from the search cache due to its size limit.
+     *
+     * @return the number of search cache evictions
+     */
+    long getSearchCacheEvictions();
+
+    /**
+     * Returns the number of search results currently stored in the search cache.
+     *
+     * @return the search cache size
+     */
+    int getSearchCacheSize();
+
+    /**
+     * Returns the number of live paged search leases in the node, shared by all the indexes.
+     *
+     * @return the number of search leases
+     */
+    int getSearchLeases();
+
+    /**
+     * Returns the number of row updates which have skipped read-before-write thanks to the indexed rows cache.
+     *
+     * @return the number of indexed rows cache hits
+     */
+    long getIndexedRowsCacheHits();
+
+    /**
+     * Returns the number of row updates which have required read-before-write because the row was not cached.
+     *
+     * @return the number of indexed rows cache misses
+     */
+    long getIndexedRowsCacheMisses();
+
+    /**
+     * Pauses the segment merges of this index that have not started yet. The pending merges can eventually stall
+     * indexing if merges are paused for long enough.
+     */
+    void pauseMerges();
+
+    /**
+     * Resumes the segment merges of this index paused with {@link #pauseMerges()}.
+     */
+    void resumeMerges();
+
+    /**
+     * Returns if the segment merges of this index are paused.
+     *
+     * @return {@code true} if merges are paused, {@code false} otherwise
+     */
+    boolean isMergesPaused();
+
+    /**
+     * Sets if the segment merges of this index should run before the merges of the not prioritized indexes.
+     *
+     * @param mergePriority {@code true} if merges should be prioritized, {@code false} otherwise
+     */
+    void setMergePriority(boolean mergePriority);
+
+    /**
+     * Returns if the segment merges of this index run before the merges of the not prioritized indexes.
+     *
+     * @return {@code true} if merges are prioritized, {@code false} otherwise
+     */
+    boolean isMergePriority();
+
+    /**
+     * Returns the number of segment merges currently running in all the indexes of the node.
+     *
+     * @return the number of running merges
+     */
+    int getNodeRunningMerges();
+
+    /**
+     * Returns the number of segment merges waiting for a free merge slot in all the indexes of the node.
+     *
+     * @return the number of waiting merges
+     */
+    int getNodeWaitingMerges();
+
     /**
      * Optimizes the index forcing merge segments leaving the specified number of segments. This operation may block
      * until all merging completes.
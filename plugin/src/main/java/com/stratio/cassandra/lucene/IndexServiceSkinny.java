@@ -93,6 +93,12 @@ class IndexServiceSkinny extends IndexService {
         return partitionMapper.term(key);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Term term(DecoratedKey key, Clustering clustering) {
+        return partitionMapper.term(key);
+    }
+
     /** {@inheritDoc} */
     @Override
     public Term term(Document document) {
@@ -116,15 +116,9 @@ class IndexServiceWide extends IndexService {
         return term(key, row.clustering());
     }
 
-    /**
-     * Returns a Lucene {@link Term} identifying the {@link Document} representing the {@link Row} identified by the
-     * specified partition and clustering keys.
-     *
-     * @param key the partition key
-     * @param clustering the clustering key
-     * @return the term identifying the document
-     */
-    private Term term(DecoratedKey key, Clustering clustering) {
+    /** {@inheritDoc} */
+    @Override
+    public Term term(DecoratedKey key, Clustering clustering) {
         return keyMapper.term(key, clustering);
     }
 
@@ -76,6 +76,7 @@ abstract class IndexWriter implements Index.Indexer {
     @Override
     public void rangeTombstone(RangeTombstone tombstone) {
         logger.trace("Range tombstone during {}: {}", transactionType, tombstone);
+        service.uncacheRows(key);
     }
 
     /** {@inheritDoc} */
@@ -55,6 +55,7 @@ class IndexWriterSkinny extends IndexWriter {
     @Override
     protected void delete() {
         service.delete(key);
+        service.uncacheRows(key);
         optionalRow = Optional.empty();
     }
 
@@ -70,11 +71,22 @@ class IndexWriterSkinny extends IndexWriter {
         if (transactionType != IndexTransaction.Type.CLEANUP) {
             optionalRow.ifPresent(row -> {
                 if (transactionType == IndexTransaction.Type.COMPACTION || service.needsReadBeforeWrite(key, row)) {
-                    Tracer.trace("Lucene index reading before write");
-                    UnfilteredRowIterator iterator = service.read(key, nowInSec, opGroup);
-                    if (iterator.hasNext()) {
-                        row = (Row) iterator.next();
+                    Row cachedRow = transactionType == IndexTransaction.Type.UPDATE
+                                    ? service.cachedRow(key, row, nowInSec)
+                                    : null;
+                    if (cachedRow == null) {
+                        Tracer.trace("Lucene index reading before write");
+                        UnfilteredRowIterator iterator = service.read(key, nowInSec, opGroup);
+                        if (iterator.hasNext()) {
+                            row = (Row) iterator.next();
+                            service.cacheRow(key, row, nowInSec);
+                        }
+                    } else {
+                        Tracer.trace("Lucene index skipping read before write of cached row");
+                        row = cachedRow;
                     }
+                } else if (transactionType == IndexTransaction.Type.UPDATE) {
+                    service.cacheRow(key, row, nowInSec);
                 }
                 if (row.hasLiveData(nowInSec)) {
                     Tracer.trace("Lucene index writing document");
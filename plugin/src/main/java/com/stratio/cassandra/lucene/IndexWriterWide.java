@@ -60,6 +60,7 @@ class IndexWriterWide extends IndexWriter {
     @Override
     protected void delete() {
         service.delete(key);
+        service.uncacheRows(key);
         rowsToRead.clear();
         rows.clear();
     }
@@ -70,12 +71,23 @@ class IndexWriterWide extends IndexWriter {
         if (!row.isStatic()) {
             Clustering clustering = row.clustering();
             if (service.needsReadBeforeWrite(key, row)) {
-                Tracer.trace("Lucene index doing read before write");
-                rowsToRead.add(clustering);
-                rows.put(clustering, Optional.empty());
+                Row cachedRow = transactionType == IndexTransaction.Type.UPDATE
+                                ? service.cachedRow(key, row, nowInSec)
+                                : null;
+                if (cachedRow == null) {
+                    Tracer.trace("Lucene index doing read before write");
+                    rowsToRead.add(clustering);
+                    rows.put(clustering, Optional.empty());
+                } else {
+                    Tracer.trace("Lucene index skipping read before write of cached row");
+                    rows.put(clustering, Optional.of(cachedRow));
+                }
             } else {
                 Tracer.trace("Lucene index skipping read before write");
                 rows.put(clustering, Optional.of(row));
+                if (transactionType == IndexTransaction.Type.UPDATE) {
+                    service.cacheRow(key, row, nowInSec);
+                }
             }
         }
     }
@@ -89,18 +101,24 @@ class IndexWriterWide extends IndexWriter {
             service.read(key, rowsToRead, nowInSec, opGroup).forEachRemaining(unfiltered -> {
                 Row row = (Row) unfiltered;
                 rows.put(row.clustering(), Optional.of(row));
+                service.cacheRow(key, row, nowInSec);
             });
 
             // Write rows
-            rows.forEach((clustering, optional) -> optional.ifPresent(row -> {
-                if (row.hasLiveData(nowInSec)) {
-                    Tracer.trace("Lucene index writing document");
-                    service.upsert(key, row, nowInSec);
+            rows.forEach((clustering, optional) -> {
+                if (optional.isPresent()) {
+                    Row row = optional.get();
+                    if (row.hasLiveData(nowInSec)) {
+                        Tracer.trace("Lucene index writing document");
+                        service.upsert(key, row, nowInSec);
+                    } else {
+                        Tracer.trace("Lucene index deleting document");
+                        service.delete(key, row);
+                    }
                 } else {
-                    Tracer.trace("Lucene index deleting document");
-                    service.delete(key, row);
+                    service.uncacheRow(key, clustering);
                 }
-            }));
+            });
         }
     }
 }
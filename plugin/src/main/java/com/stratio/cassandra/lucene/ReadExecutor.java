@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene;
+
+import org.apache.cassandra.concurrent.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-wide bounded thread pool used by {@link IndexReader}s to read the partitions matched by a search ahead of the
+ * one being returned. It is shared by all the indexes in the node, and its size is the max number of prefetched
+ * partitions requested by any of them.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+final class ReadExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadExecutor.class);
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static ThreadPoolExecutor pool;
+
+    /** Private constructor to hide the implicit public one. */
+    private ReadExecutor() {
+    }
+
+    /**
+     * Returns the shared read executor, growing it if it has less than the specified number of threads.
+     *
+     * @param threads the min number of threads of the executor
+     * @return the shared read executor, {@code null} if {@code threads} is not strictly positive
+     */
+    static synchronized ExecutorService get(int threads) {
+        if (threads <= 0) {
+            return null;
+        }
+        if (pool == null) {
+            logger.info("Starting Lucene read pool with {} threads", threads);
+            pool = new ThreadPoolExecutor(threads,
+                                          threads,
+                                          KEEP_ALIVE_SECONDS,
+                                          TimeUnit.SECONDS,
+                                          new LinkedBlockingQueue<>(),
+                                          new NamedThreadFactory("LuceneRead"));
+            pool.allowCoreThreadTimeOut(true);
+        } else if (pool.getMaximumPoolSize() < threads) {
+            logger.info("Resizing Lucene read pool to {} threads", threads);
+            pool.setMaximumPoolSize(threads);
+            pool.setCorePoolSize(threads);
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.stratio.cassandra.lucene.search.Search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Estimator of the number of rows returned by the {@link Search} of the last read command built by the current thread.
+ *
+ * Cassandra asks the index for its estimated result rows without telling which command is being estimated, right after
+ * building and validating the command in the same coordinator thread. So the search of each command is remembered by
+ * the thread validating it with {@link #setCurrentSearch(Search)}, and it is used by the following estimations in that
+ * thread. Threads that haven't validated any search, such as the ones running internal reads, get an estimate of a
+ * single row, which is the same estimate used for searches requiring a full scan.
+ *
+ * The estimates are cached until the index generation changes.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+class ResultsEstimator {
+
+    private final ThreadLocal<Search> currentSearch = new ThreadLocal<>();
+    private final Cache<List<Object>, Long> estimates;
+    private final LongSupplier generation;
+    private final ToLongFunction<Search> estimator;
+
+    /**
+     * Builds a new {@link ResultsEstimator}.
+     *
+     * @param maxSize the max number of cached estimates
+     * @param generation the supplier of the current index generation
+     * @param estimator the estimator of the number of rows matched by a search in the index
+     */
+    ResultsEstimator(int maxSize, LongSupplier generation, ToLongFunction<Search> estimator) {
+        this.estimates = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+        this.generation = generation;
+        this.estimator = estimator;
+    }
+
+    /**
+     * Sets the {@link Search} of the read command being built by the current thread.
+     *
+     * @param search the search of the read command being built by the current thread
+     */
+    void setCurrentSearch(Search search) {
+        currentSearch.set(search);
+    }
+
+    /**
+     * Returns the estimated number of rows matched by the search of the last read command built by the current thread.
+     *
+     * Searches requiring a full scan, and threads without a search, get an estimate of a single row, so all the token
+     * ranges are queried at once. This is required to get the globally best rows, and it is also the right choice for
+     * very selective searches.
+     *
+     * @return the estimated number of result rows, which is at least one
+     */
+    long estimate() {
+        Search search = currentSearch.get();
+        if (search == null || search.requiresFullScan()) {
+            return 1;
+        }
+        List<Object> key = Arrays.asList(search, generation.getAsLong());
+        Long estimate = estimates.getIfPresent(key);
+        if (estimate == null) {
+            estimate = estimator.applyAsLong(search);
+            estimates.put(key, estimate);
+        }
+        return Math.max(1, estimate);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.rows.*;
+import org.apache.cassandra.utils.memory.HeapAllocator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the last known state of indexed {@link Row}s, used to avoid read-before-write when a partial update
+ * can be merged with the cached row.
+ *
+ * The cached rows are copied to heap memory, so they don't depend on the lifecycle of the memtable where they were
+ * read from. Rows are merged using the Cassandra's timestamp-based reconciliation, so concurrent updates of the same
+ * row can be cached in any order.
+ *
+ * Rows are grouped by partition, so all the rows of a partition can be invalidated at once. The cache is bounded by the
+ * total number of cached rows, and whole partitions are evicted.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+class RowCache {
+
+    private final ConcurrentMap<DecoratedKey, Map<Clustering, Row>> partitions;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Builds a new {@link RowCache} containing up to the specified number of rows.
+     *
+     * @param maxSize the max number of cached rows
+     */
+    RowCache(int maxSize) {
+        Cache<DecoratedKey, Map<Clustering, Row>> cache = CacheBuilder.newBuilder()
+                                                                  .maximumWeight(maxSize)
+                                                                  .weigher(RowCache::weight)
+                                                                  .build();
+        partitions = cache.asMap();
+    }
+
+    private static int weight(DecoratedKey key, Map<Clustering, Row> rows) {
+        return Math.max(1, rows.size());
+    }
+
+    /**
+     * Returns the result of merging the specified partial update of a row with the cached version of that row, updating
+     * the cache with the merged row.
+     *
+     * @param key the partition key
+     * @param update the update of the row
+     * @param nowInSec now in seconds
+     * @return the merged row, or {@code null} if the row is not cached
+     */
+    Row merge(DecoratedKey key, Row update, int nowInSec) {
+        Map<Clustering, Row> rows = partitions.get(key);
+        Row merged = null;
+        if (rows != null) {
+            merged = rows.computeIfPresent(update.clustering(), (c, row) -> copy(Rows.merge(row, update, nowInSec)));
+        }
+        if (merged == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return merged;
+    }
+
+    /**
+     * Adds the specified full row to the cache, merging it with any already cached version of it.
+     *
+     * @param key the partition key
+     * @param row the full row
+     * @param nowInSec now in seconds
+     */
+    void put(DecoratedKey key, Row row, int nowInSec) {
+        // The partition is always put back, so the cache updates its weight
+        Row copy = copy(row);
+        partitions.compute(key, (k, cached) -> {
+            Map<Clustering, Row> rows = cached == null ? new ConcurrentHashMap<>() : cached;
+            rows.merge(copy.clustering(), copy, (old, update) -> Rows.merge(old, update, nowInSec));
+            return rows;
+        });
+    }
+
+    /**
+     * Removes the specified row from the cache.
+     *
+     * @param key the partition key
+     * @param clustering the clustering key
+     */
+    void invalidate(DecoratedKey key, Clustering clustering) {
+        partitions.computeIfPresent(key, (k, rows) -> {
+            rows.remove(clustering);
+            return rows.isEmpty() ? null : rows;
+        });
+    }
+
+    /**
+     * Removes all the rows of the specified partition from the cache.
+     *
+     * @param key the partition key
+     */
+    void invalidate(DecoratedKey key) {
+        partitions.remove(key);
+    }
+
+    /**
+     * Removes all the rows from the cache.
+     */
+    void invalidate() {
+        partitions.clear();
+    }
+
+    /**
+     * Returns the number of updates which have been merged with a cached row.
+     *
+     * @return the number of cache hits
+     */
+    long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of updates which have required a read-before-write because the row was not cached.
+     *
+     * @return the number of cache misses
+     */
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns a heap copy of the specified {@link Row}.
+     *
+     * @param row the row to be copied
+     * @return a copy of {@code row} not depending on any memtable allocator
+     */
+    private static Row copy(Row row) {
+        Row.Builder builder = BTreeRow.sortedBuilder();
+        builder.newRow(row.clustering().copy(HeapAllocator.instance));
+        builder.addPrimaryKeyLivenessInfo(row.primaryKeyLivenessInfo());
+        builder.addRowDeletion(row.deletion());
+        for (ColumnData data : row) {
+            if (data.column().isSimple()) {
+                builder.addCell(((Cell) data).copy(HeapAllocator.instance));
+            } else {
+                ComplexColumnData complexData = (ComplexColumnData) data;
+                builder.addComplexDeletion(complexData.column(), complexData.complexDeletion());
+                for (Cell cell : complexData) {
+                    builder.addCell(cell.copy(HeapAllocator.instance));
+                }
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The Lucene {@link FSDirectory} implementations that can be used to store an index.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public enum DirectoryType {
+
+    /** The best implementation for the current platform, as chosen by {@link FSDirectory#open(Path)}. */
+    AUTO {
+        @Override
+        FSDirectory open(Path path, boolean preload) throws IOException {
+            FSDirectory directory = FSDirectory.open(path);
+            if (directory instanceof MMapDirectory) {
+                ((MMapDirectory) directory).setPreload(preload);
+            }
+            return directory;
+        }
+    },
+
+    /** Memory-mapped files, intended for indexes fitting in the OS page cache. */
+    MMAP {
+        @Override
+        FSDirectory open(Path path, boolean preload) throws IOException {
+            MMapDirectory directory = new MMapDirectory(path);
+            directory.setPreload(preload);
+            return directory;
+        }
+    },
+
+    /** Positional file channel reads, intended for indexes much bigger than the available memory. */
+    NIO {
+        @Override
+        FSDirectory open(Path path, boolean preload) throws IOException {
+            return new NIOFSDirectory(path);
+        }
+    };
+
+    /**
+     * Opens a {@link FSDirectory} of this type in the specified path.
+     *
+     * @param path the directory path
+     * @param preload if the memory-mapped files should be loaded into physical memory when they are opened
+     * @return the opened directory
+     * @throws IOException if the directory can't be opened
+     */
+    abstract FSDirectory open(Path path, boolean preload) throws IOException;
+
+    /**
+     * Returns the {@link DirectoryType} with the specified name, ignoring case.
+     *
+     * @param name a directory type name
+     * @return the directory type, or {@code null} if there is no type with the specified name
+     */
+    public static DirectoryType parse(String name) {
+        for (DirectoryType type : values()) {
+            if (type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -27,6 +27,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * {@link Iterator} for retrieving Lucene {@link Document}s satisfying a {@link Query} from an {@link IndexSearcher}.
@@ -40,22 +44,29 @@ public class DocumentIterator implements CloseableIterator<Pair<Document, ScoreD
     /** The max number of rows to be read per iteration. */
     static final int MAX_PAGE_SIZE = 10000;
 
-    private final SearcherManager manager;
+    /** The document id of a last retrieved hit known only by its sort values. */
+    private static final int NO_DOC = Integer.MAX_VALUE;
+
+    private final List<SearcherManager> managers;
+    private final ExecutorService executor;
     private final Query query;
     final int page;
     private final Deque<Pair<Document, ScoreDoc>> documents = new LinkedList<>();
     private final Sort sort, indexSort;
-    private final Set<String> fields;
+    private final DocumentLoader loader;
     private ScoreDoc after = null;
     private boolean finished = false;
-    private IndexSearcher searcher;
+    private IndexSearcher[] searchers;
     private int numReadDocuments = 0;
-    private final Query startQuery;
+    private final boolean fromStart;
+    private final LongAdder skippedDocs;
 
     /**
      * Builds a new iterator over the {@link Document}s satisfying the specified {@link Query}.
      *
      * @param manager the Lucene index searcher manager
+     * @param indexSort the sort of the index
+     * @param after a query to find the last retrieved document, {@code null} to start from the beginning
      * @param query the query to be satisfied by the documents
      * @param sort the sort in which the documents are going to be retrieved
      * @param page the iteration page size
@@ -68,33 +79,240 @@ public class DocumentIterator implements CloseableIterator<Pair<Document, ScoreD
                      Sort sort,
                      int page,
                      Set<String> fields) {
-        this.manager = manager;
+        this(Collections.singletonList(manager), null, indexSort, after, query, sort, page, fields, null);
+    }
+
+    /**
+     * Builds a new iterator over the {@link Document}s satisfying the specified {@link Query} in any of the index
+     * shards managed by the specified {@link SearcherManager}s. The shards are searched in parallel with the specified
+     * executor, and their results are merged according to the specified {@link Sort}.
+     *
+     * @param managers the Lucene index searcher managers of the shards to be searched
+     * @param executor the executor to search the shards in parallel, {@code null} means sequential search
+     * @param indexSort the sort of the index
+     * @param after a query to find the last retrieved document, {@code null} to start from the beginning
+     * @param query the query to be satisfied by the documents
+     * @param sort the sort in which the documents are going to be retrieved
+     * @param page the iteration page size
+     * @param fields the names of the document fields to be loaded
+     * @param skippedDocs the counter of non-competitive documents skipped by relevance searches, maybe {@code null}
+     */
+    DocumentIterator(List<SearcherManager> managers,
+                     ExecutorService executor,
+                     Sort indexSort,
+                     Query after,
+                     Query query,
+                     Sort sort,
+                     int page,
+                     Set<String> fields,
+                     LongAdder skippedDocs) {
+        this(managers, executor, indexSort, after, null, query, sort, page, fields, skippedDocs);
+    }
+
+    /**
+     * Builds a new iterator over the {@link Document}s satisfying the specified {@link Query} in any of the index
+     * shards managed by the specified {@link SearcherManager}s, starting after the specified sort values. This avoids
+     * the search of the last retrieved document, which doesn't need to be still present in the index.
+     *
+     * The sort values should be those of a document indexed with the same fields, and the sort should end with the
+     * primary key fields, so the only document with the same values is the last retrieved one. Relevance sorts are not
+     * supported because scores depend on the searched index.
+     *
+     * @param managers the Lucene index searcher managers of the shards to be searched
+     * @param executor the executor to search the shards in parallel, {@code null} means sequential search
+     * @param indexSort the sort of the index
+     * @param after the sort values of the last retrieved document, {@code null} to start from the beginning
+     * @param query the query to be satisfied by the documents
+     * @param sort the sort in which the documents are going to be retrieved
+     * @param page the iteration page size
+     * @param fields the names of the document fields to be loaded
+     * @param skippedDocs the counter of non-competitive documents skipped by relevance searches, maybe {@code null}
+     */
+    DocumentIterator(List<SearcherManager> managers,
+                     ExecutorService executor,
+                     Sort indexSort,
+                     FieldDoc after,
+                     Query query,
+                     Sort sort,
+                     int page,
+                     Set<String> fields,
+                     LongAdder skippedDocs) {
+        this(managers, executor, indexSort, null, after, query, sort, page, fields, skippedDocs);
+    }
+
+    private DocumentIterator(List<SearcherManager> managers,
+                             ExecutorService executor,
+                             Sort indexSort,
+                             Query afterQuery,
+                             FieldDoc afterValues,
+                             Query query,
+                             Sort sort,
+                             int page,
+                             Set<String> fields,
+                             LongAdder skippedDocs) {
+        this.managers = managers;
+        this.executor = executor;
         this.query = query;
         this.indexSort = indexSort;
-        this.fields = fields;
-        this.startQuery = after;
+        this.loader = new DocumentLoader(fields);
+        this.fromStart = afterQuery == null && afterValues == null;
+        this.skippedDocs = skippedDocs;
         this.page = Math.min(page, MAX_PAGE_SIZE) + 1;
         TimeCounter time = TimeCounter.create().start();
         try {
-            searcher = manager.acquire();
-            this.sort = sort.rewrite(searcher);
-            if (after != null) {
+            searchers = new IndexSearcher[managers.size()];
+            for (int i = 0; i < searchers.length; i++) {
+                searchers[i] = managers.get(i).acquire();
+            }
+            this.sort = sort.rewrite(searchers[0]);
+            if (afterValues != null) {
+                this.after = new FieldDoc(NO_DOC, Float.NaN, afterValues.fields);
+            } else if (afterQuery != null) {
                 Tracer.trace("Searching for last Lucene index position");
                 BooleanQuery.Builder builder = new BooleanQuery.Builder();
-                builder.add(after, BooleanClause.Occur.FILTER);
+                builder.add(afterQuery, BooleanClause.Occur.FILTER);
                 builder.add(query, BooleanClause.Occur.MUST);
-                ScoreDoc[] scoreDocs = searcher.search(builder.build(), 1, this.sort).scoreDocs;
+                Query afterQuery = builder.build();
+                TopDocs topDocs = search((searcher, last) -> searcher.search(afterQuery, 1, this.sort), 1);
+                ScoreDoc[] scoreDocs = topDocs.scoreDocs;
                 if (scoreDocs.length > 0) {
                     this.after = scoreDocs[0];
                 }
             }
         } catch (IOException e) {
+            close();
             throw new IndexException(e, "Error while acquiring index searcher");
         } finally {
             logger.debug("Index query initialized in {}", time.stop());
         }
     }
 
+    /**
+     * Builds a new iterator not backed by any index searcher, intended to be used by subclasses providing their own
+     * {@link Document}s.
+     */
+    DocumentIterator() {
+        managers = null;
+        executor = null;
+        query = null;
+        page = 0;
+        sort = null;
+        indexSort = null;
+        loader = null;
+        fromStart = true;
+        skippedDocs = null;
+        finished = true;
+    }
+
+    @FunctionalInterface
+    private interface ShardSearch {
+        TopFieldDocs apply(IndexSearcher searcher, FieldDoc after) throws IOException;
+    }
+
+    /**
+     * Runs the specified search in all the shards and merges the results.
+     *
+     * @param search the search to be run in each shard
+     * @param count the max number of merged results
+     * @return the top {@code count} merged results
+     * @throws IOException if there are I/O errors while searching
+     */
+    private TopDocs search(ShardSearch search, int count) throws IOException {
+        if (searchers.length == 1) {
+            return search.apply(searchers[0], after(0));
+        }
+        TopFieldDocs[] shardHits = new TopFieldDocs[searchers.length];
+        if (executor == null) {
+            for (int i = 0; i < searchers.length; i++) {
+                shardHits[i] = search.apply(searchers[i], after(i));
+            }
+        } else {
+            List<Future<TopFieldDocs>> futures = new ArrayList<>(searchers.length);
+            for (int i = 0; i < searchers.length; i++) {
+                IndexSearcher searcher = searchers[i];
+                FieldDoc shardAfter = after(i);
+                futures.add(executor.submit(() -> search.apply(searcher, shardAfter)));
+            }
+            try {
+                for (int i = 0; i < searchers.length; i++) {
+                    shardHits[i] = futures.get(i).get();
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw new IOException(e);
+            }
+        }
+        return TopDocs.merge(sort, count, shardHits);
+    }
+
+    /**
+     * Returns the last retrieved hit in the form expected by the specified shard. The hit coordinates are kept only for
+     * the shard containing it, Lucene rejects document ids out of the shard bounds. A hit known only by its sort values
+     * gets the last document id of each shard, so the only document with the same values is skipped wherever it is.
+     *
+     * @param shard a shard index
+     * @return the last retrieved hit for {@code shard}, maybe {@code null}
+     */
+    private FieldDoc after(int shard) {
+        FieldDoc fieldDoc = (FieldDoc) after;
+        if (fieldDoc == null) {
+            return null;
+        } else if (fieldDoc.doc == NO_DOC) {
+            int lastDoc = searchers[shard].getIndexReader().maxDoc() - 1;
+            return new FieldDoc(lastDoc, fieldDoc.score, fieldDoc.fields, shard);
+        } else if (searchers.length == 1 || fieldDoc.shardIndex == shard) {
+            return fieldDoc;
+        }
+        return new FieldDoc(-1, fieldDoc.score, fieldDoc.fields, shard);
+    }
+
+    /**
+     * Runs a relevance search in the specified searcher skipping the index segments which can't contain competitive
+     * documents, according to their {@link ScoreBounds}. The segments are searched concurrently if the searcher has an
+     * executor.
+     *
+     * @param searcher the searcher
+     * @param after the last retrieved document in the searcher, {@code null} to start from the beginning
+     * @param threshold the min competitive score, shared with the searches in other shards
+     * @return the top hits
+     * @throws IOException if there are I/O errors while searching
+     */
+    private TopFieldDocs searchPruning(IndexSearcher searcher,
+                                       FieldDoc after,
+                                       ScorePruningCollector.Threshold threshold) throws IOException {
+        ScoreBounds bounds = ScoreBounds.create(searcher, query);
+        if (bounds == null) {
+            return (TopFieldDocs) searcher.searchAfter(after, query, page, sort);
+        }
+        return searcher.search(query, new CollectorManager<ScorePruningCollector, TopFieldDocs>() {
+
+            @Override
+            public ScorePruningCollector newCollector() throws IOException {
+                TopFieldCollector collector = TopFieldCollector.create(sort, page, after, true, false, false);
+                return new ScorePruningCollector(collector, bounds, threshold, page, after);
+            }
+
+            @Override
+            public TopFieldDocs reduce(Collection<ScorePruningCollector> collectors) throws IOException {
+                long skipped = 0;
+                TopFieldDocs[] topDocs = new TopFieldDocs[collectors.size()];
+                int i = 0;
+                for (ScorePruningCollector collector : collectors) {
+                    skipped += collector.getSkipped();
+                    topDocs[i++] = collector.topDocs();
+                }
+                if (skipped > 0) {
+                    Tracer.trace("Lucene index skips {} non-competitive documents", skipped);
+                    logger.debug("Skipped {} non-competitive documents", skipped);
+                    if (skippedDocs != null) {
+                        skippedDocs.add(skipped);
+                    }
+                }
+                return TopDocs.merge(sort, page, topDocs);
+            }
+        });
+    }
+
     private synchronized void fetch() {
 
         try {
@@ -102,23 +320,29 @@ public class DocumentIterator implements CloseableIterator<Pair<Document, ScoreD
             TimeCounter time = TimeCounter.create().start();
 
             TopDocs topDocs;
-            if (startQuery == null && EarlyTerminatingSortingCollector.canEarlyTerminate(sort, indexSort)) {
-                FieldDoc fieldDoc = after == null ? null : (FieldDoc) after;
-                TopFieldCollector collector = TopFieldCollector.create(sort, page, fieldDoc, true, false, false);
+            if (fromStart && EarlyTerminatingSortingCollector.canEarlyTerminate(sort, indexSort)) {
                 int hits = numReadDocuments + page;
-                searcher.search(query, new EarlyTerminatingSortingCollector(collector, sort, hits, indexSort));
-                topDocs = collector.topDocs();
+                topDocs = search((searcher, fieldDoc) -> {
+                    TopFieldCollector collector = TopFieldCollector.create(sort, page, fieldDoc, true, false, false);
+                    searcher.search(query, new EarlyTerminatingSortingCollector(collector, sort, hits, indexSort));
+                    return (TopFieldDocs) collector.topDocs();
+                }, page);
+            } else if (ScorePruningCollector.canPrune(sort)) {
+                ScorePruningCollector.Threshold threshold = new ScorePruningCollector.Threshold();
+                topDocs = search((searcher, fieldDoc) -> searchPruning(searcher, fieldDoc, threshold), page);
             } else {
-                topDocs = searcher.searchAfter(after, query, page, sort);
+                topDocs = search((searcher, fieldDoc) -> {
+                    return (TopFieldDocs) searcher.searchAfter(fieldDoc, query, page, sort);
+                }, page);
             }
 
             ScoreDoc[] scoreDocs = topDocs.scoreDocs;
             numReadDocuments += scoreDocs.length;
             finished = scoreDocs.length < page;
-            for (ScoreDoc scoreDoc : scoreDocs) {
-                after = scoreDoc;
-                Document document = searcher.doc(scoreDoc.doc, fields);
-                documents.add(Pair.create(document, scoreDoc));
+            Document[] loadedDocuments = loader.load(searchers, scoreDocs);
+            for (int i = 0; i < scoreDocs.length; i++) {
+                after = scoreDocs[i];
+                documents.add(Pair.create(loadedDocuments[i], scoreDocs[i]));
             }
 
             Tracer.trace("Lucene index fetches {} documents", scoreDocs.length);
@@ -172,16 +396,47 @@ public class DocumentIterator implements CloseableIterator<Pair<Document, ScoreD
         }
     }
 
+    /**
+     * Returns the already fetched {@link Document}s which have not been returned by {@link #next()} yet.
+     *
+     * @return a copy of the buffered documents
+     */
+    synchronized List<Pair<Document, ScoreDoc>> buffered() {
+        return new ArrayList<>(documents);
+    }
+
+    /**
+     * Returns the number of {@link Document}s fetched from the index so far, including the buffered ones.
+     *
+     * @return the number of fetched documents
+     */
+    public synchronized int getNumReadDocuments() {
+        return numReadDocuments;
+    }
+
+    /**
+     * Returns if all the {@link Document}s satisfying the query have already been fetched.
+     *
+     * @return {@code true} if there are no more documents to be fetched, {@code false} otherwise
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
     /** {@inheritDoc} */
     @Override
     public synchronized void close() {
-        if (searcher != null) {
+        if (searchers != null) {
             try {
-                manager.release(searcher);
+                for (int i = 0; i < searchers.length; i++) {
+                    if (searchers[i] != null) {
+                        managers.get(i).release(searchers[i]);
+                    }
+                }
             } catch (IOException e) {
                 throw new IndexException("Error while releasing index searcher");
             } finally {
-                searcher = null;
+                searchers = null;
             }
         }
     }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Loader of the {@link Document}s of a set of hits, containing only the requested fields.
+ *
+ * The fields with binary or sorted doc values, such as the primary key fields, are read from their doc values, so
+ * there is no need to decompress stored fields blocks. The other fields, and the fields of the old segments written
+ * without doc values, are read from stored fields. Hits are visited segment by segment in doc id order, so each segment
+ * doc values are opened only once and read sequentially.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+final class DocumentLoader {
+
+    private final String[] fields;
+
+    /**
+     * Builds a new {@link DocumentLoader} for the specified fields.
+     *
+     * @param fields the names of the document fields to be loaded
+     */
+    DocumentLoader(Set<String> fields) {
+        this.fields = fields.toArray(new String[fields.size()]);
+    }
+
+    /**
+     * Returns the documents of the specified hits.
+     *
+     * @param searchers the searchers of the shards containing the hits, indexed by shard
+     * @param hits the hits, whose shard index is only considered if there are several shards
+     * @return the documents of {@code hits}, in the same order
+     * @throws IOException if there are I/O errors while reading the documents
+     */
+    Document[] load(IndexSearcher[] searchers, ScoreDoc[] hits) throws IOException {
+
+        // Sort the hits by shard and doc id
+        Integer[] order = new Integer[hits.length];
+        for (int i = 0; i < hits.length; i++) {
+            order[i] = i;
+        }
+        Comparator<Integer> byShard = Comparator.comparingInt(i -> shard(searchers, hits[i]));
+        Arrays.sort(order, byShard.thenComparingInt(i -> hits[i].doc));
+
+        Document[] documents = new Document[hits.length];
+        int shard = -1;
+        LeafReaderContext leaf = null;
+        BinaryDocValues[] values = new BinaryDocValues[fields.length];
+        Bits[] docsWithField = new Bits[fields.length];
+        for (int i : order) {
+            ScoreDoc hit = hits[i];
+            int hitShard = shard(searchers, hit);
+            if (hitShard != shard || hit.doc >= leaf.docBase + leaf.reader().maxDoc()) {
+                List<LeafReaderContext> leaves = searchers[hitShard].getIndexReader().leaves();
+                leaf = leaves.get(ReaderUtil.subIndex(hit.doc, leaves));
+                shard = hitShard;
+                docValues(leaf.reader(), values, docsWithField);
+            }
+            documents[i] = document(leaf.reader(), hit.doc - leaf.docBase, values, docsWithField);
+        }
+        return documents;
+    }
+
+    private static int shard(IndexSearcher[] searchers, ScoreDoc hit) {
+        return searchers.length == 1 ? 0 : hit.shardIndex;
+    }
+
+    private void docValues(LeafReader reader, BinaryDocValues[] values, Bits[] docsWithField) throws IOException {
+        FieldInfos fieldInfos = reader.getFieldInfos();
+        for (int i = 0; i < fields.length; i++) {
+            FieldInfo fieldInfo = fieldInfos.fieldInfo(fields[i]);
+            DocValuesType type = fieldInfo == null ? DocValuesType.NONE : fieldInfo.getDocValuesType();
+            if (type == DocValuesType.SORTED) {
+                values[i] = reader.getSortedDocValues(fields[i]);
+                docsWithField[i] = reader.getDocsWithField(fields[i]);
+            } else if (type == DocValuesType.BINARY) {
+                values[i] = reader.getBinaryDocValues(fields[i]);
+                docsWithField[i] = reader.getDocsWithField(fields[i]);
+            } else {
+                values[i] = null;
+                docsWithField[i] = null;
+            }
+        }
+    }
+
+    private Document document(LeafReader reader, int doc, BinaryDocValues[] values, Bits[] docsWithField)
+    throws IOException {
+        Document document = new Document();
+        Set<String> storedFields = null;
+        for (int i = 0; i < fields.length; i++) {
+            if (values[i] == null) {
+                if (storedFields == null) {
+                    storedFields = new HashSet<>();
+                }
+                storedFields.add(fields[i]);
+            } else if (docsWithField[i].get(doc)) {
+                document.add(new StoredField(fields[i], BytesRef.deepCopyOf(values[i].get(doc))));
+            }
+        }
+        if (storedFields != null) {
+            DocumentStoredFieldVisitor visitor = new DocumentStoredFieldVisitor(storedFields);
+            reader.document(doc, visitor);
+            visitor.getDocument().forEach(document::add);
+        }
+        return document;
+    }
+}
@@ -22,14 +22,22 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.index.*;
 import org.apache.lucene.search.*;
 import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.NRTCachingDirectory;
+import org.apache.lucene.util.ThreadInterruptedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
 
 /**
  * Class wrapping a Lucene file system-based directory and its readers, writers and searchers.
@@ -40,6 +48,9 @@ public class FSIndex {
 
     private static final Logger logger = LoggerFactory.getLogger(FSIndex.class);
 
+    /** The max time to wait for a refresh before requesting it again, in milliseconds. */
+    private static final long WAIT_FOR_GENERATION_MS = 100;
+
     private final String name;
     private final Path path;
     private final Analyzer analyzer;
@@ -47,13 +58,40 @@ public class FSIndex {
     private final int ramBufferMB;
     private final int maxMergeMB;
     private final int maxCachedMB;
+    private final int searchThreads;
+    private final DirectoryType directoryType;
+    private final boolean directoryPreload;
+    private final SearcherWarmer warmer;
+    private final LongAdder searchSlices = new LongAdder();
+    private final LongAdder searchSlicesTime = new LongAdder();
+    private final LongAdder skippedDocs = new LongAdder();
+    private final LongAdder merges = new LongAdder();
+    private final LongAdder mergesTime = new LongAdder();
+    private final LongAdder mergedBytes = new LongAdder();
+    private final AtomicInteger runningMerges = new AtomicInteger();
+    private final LongAdder bufferFlushes = new LongAdder();
+    private final AtomicInteger waitingMerges = new AtomicInteger();
+    private final Object mergesMonitor = new Object();
+    private volatile boolean mergesPaused;
+    private int forcedMerges;
+    private volatile boolean mergePriority;
 
     private Sort mergeSort;
     private Set<String> fields;
+    private MonitoredDirectory fsDirectory;
     private Directory directory;
     private IndexWriter indexWriter;
     private SearcherManager searcherManager;
-    private ControlledRealTimeReopenThread<IndexSearcher> searcherReopener;
+    private TrackingIndexWriter trackingWriter;
+    private RefreshScheduler.Task refreshTask;
+    private final AtomicLong writeGeneration = new AtomicLong();
+    private final AtomicLong searchingGeneration = new AtomicLong();
+    private final Object generationMonitor = new Object();
+    private volatile long lastRefresh = System.nanoTime();
+    private volatile boolean unrefreshedMerges;
+    private volatile Exception refreshFailure;
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private volatile boolean closed;
 
     // Disable max boolean query clauses limit
     static {
@@ -70,6 +108,10 @@ public class FSIndex {
      * @param ramBufferMB the index writer RAM buffer size in MB
      * @param maxMergeMB the directory max merge size in MB
      * @param maxCachedMB the directory max cache size in MB
+     * @param searchThreads the number of threads to search index segments concurrently, {@code 0} means sequential
+     * @param directoryType the type of the file system directory
+     * @param directoryPreload if memory-mapped files should be loaded into physical memory when they are opened
+     * @param warmingQueries the number of recent searches to be run on each new searcher before publishing it
      */
     public FSIndex(String name,
                    Path path,
@@ -77,7 +119,11 @@ public class FSIndex {
                    double refresh,
                    int ramBufferMB,
                    int maxMergeMB,
-                   int maxCachedMB) {
+                   int maxCachedMB,
+                   int searchThreads,
+                   DirectoryType directoryType,
+                   boolean directoryPreload,
+                   int warmingQueries) {
         this.name = name;
         this.path = path;
         this.analyzer = analyzer;
@@ -85,6 +131,10 @@ public class FSIndex {
         this.ramBufferMB = ramBufferMB;
         this.maxMergeMB = maxMergeMB;
         this.maxCachedMB = maxCachedMB;
+        this.searchThreads = searchThreads;
+        this.directoryType = directoryType;
+        this.directoryPreload = directoryPreload;
+        warmer = new SearcherWarmer(name, warmingQueries);
     }
 
     /**
@@ -99,7 +149,7 @@ public class FSIndex {
         try {
 
             // Open or create directory
-            FSDirectory fsDirectory = FSDirectory.open(path);
+            fsDirectory = new MonitoredDirectory(directoryType.open(path, directoryPreload));
             directory = new NRTCachingDirectory(fsDirectory, maxMergeMB, maxCachedMB);
 
             TieredMergePolicy tieredMergePolicy = new TieredMergePolicy();
@@ -111,27 +161,90 @@ public class FSIndex {
             indexWriterConfig.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
             indexWriterConfig.setUseCompoundFile(true);
             indexWriterConfig.setMergePolicy(sortingMergePolicy);
+            indexWriterConfig.setMergeScheduler(new ConcurrentMergeScheduler() {
+                @Override
+                protected void doMerge(IndexWriter writer, MergePolicy.OneMerge merge) throws IOException {
+                    awaitMerge();
+                    if (MergeCoordinator.rateLimiter() != null && getAutoIOThrottle()) {
+                        // Avoid throttling merges twice
+                        disableAutoIOThrottle();
+                    }
+                    runningMerges.incrementAndGet();
+                    long start = System.nanoTime();
+                    try {
+                        super.doMerge(writer, merge);
+                    } finally {
+                        MergeCoordinator.release();
+                        unrefreshedMerges = true;
+                        runningMerges.decrementAndGet();
+                        merges.increment();
+                        mergesTime.add(System.nanoTime() - start);
+                        mergedBytes.add(merge.totalBytesSize());
+                    }
+                }
+            });
             indexWriter = new IndexWriter(directory, indexWriterConfig);
+            IndexingMemory.register(this);
 
             // Setup NRT search
+            ExecutorService searchExecutor = SearchExecutor.get(searchThreads);
             SearcherFactory searcherFactory = new SearcherFactory() {
                 @Override
                 public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
-                    IndexSearcher searcher = new IndexSearcher(reader);
+                    IndexSearcher searcher = searchExecutor == null
+                                             ? new IndexSearcher(reader)
+                                             : new ParallelIndexSearcher(reader,
+                                                                         searchExecutor,
+                                                                         searchSlices,
+                                                                         searchSlicesTime);
                     searcher.setSimilarity(new NoIDFSimilarity());
+                    warmer.warm(searcher);
                     return searcher;
                 }
             };
-            TrackingIndexWriter trackingWriter = new TrackingIndexWriter(indexWriter);
+            trackingWriter = new TrackingIndexWriter(indexWriter);
             searcherManager = new SearcherManager(indexWriter, true, searcherFactory);
-            searcherReopener = new ControlledRealTimeReopenThread<>(trackingWriter, searcherManager, refresh, refresh);
-            searcherReopener.start();
+            refreshTask = RefreshScheduler.schedule(this, refresh);
 
         } catch (Exception e) {
             throw new IndexException(logger, e, "Error while creating index {}", name);
         }
     }
 
+    /**
+     * Returns the Lucene searcher manager of this index.
+     *
+     * @return the searcher manager
+     */
+    SearcherManager searcherManager() {
+        return searcherManager;
+    }
+
+    /**
+     * Adds a listener to be notified each time the index readers are refreshed with new changes.
+     *
+     * @param listener the listener to be run after each effective refresh with its duration in nanoseconds
+     */
+    void addRefreshListener(LongConsumer listener) {
+        searcherManager.addListener(new ReferenceManager.RefreshListener() {
+
+            // Refreshes are serialized by the searcher manager
+            private long start;
+
+            @Override
+            public void beforeRefresh() {
+                start = System.nanoTime();
+            }
+
+            @Override
+            public void afterRefresh(boolean didRefresh) {
+                if (didRefresh) {
+                    listener.accept(System.nanoTime() - start);
+                }
+            }
+        });
+    }
+
     private <T> T doWithSearcher(CheckedFunction<IndexSearcher, T> function) throws IOException {
         IndexSearcher searcher = searcherManager.acquire();
         try {
@@ -157,12 +270,118 @@ public class FSIndex {
     public void upsert(Term term, Document document) {
         logger.debug("Indexing {} with term {} in {}", document, term, name);
         try {
-            indexWriter.updateDocument(term, document);
+            written(trackingWriter.updateDocument(term, document));
         } catch (Exception e) {
             throw new IndexException(logger, e, "Error indexing {} with term {} in {}", document, term, name);
         }
     }
 
+    private void written(long generation) {
+        writeGeneration.accumulateAndGet(generation, Math::max);
+    }
+
+    /**
+     * Returns the generation of the last write applied to this index. Writes are not visible to searches until the
+     * index readers are refreshed to a generation at least as high as theirs.
+     *
+     * @return the generation of the last write
+     * @see #waitForGeneration(long)
+     */
+    public long getWriteGeneration() {
+        return writeGeneration.get();
+    }
+
+    /**
+     * Waits until the index readers are refreshed to the specified write generation, so all the writes with that or a
+     * lower generation are visible to searches. Unlike {@link #refresh()}, this doesn't refresh the readers if they
+     * are already refreshed, and the {@link RefreshScheduler} refreshes them only once for all the concurrently waiting
+     * searches. The wait is aborted if the index is closed, if the refresh fails, or if it takes more than the
+     * specified timeout.
+     *
+     * @param generation the write generation to wait for
+     * @param timeout the max time to wait, in milliseconds
+     */
+    public void waitForGeneration(long generation, long timeout) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        long failures = refreshFailures.get();
+        try {
+            synchronized (generationMonitor) {
+                while (searchingGeneration.get() < generation) {
+                    if (closed) {
+                        throw new IndexException("Index {} closed while waiting for generation {}", name, generation);
+                    }
+                    if (refreshFailures.get() != failures) {
+                        throw new IndexException(logger, refreshFailure, "Error refreshing {} readers", name);
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new IndexException("Timed out after {} ms waiting for {} generation {}",
+                                                 timeout, name, generation);
+                    }
+                    refreshTask.request();
+                    generationMonitor.wait(Math.max(1, Math.min(WAIT_FOR_GENERATION_MS,
+                                                                TimeUnit.NANOSECONDS.toMillis(remaining))));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexException(logger, e, "Interrupted while waiting for {} generation {}", name, generation);
+        }
+    }
+
+    /**
+     * Returns if this index has writes that are not yet visible to searches.
+     *
+     * @return {@code true} if the index readers should be refreshed, {@code false} otherwise
+     */
+    boolean hasUnrefreshedWrites() {
+        return writeGeneration.get() > searchingGeneration.get();
+    }
+
+    /**
+     * Returns if this index has completed merges that are not yet visible to searches, so the index readers are still
+     * pinning the merged segments.
+     *
+     * @return {@code true} if the index readers should be refreshed, {@code false} otherwise
+     */
+    boolean hasUnrefreshedMerges() {
+        return unrefreshedMerges;
+    }
+
+    /**
+     * Returns the time since the index readers were refreshed if there are writes that are not yet visible to
+     * searches, in nanoseconds. This is an upper bound of the time that those writes have been waiting.
+     *
+     * @return the staleness in nanoseconds, {@code 0} if all the writes are visible to searches
+     */
+    public long getStaleness() {
+        return hasUnrefreshedWrites() ? System.nanoTime() - lastRefresh : 0;
+    }
+
+    /**
+     * Refreshes the index readers and marks the writes done before the refresh as visible to searches, waking up the
+     * searches waiting for them. If the refresh fails, the waiting searches are woken up to fail too.
+     *
+     * @throws IOException if the readers can't be refreshed
+     */
+    void refreshGeneration() throws IOException {
+        long generation = trackingWriter.getAndIncrementGeneration();
+        unrefreshedMerges = false;
+        try {
+            searcherManager.maybeRefreshBlocking();
+            lastRefresh = System.nanoTime();
+            searchingGeneration.accumulateAndGet(generation, Math::max);
+        } catch (IOException | RuntimeException e) {
+            refreshFailure = e;
+            refreshFailures.incrementAndGet();
+            throw e;
+        } finally {
+            synchronized (generationMonitor) {
+                generationMonitor.notifyAll();
+            }
+        }
+    }
+
     /**
      * Deletes all the {@link Document}s containing the specified {@link Term}.
      *
@@ -171,7 +390,7 @@ public class FSIndex {
     public void delete(Term term) {
         logger.debug("Deleting {} from {}", term, name);
         try {
-            indexWriter.deleteDocuments(term);
+            written(trackingWriter.deleteDocuments(term));
         } catch (Exception e) {
             throw new IndexException(logger, e, "Error deleting {} from {}", term, name);
         }
@@ -185,7 +404,7 @@ public class FSIndex {
     public void delete(Query query) {
         logger.debug("Deleting {} from {}", query, name);
         try {
-            indexWriter.deleteDocuments(query);
+            written(trackingWriter.deleteDocuments(query));
         } catch (Exception e) {
             throw new IndexException(logger, e, "Error deleting {} from {}", query, name);
         }
@@ -196,7 +415,7 @@ public class FSIndex {
      */
     public void truncate() {
         try {
-            indexWriter.deleteAll();
+            written(trackingWriter.deleteAll());
             indexWriter.commit();
         } catch (Exception e) {
             throw new IndexException(logger, e, "Error truncating {}", name);
@@ -204,6 +423,38 @@ public class FSIndex {
         logger.info("Truncated {}", name);
     }
 
+    /**
+     * Returns the RAM used by the indexing buffer of this index.
+     *
+     * @return the used RAM in bytes
+     */
+    public long getRAMBufferBytes() {
+        return indexWriter.ramBytesUsed();
+    }
+
+    /**
+     * Flushes the indexing buffer of this index into a new segment, without committing it. It is used by {@link
+     * IndexingMemory} to keep the RAM used by all the indexes in the node under its budget.
+     */
+    void flushBuffer() {
+        logger.debug("Flushing {} indexing buffer", name);
+        try {
+            indexWriter.flush();
+            bufferFlushes.increment();
+        } catch (Exception e) {
+            throw new IndexException(logger, e, "Error flushing {} indexing buffer", name);
+        }
+    }
+
+    /**
+     * Returns the number of flushes of the indexing buffer done to keep the node-wide indexing RAM under its budget.
+     *
+     * @return the number of buffer flushes
+     */
+    public long getBufferFlushes() {
+        return bufferFlushes.sum();
+    }
+
     /**
      * Commits the pending changes.
      */
@@ -221,7 +472,13 @@ public class FSIndex {
      */
     public void close() {
         try {
-            searcherReopener.interrupt();
+            IndexingMemory.unregister(this);
+            resumeMerges();
+            refreshTask.cancel();
+            closed = true;
+            synchronized (generationMonitor) {
+                generationMonitor.notifyAll();
+            }
             searcherManager.close();
             indexWriter.close();
             directory.close();
@@ -260,7 +517,40 @@ public class FSIndex {
                      "query: {}\n" +
                      " sort: {}\n" +
                      "count: {}", name, after, query, sort, count);
-        return new DocumentIterator(searcherManager, mergeSort, after, query, sort, count, fields);
+        sample(query, sort);
+        List<SearcherManager> managers = Collections.singletonList(searcherManager);
+        return new DocumentIterator(managers, null, mergeSort, after, query, sort, count, fields, skippedDocs);
+    }
+
+    /**
+     * Finds the top {@code count} hits for {@code query} and sorting the hits by {@code sort}, starting after the
+     * specified sort values.
+     *
+     * @param after the sort values of the last retrieved document
+     * @param query the {@link Query} to search for
+     * @param sort the {@link Sort} to be applied
+     * @param count the max number of results to be collected
+     * @return the found documents, sorted according to the supplied {@link Sort} instance
+     */
+    public DocumentIterator searchAfter(FieldDoc after, Query query, Sort sort, int count) {
+        logger.debug("Searching in {}\n" +
+                     "after: {}\n" +
+                     "query: {}\n" +
+                     " sort: {}\n" +
+                     "count: {}", name, after, query, sort, count);
+        sample(query, sort);
+        List<SearcherManager> managers = Collections.singletonList(searcherManager);
+        return new DocumentIterator(managers, null, mergeSort, after, query, sort, count, fields, skippedDocs);
+    }
+
+    /**
+     * Records the specified search in the sample of live traffic used to warm up new searchers.
+     *
+     * @param query the searched query
+     * @param sort the sort of the search, {@code null} for no sort
+     */
+    void sample(Query query, Sort sort) {
+        warmer.sample(query, sort);
     }
 
     /**
@@ -277,6 +567,60 @@ public class FSIndex {
         }
     }
 
+    /**
+     * Returns the number of {@link Document}s matching the specified {@link Query}, without collecting them.
+     *
+     * @param query a query
+     * @return the number of hits
+     */
+    public int count(Query query) {
+        logger.debug("Counting in {}\nquery: {}", name, query);
+        sample(query, null);
+        try {
+            return doWithSearcher(searcher -> {
+                TotalHitCountCollector collector = new TotalHitCountCollector();
+                searcher.search(query, collector);
+                return collector.getTotalHits();
+            });
+        } catch (Exception e) {
+            throw new IndexException(logger, e, "Error counting {} hits", name);
+        }
+    }
+
+    /**
+     * Collects all the {@link Document}s matching the specified {@link Query} with the specified {@link Collector}.
+     *
+     * @param query a query
+     * @param collector the collector to be fed with the hits
+     */
+    public void search(Query query, Collector collector) {
+        logger.debug("Collecting in {}\nquery: {}\ncollector: {}", name, query, collector);
+        sample(query, null);
+        try {
+            doWithSearcher(searcher -> {
+                searcher.search(query, collector);
+                return null;
+            });
+        } catch (Exception e) {
+            throw new IndexException(logger, e, "Error collecting {} hits", name);
+        }
+    }
+
+    /**
+     * Returns the estimated number of {@link Document}s matching the specified {@link Query}, computed from the term
+     * statistics of the index without running the query.
+     *
+     * @param query a query
+     * @return the estimated number of hits
+     */
+    public long estimateHits(Query query) {
+        try {
+            return doWithSearcher(searcher -> HitsEstimator.estimate(searcher.getIndexReader(), query));
+        } catch (Exception e) {
+            throw new IndexException(logger, e, "Error estimating {} hits", name);
+        }
+    }
+
     /**
      * Returns the total number of deleted {@link Document}s in this index.
      *
@@ -291,37 +635,233 @@ public class FSIndex {
         }
     }
 
+    /**
+     * Returns the total number of index slices searched concurrently.
+     *
+     * @return the number of searched slices
+     */
+    public long getSearchSlices() {
+        return searchSlices.sum();
+    }
+
+    /**
+     * Returns the total time spent searching index slices concurrently, in nanoseconds.
+     *
+     * @return the slices search time in nanoseconds
+     */
+    public long getSearchSlicesTime() {
+        return searchSlicesTime.sum();
+    }
+
+    /**
+     * Returns the size of the currently open memory-mapped index files.
+     *
+     * @return the number of mapped bytes, {@code 0} if the directory is not memory-mapped
+     */
+    public long getMappedBytes() {
+        return fsDirectory.getMappedBytes();
+    }
+
+    /**
+     * Returns the number of timed bulk reads from the file system directory, which are a sample of all the reads.
+     *
+     * @return the number of sampled directory reads
+     */
+    public long getDirectoryReads() {
+        return fsDirectory.getReads();
+    }
+
+    /**
+     * Returns the total time spent in the timed bulk reads from the file system directory, in nanoseconds.
+     *
+     * @return the sampled directory reads time in nanoseconds
+     */
+    public long getDirectoryReadsTime() {
+        return fsDirectory.getReadsTime();
+    }
+
+    /**
+     * Returns the number of non-competitive documents skipped by relevance searches without scoring them.
+     *
+     * @return the number of skipped documents
+     */
+    public long getSkippedDocs() {
+        return skippedDocs.sum();
+    }
+
+    /**
+     * Returns the number of segment merges that have been completed.
+     *
+     * @return the number of merges
+     */
+    public long getMerges() {
+        return merges.sum();
+    }
+
+    /**
+     * Returns the total time spent in segment merges, in nanoseconds.
+     *
+     * @return the merges time in nanoseconds
+     */
+    public long getMergesTime() {
+        return mergesTime.sum();
+    }
+
+    /**
+     * Returns the total size of the segments that have been merged, in bytes.
+     *
+     * @return the number of merged bytes
+     */
+    public long getMergedBytes() {
+        return mergedBytes.sum();
+    }
+
+    /**
+     * Returns the number of segment merges currently running.
+     *
+     * @return the number of running merges
+     */
+    public int getRunningMerges() {
+        return runningMerges.get();
+    }
+
+    /**
+     * Waits until merges are not paused and there is a free merge slot in the node, and takes it.
+     */
+    private void awaitMerge() {
+        waitingMerges.incrementAndGet();
+        try {
+            synchronized (mergesMonitor) {
+                while (mergesPaused) {
+                    mergesMonitor.wait();
+                }
+            }
+            MergeCoordinator.acquire(mergePriority);
+        } catch (InterruptedException e) {
+            throw new ThreadInterruptedException(e);
+        } finally {
+            waitingMerges.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of segment merges waiting to be run because merges are paused or because the node has reached
+     * its max number of running merges.
+     *
+     * @return the number of waiting merges
+     */
+    public int getWaitingMerges() {
+        return waitingMerges.get();
+    }
+
+    /**
+     * Pauses the segment merges that have not started yet. The running merges are not interrupted. Please note that if
+     * merges are paused for long enough, the pending merges can eventually stall indexing. Merges can't be paused
+     * while a forced merge is running.
+     */
+    public void pauseMerges() {
+        synchronized (mergesMonitor) {
+            if (forcedMerges > 0) {
+                throw new IndexException("Can't pause {} merges while a forced merge is running", name);
+            }
+            logger.info("Pausing {} merges", name);
+            mergesPaused = true;
+        }
+    }
+
+    /**
+     * Resumes the segment merges paused with {@link #pauseMerges()}.
+     */
+    public void resumeMerges() {
+        synchronized (mergesMonitor) {
+            if (mergesPaused) {
+                logger.info("Resuming {} merges", name);
+            }
+            mergesPaused = false;
+            mergesMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Returns if the segment merges that have not started yet are paused.
+     *
+     * @return {@code true} if merges are paused, {@code false} otherwise
+     */
+    public boolean isMergesPaused() {
+        return mergesPaused;
+    }
+
+    /**
+     * Sets if the segment merges of this index should take the free merge slots of the node before the merges of the
+     * not prioritized indexes.
+     *
+     * @param mergePriority {@code true} if merges should be prioritized, {@code false} otherwise
+     */
+    public void setMergePriority(boolean mergePriority) {
+        this.mergePriority = mergePriority;
+    }
+
+    /**
+     * Returns if the segment merges of this index are prioritized.
+     *
+     * @return {@code true} if merges are prioritized, {@code false} otherwise
+     */
+    public boolean isMergePriority() {
+        return mergePriority;
+    }
+
+    private void startForcedMerge() {
+        synchronized (mergesMonitor) {
+            if (mergesPaused) {
+                throw new IndexException("Can't force {} merges while merges are paused", name);
+            }
+            forcedMerges++;
+        }
+    }
+
+    private void finishForcedMerge() {
+        synchronized (mergesMonitor) {
+            forcedMerges--;
+        }
+    }
+
     /**
      * Optimizes the index forcing merge segments leaving the specified number of segments. This operation may block
-     * until all merging completes.
+     * until all merging completes. It is rejected if merges are paused.
      *
      * @param maxNumSegments the maximum number of segments left in the index after merging finishes
      * @param doWait {@code true} if the call should block until the operation completes
      */
     public void forceMerge(int maxNumSegments, boolean doWait) {
+        startForcedMerge();
         logger.info("Merging {} segments to {}", name, maxNumSegments);
         try {
             indexWriter.forceMerge(maxNumSegments, doWait);
             indexWriter.commit();
         } catch (Exception e) {
             throw new IndexException(logger, e, "Error merging {} segments to {}", name, maxNumSegments);
+        } finally {
+            finishForcedMerge();
         }
         logger.info("Merged {} segments to {}", name, maxNumSegments);
     }
 
     /**
      * Optimizes the index forcing merge of all segments that have deleted documents. This operation may block until all
-     * merging completes.
+     * merging completes. It is rejected if merges are paused.
      *
      * @param doWait {@code true} if the call should block until the operation completes
      */
     public void forceMergeDeletes(boolean doWait) {
+        startForcedMerge();
         logger.info("Merging {} segments with deletions", name);
         try {
             indexWriter.forceMergeDeletes(doWait);
             indexWriter.commit();
         } catch (Exception e) {
             throw new IndexException(logger, e, "Error merging {} segments with deletion", name);
+        } finally {
+            finishForcedMerge();
         }
         logger.info("Merged {} segments with deletions", name);
     }
@@ -332,7 +872,7 @@ public class FSIndex {
     public void refresh() {
         logger.debug("Refreshing {} readers", name);
         try {
-            searcherManager.maybeRefreshBlocking();
+            refreshGeneration();
         } catch (Exception e) {
             throw new IndexException(logger, e, "Error refreshing {} readers", name);
         }
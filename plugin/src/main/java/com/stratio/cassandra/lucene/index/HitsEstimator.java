@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.*;
+
+import java.io.IOException;
+
+/**
+ * Estimation of the number of documents matched by a {@link Query}, computed from the index term statistics without
+ * running the query.
+ *
+ * The hits of a term query are given by the document frequency of the term, which counts deleted documents too. The
+ * hits of a boolean query are the min hits of its required clauses, or the sum of the hits of its optional clauses if
+ * there are no required clauses. Prohibited clauses are ignored. The hits of any other query are unknown, so they are
+ * bounded by the number of documents in the index.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+final class HitsEstimator {
+
+    /** Private constructor to hide the implicit public one. */
+    private HitsEstimator() {
+    }
+
+    /**
+     * Returns the estimated number of documents matching the specified {@link Query} in the specified index.
+     *
+     * @param reader the index reader
+     * @param query the query
+     * @return the estimated number of hits, between zero and the number of documents in the index
+     * @throws IOException if there are I/O errors while reading the index statistics
+     */
+    static long estimate(IndexReader reader, Query query) throws IOException {
+        return Math.min(reader.numDocs(), hits(reader, query));
+    }
+
+    private static long hits(IndexReader reader, Query query) throws IOException {
+        if (query instanceof TermQuery) {
+            return reader.docFreq(((TermQuery) query).getTerm());
+        } else if (query instanceof BoostQuery) {
+            return hits(reader, ((BoostQuery) query).getQuery());
+        } else if (query instanceof ConstantScoreQuery) {
+            return hits(reader, ((ConstantScoreQuery) query).getQuery());
+        } else if (query instanceof BooleanQuery) {
+            return hits(reader, (BooleanQuery) query);
+        }
+        return reader.numDocs();
+    }
+
+    private static long hits(IndexReader reader, BooleanQuery query) throws IOException {
+        long required = Long.MAX_VALUE, optional = 0;
+        boolean hasOptional = false;
+        for (BooleanClause clause : query) {
+            if (clause.isRequired()) {
+                required = Math.min(required, hits(reader, clause.getQuery()));
+            } else if (clause.getOccur() == BooleanClause.Occur.SHOULD) {
+                optional += hits(reader, clause.getQuery());
+                hasOptional = true;
+            }
+        }
+        if (required != Long.MAX_VALUE) {
+            return required;
+        }
+        return hasOptional ? optional : reader.numDocs();
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.cassandra.concurrent.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Node-wide budget for the RAM used by the indexing buffers of all the Lucene index writers in the node, similar to the
+ * Cassandra's memtable space. The total usage is checked periodically, and when it exceeds the budget the writers using
+ * the most RAM are flushed first, until the usage falls back under the budget. The budget is shared by all the indexes
+ * in the node, and it is the max value requested by any of them. There is no budget unless an index requests it.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public final class IndexingMemory {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexingMemory.class);
+
+    /** The time between checks of the RAM usage, in milliseconds. */
+    static final long CHECK_INTERVAL_MS = 100;
+
+    private static final Set<FSIndex> indexes = ConcurrentHashMap.newKeySet();
+
+    private static volatile long budget;
+
+    private static ScheduledThreadPoolExecutor checker;
+
+    /** Private constructor to hide the implicit public one. */
+    private IndexingMemory() {
+    }
+
+    /**
+     * Grows the shared RAM budget if it is less than the specified one, starting the periodic checks if needed.
+     *
+     * @param budgetMB the min RAM budget in MB, {@code 0} means no budget
+     */
+    public static synchronized void grow(int budgetMB) {
+        if (budgetMB <= 0) {
+            return;
+        }
+        long bytes = budgetMB * 1024L * 1024L;
+        if (checker == null) {
+            logger.info("Starting Lucene indexing memory with a budget of {} MB", budgetMB);
+            budget = bytes;
+            checker = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("LuceneIndexingMemory"));
+            checker.scheduleWithFixedDelay(IndexingMemory::check,
+                                           CHECK_INTERVAL_MS,
+                                           CHECK_INTERVAL_MS,
+                                           TimeUnit.MILLISECONDS);
+        } else if (budget < bytes) {
+            logger.info("Resizing Lucene indexing memory budget to {} MB", budgetMB);
+            budget = bytes;
+        }
+    }
+
+    /**
+     * Returns the shared RAM budget for indexing buffers.
+     *
+     * @return the budget in bytes, {@code 0} if there is no budget
+     */
+    public static long budget() {
+        return budget;
+    }
+
+    /**
+     * Returns the RAM currently used by the indexing buffers of all the indexes in the node.
+     *
+     * @return the used RAM in bytes
+     */
+    public static long used() {
+        return indexes.stream().mapToLong(FSIndex::getRAMBufferBytes).sum();
+    }
+
+    /**
+     * Adds the specified index to the ones whose indexing buffers are subject to the budget.
+     *
+     * @param index the index to be added
+     */
+    static void register(FSIndex index) {
+        indexes.add(index);
+    }
+
+    /**
+     * Removes the specified index from the ones whose indexing buffers are subject to the budget.
+     *
+     * @param index the index to be removed
+     */
+    static void unregister(FSIndex index) {
+        indexes.remove(index);
+    }
+
+    private static void check() {
+        if (budget > 0) {
+            try {
+                flush(indexes, budget);
+            } catch (Exception e) {
+                logger.error("Error checking indexing memory budget", e);
+            }
+        }
+    }
+
+    /**
+     * Flushes the indexing buffers of the specified indexes, the ones using the most RAM first, until their total RAM
+     * usage is not greater than the specified budget.
+     *
+     * @param indexes the indexes to be checked
+     * @param budget the RAM budget in bytes
+     * @return the number of flushed indexes
+     */
+    static int flush(Collection<FSIndex> indexes, long budget) {
+        List<Usage> usages = indexes.stream()
+                                    .map(index -> new Usage(index, index.getRAMBufferBytes()))
+                                    .sorted(Comparator.comparingLong((Usage usage) -> usage.bytes).reversed())
+                                    .collect(toList());
+        long used = usages.stream().mapToLong(usage -> usage.bytes).sum();
+        int flushed = 0;
+        for (Usage usage : usages) {
+            if (used <= budget || usage.bytes == 0) {
+                break;
+            }
+            logger.debug("Flushing {} bytes of indexing buffer due to {} of {} bytes used",
+                         usage.bytes, used, budget);
+            try {
+                usage.index.flushBuffer();
+            } catch (Exception e) {
+                logger.error("Error flushing indexing buffer", e);
+            }
+            used -= usage.bytes;
+            flushed++;
+        }
+        return flushed;
+    }
+
+    private static final class Usage {
+
+        private final FSIndex index;
+        private final long bytes;
+
+        private Usage(FSIndex index, long bytes) {
+            this.index = index;
+            this.bytes = bytes;
+        }
+    }
+}
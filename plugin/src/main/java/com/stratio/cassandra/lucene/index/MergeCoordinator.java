@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.apache.cassandra.db.compaction.CompactionManager;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Node-wide coordination of the segment merges of all the Lucene indexes in the node. It caps the number of merges
+ * running at the same time in the node, letting the merges of prioritized indexes run before the others, and it
+ * throttles the disk writes of all the merges with a shared rate limiter, which can be the one used by Cassandra to
+ * throttle compactions, so merges and compactions share the same {@code compaction_throughput_mb_per_sec}. The limits
+ * are shared by all the indexes in the node, and they are the max values requested by any of them.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public final class MergeCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(MergeCoordinator.class);
+
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    /** The number of merge bytes written between checks of the rate limiter. */
+    static final long MIN_PAUSE_CHECK_BYTES = 256 * 1024;
+
+    private static int maxThreads;
+    private static int running;
+    private static int waiting;
+    private static int waitingPriority;
+
+    private static volatile RateLimiter rateLimiter;
+    private static volatile boolean compactionThrottle;
+
+    private static final org.apache.lucene.store.RateLimiter THROTTLE = new Throttle();
+
+    /** Private constructor to hide the implicit public one. */
+    private MergeCoordinator() {
+    }
+
+    /**
+     * Grows the shared merge limits if they are lower than the specified ones.
+     *
+     * @param maxThreads the min number of merges running at the same time in the node
+     * @param mbPerSec the min throughput of the merges in MB/s, {@code 0} means no throttle
+     * @param compaction if merges should be throttled with the Cassandra's compaction throughput
+     */
+    public static synchronized void grow(int maxThreads, int mbPerSec, boolean compaction) {
+        if (MergeCoordinator.maxThreads < maxThreads) {
+            logger.info("Setting Lucene max merge threads to {}", maxThreads);
+            MergeCoordinator.maxThreads = maxThreads;
+            MergeCoordinator.class.notifyAll();
+        }
+        if (mbPerSec > 0 && (rateLimiter == null || rateLimiter.getRate() < mbPerSec * BYTES_PER_MB)) {
+            logger.info("Setting Lucene merge throughput to {} MB/s", mbPerSec);
+            if (rateLimiter == null) {
+                rateLimiter = RateLimiter.create(mbPerSec * BYTES_PER_MB);
+            } else {
+                rateLimiter.setRate(mbPerSec * BYTES_PER_MB);
+            }
+        }
+        if (compaction && !compactionThrottle) {
+            logger.info("Setting Lucene merge throughput to Cassandra compaction throughput");
+            compactionThrottle = true;
+        }
+    }
+
+    /**
+     * Waits until there is a free merge slot in the node and takes it. Merges of prioritized indexes take the free
+     * slots before the others.
+     *
+     * @param priority if the merge should be run before the not prioritized ones
+     */
+    static synchronized void acquire(boolean priority) {
+        waiting++;
+        if (priority) {
+            waitingPriority++;
+        }
+        try {
+            while ((maxThreads > 0 && running >= maxThreads) || (!priority && waitingPriority > 0)) {
+                MergeCoordinator.class.wait();
+            }
+        } catch (InterruptedException e) {
+            throw new ThreadInterruptedException(e);
+        } finally {
+            waiting--;
+            if (priority) {
+                waitingPriority--;
+                MergeCoordinator.class.notifyAll();
+            }
+        }
+        running++;
+    }
+
+    /**
+     * Releases a merge slot taken with {@link #acquire(boolean)}.
+     */
+    static synchronized void release() {
+        running--;
+        MergeCoordinator.class.notifyAll();
+    }
+
+    /**
+     * Returns the max number of merges running at the same time in the node.
+     *
+     * @return the max number of merges, {@code 0} means no limit
+     */
+    public static synchronized int maxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * Returns the number of merges currently running in the node.
+     *
+     * @return the number of running merges
+     */
+    public static synchronized int running() {
+        return running;
+    }
+
+    /**
+     * Returns the number of merges currently waiting for a free merge slot in the node.
+     *
+     * @return the number of waiting merges
+     */
+    public static synchronized int waiting() {
+        return waiting;
+    }
+
+    /**
+     * Returns the Lucene rate limiter to be used by the writes of merges, if they are throttled.
+     *
+     * @return the shared merge rate limiter, {@code null} if merges are not throttled
+     */
+    static org.apache.lucene.store.RateLimiter rateLimiter() {
+        return compactionThrottle || rateLimiter != null ? THROTTLE : null;
+    }
+
+    private static RateLimiter current() {
+        return compactionThrottle ? CompactionManager.instance.getRateLimiter() : rateLimiter;
+    }
+
+    /** Lucene {@link org.apache.lucene.store.RateLimiter} backed by the shared byte rate limiter. */
+    private static final class Throttle extends org.apache.lucene.store.RateLimiter {
+
+        /** The rate is only set by {@link #grow(int, int, boolean)} or by Cassandra, so this is ignored. */
+        @Override
+        public void setMBPerSec(double mbPerSec) {
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public double getMBPerSec() {
+            RateLimiter limiter = current();
+            return limiter == null ? Double.MAX_VALUE : limiter.getRate() / BYTES_PER_MB;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public long pause(long bytes) {
+            RateLimiter limiter = current();
+            if (limiter == null || bytes <= 0) {
+                return 0;
+            }
+            double seconds = limiter.acquire((int) Math.min(bytes, Integer.MAX_VALUE));
+            return (long) (seconds * 1_000_000_000L);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public long getMinPauseCheckBytes() {
+            return MIN_PAUSE_CHECK_BYTES;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.lucene.store.*;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link FilterDirectory} recording the size of the files opened by a memory-mapped directory and the time spent on
+ * bulk reads. Bulk reads of memory-mapped files become slow when they fault pages not yet in memory, so their mean time
+ * reveals when the index doesn't fit in the OS page cache.
+ *
+ * Only the first bulk read of each input and then one of every {@link #SAMPLING_INTERVAL} are timed, to keep the
+ * overhead of the hot read path low. Single byte and number reads are not timed, and they are delegated as they are.
+ *
+ * The files written by segment merges are throttled with the node-wide rate limiter of {@link MergeCoordinator}, if
+ * any, so merges don't compete with Cassandra compactions for the disk without limit.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+class MonitoredDirectory extends FilterDirectory {
+
+    /** The number of bulk reads of an input per timed read. */
+    static final int SAMPLING_INTERVAL = 64;
+
+    private final boolean mapped;
+    private final LongAdder mappedBytes = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder readsTime = new LongAdder();
+
+    /**
+     * Builds a new {@link MonitoredDirectory} wrapping the specified {@link FSDirectory}.
+     *
+     * @param directory the directory to be monitored
+     */
+    MonitoredDirectory(FSDirectory directory) {
+        super(directory);
+        mapped = directory instanceof MMapDirectory;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public IndexInput openInput(String name, IOContext context) throws IOException {
+        IndexInput input = in.openInput(name, context);
+        if (mapped) {
+            mappedBytes.add(input.length());
+        }
+        return new MonitoredIndexInput(input, mapped);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public IndexOutput createOutput(String name, IOContext context) throws IOException {
+        IndexOutput output = in.createOutput(name, context);
+        RateLimiter rateLimiter = MergeCoordinator.rateLimiter();
+        if (context.context == IOContext.Context.MERGE && rateLimiter != null) {
+            return new RateLimitedIndexOutput(rateLimiter, output);
+        }
+        return output;
+    }
+
+    /**
+     * Returns the size of the currently open memory-mapped files.
+     *
+     * @return the number of mapped bytes, {@code 0} if the directory is not memory-mapped
+     */
+    long getMappedBytes() {
+        return mappedBytes.sum();
+    }
+
+    /**
+     * Returns the number of timed bulk reads.
+     *
+     * @return the number of sampled bulk reads
+     */
+    long getReads() {
+        return reads.sum();
+    }
+
+    /**
+     * Returns the total time spent in timed bulk reads, in nanoseconds.
+     *
+     * @return the sampled bulk reads time in nanoseconds
+     */
+    long getReadsTime() {
+        return readsTime.sum();
+    }
+
+    /** {@link IndexInput} recording the time spent on a sample of its bulk reads. */
+    private class MonitoredIndexInput extends IndexInput {
+
+        private final IndexInput input;
+        private final boolean releasesMappedBytes;
+        private boolean closed = false;
+        private int untimedReads = 0;
+
+        private MonitoredIndexInput(IndexInput input, boolean releasesMappedBytes) {
+            super(input.toString());
+            this.input = input;
+            this.releasesMappedBytes = releasesMappedBytes;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() throws IOException {
+            input.close();
+            if (releasesMappedBytes && !closed) {
+                mappedBytes.add(-input.length());
+            }
+            closed = true;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public long getFilePointer() {
+            return input.getFilePointer();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void seek(long pos) throws IOException {
+            input.seek(pos);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public long length() {
+            return input.length();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public IndexInput slice(String sliceDescription, long offset, long length) throws IOException {
+            return new MonitoredIndexInput(input.slice(sliceDescription, offset, length), false);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public RandomAccessInput randomAccessSlice(long offset, long length) throws IOException {
+            return input.randomAccessSlice(offset, length);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public IndexInput clone() {
+            return new MonitoredIndexInput(input.clone(), false);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public byte readByte() throws IOException {
+            return input.readByte();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void readBytes(byte[] b, int offset, int len) throws IOException {
+            if (untimedReads > 0) {
+                untimedReads--;
+                input.readBytes(b, offset, len);
+            } else {
+                untimedReads = SAMPLING_INTERVAL - 1;
+                long start = System.nanoTime();
+                input.readBytes(b, offset, len);
+                readsTime.add(System.nanoTime() - start);
+                reads.increment();
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public short readShort() throws IOException {
+            return input.readShort();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int readInt() throws IOException {
+            return input.readInt();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int readVInt() throws IOException {
+            return input.readVInt();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public long readLong() throws IOException {
+            return input.readLong();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public long readVLong() throws IOException {
+            return input.readVLong();
+        }
+    }
+}
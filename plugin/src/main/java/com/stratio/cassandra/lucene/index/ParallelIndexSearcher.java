@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Weight;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link IndexSearcher} searching groups of index segments concurrently using the shared {@link SearchExecutor}.
+ *
+ * The segments are grouped in as many slices as search threads, balancing the number of documents per slice, so tiny
+ * segments don't waste a task each. The number of searched slices and the time spent on each of them is recorded.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+class ParallelIndexSearcher extends IndexSearcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelIndexSearcher.class);
+
+    private final LongAdder slices;
+    private final LongAdder slicesTime;
+
+    /**
+     * Builds a new searcher over the specified {@link IndexReader}.
+     *
+     * @param reader the index reader
+     * @param executor the executor to search the slices with
+     * @param slices the counter of searched slices
+     * @param slicesTime the counter of time spent searching slices, in nanoseconds
+     */
+    ParallelIndexSearcher(IndexReader reader, ExecutorService executor, LongAdder slices, LongAdder slicesTime) {
+        super(reader, executor);
+        this.slices = slices;
+        this.slicesTime = slicesTime;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+        int numSlices = Math.max(1, Math.min(leaves.size(), SearchExecutor.threads()));
+        List<List<LeafReaderContext>> groups = new ArrayList<>(numSlices);
+        long[] sizes = new long[numSlices];
+        for (int i = 0; i < numSlices; i++) {
+            groups.add(new ArrayList<>());
+        }
+        List<LeafReaderContext> sortedLeaves = new ArrayList<>(leaves);
+        sortedLeaves.sort(Comparator.comparingInt((LeafReaderContext leaf) -> leaf.reader().maxDoc()).reversed());
+        for (LeafReaderContext leaf : sortedLeaves) {
+            int smallest = 0;
+            for (int i = 1; i < numSlices; i++) {
+                if (sizes[i] < sizes[smallest]) {
+                    smallest = i;
+                }
+            }
+            groups.get(smallest).add(leaf);
+            sizes[smallest] += leaf.reader().maxDoc();
+        }
+        return groups.stream()
+                     .filter(group -> !group.isEmpty())
+                     .map(group -> new LeafSlice(group.toArray(new LeafReaderContext[group.size()])))
+                     .toArray(LeafSlice[]::new);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+        long start = System.nanoTime();
+        try {
+            super.search(leaves, weight, collector);
+        } finally {
+            long time = System.nanoTime() - start;
+            slices.increment();
+            slicesTime.add(time);
+            logger.trace("Searched slice with {} segments in {} ms", leaves.size(), time / 1_000_000D);
+        }
+    }
+}
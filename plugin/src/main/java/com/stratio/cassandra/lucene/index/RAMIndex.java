@@ -16,13 +16,13 @@
 package com.stratio.cassandra.lucene.index;
 
 import com.stratio.cassandra.lucene.IndexException;
-import org.apache.cassandra.utils.Pair;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.search.*;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.RAMDirectory;
@@ -30,13 +30,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Set;
 
 /**
  * Class wrapping a Lucene RAM directory and its readers, writers and searchers for NRT.
  *
+ * Segments are never merged, so the ids of the found documents are the positions in which they were added. Hits are
+ * scored with {@link NoIDFSimilarity}, so the scores don't depend on the other documents in the index and the hits of
+ * different indexes can be merged by relevance.
+ *
  * @author Andres de la Pena {@literal <adelapena@stratio.com>}
  */
 public class RAMIndex {
@@ -54,7 +55,8 @@ public class RAMIndex {
     public RAMIndex(Analyzer analyzer) {
         try {
             directory = new RAMDirectory();
-            indexWriter = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+            IndexWriterConfig config = new IndexWriterConfig(analyzer).setMergePolicy(NoMergePolicy.INSTANCE);
+            indexWriter = new IndexWriter(directory, config);
         } catch (Exception e) {
             throw new IndexException(logger, e, "Error while creating index");
         }
@@ -86,29 +88,26 @@ public class RAMIndex {
     }
 
     /**
-     * Finds the top {@code count} hits for {@code query} and sorting the hits by {@code sort}.
+     * Finds the top {@code count} hits for {@code query} and sorting the hits by {@code sort}. The returned
+     * {@link TopFieldDocs} contain the sort values of each hit and the rewritten sort fields, so they can be merged
+     * with the results of other indexes using {@link TopDocs#merge(Sort, int, TopFieldDocs[])}. The document ids of
+     * the hits are the positions in which the documents were added to this index.
      *
      * @param query the {@link Query} to search for
      * @param sort the {@link Sort} to be applied
      * @param count the max number of results to be collected
-     * @param fields the names of the fields to be loaded
      * @return the found documents
      */
-    public List<Pair<Document, ScoreDoc>> search(Query query, Sort sort, Integer count, Set<String> fields) {
+    public TopFieldDocs search(Query query, Sort sort, Integer count) {
         try {
             indexWriter.commit();
             IndexReader reader = DirectoryReader.open(directory);
             IndexSearcher searcher = new IndexSearcher(reader);
+            searcher.setSimilarity(new NoIDFSimilarity());
             sort = sort.rewrite(searcher);
-            TopDocs topDocs = searcher.search(query, count, sort, true, true);
-            ScoreDoc[] scoreDocs = topDocs.scoreDocs;
-            List<Pair<Document, ScoreDoc>> documents = new LinkedList<>();
-            for (ScoreDoc scoreDoc : scoreDocs) {
-                Document document = searcher.doc(scoreDoc.doc, fields);
-                documents.add(Pair.create(document, scoreDoc));
-            }
+            TopFieldDocs topDocs = searcher.search(query, count, sort, true, true);
             searcher.getIndexReader().close();
-            return documents;
+            return topDocs;
         } catch (IOException e) {
             throw new IndexException(logger, e, "Error while searching");
         }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.cassandra.concurrent.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Node-wide scheduler for the near real-time refreshes of the index readers. It is shared by all the indexes in the
+ * node, so there is not a reopen thread per index. Each index is checked once per refresh period, and it is only
+ * refreshed if it has writes that are not yet visible to searches, or completed merges whose replaced segments are
+ * still pinned by the index readers. Searches waiting for fresh data request an immediate refresh, which is shared by
+ * all the concurrently waiting searches. The periodic refreshes of indexes with running merges are postponed until
+ * their staleness reaches twice the refresh period.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public final class RefreshScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshScheduler.class);
+
+    /** The number of threads of the shared refresh pool. */
+    static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 4));
+
+    /** The max staleness of indexes with running merges, in refresh periods. */
+    static final int MERGE_BACKOFF = 2;
+
+    private static ScheduledThreadPoolExecutor pool;
+
+    /** Private constructor to hide the implicit public one. */
+    private RefreshScheduler() {
+    }
+
+    private static synchronized ScheduledThreadPoolExecutor pool() {
+        if (pool == null) {
+            logger.info("Starting Lucene refresh pool with {} threads", THREADS);
+            pool = new ScheduledThreadPoolExecutor(THREADS, new NamedThreadFactory("LuceneRefresh"));
+            pool.setRemoveOnCancelPolicy(true);
+        }
+        return pool;
+    }
+
+    /**
+     * Schedules the periodic refresh of the specified index.
+     *
+     * @param index the index to be refreshed
+     * @param seconds the refresh period in seconds, that is, the max time for writes to be searchable
+     * @return the scheduled refresh task
+     */
+    static Task schedule(FSIndex index, double seconds) {
+        long period = Math.max(1, (long) (seconds * 1_000_000_000L));
+        return new Task(index, period, pool());
+    }
+
+    /**
+     * Schedules the specified periodic maintenance task in the shared refresh pool.
+     *
+     * @param task the task to be periodically run
+     * @param period the period between the end of a run and the start of the next one
+     * @param unit the time unit of {@code period}
+     * @return the scheduled task
+     */
+    static ScheduledFuture<?> schedule(Runnable task, long period, TimeUnit unit) {
+        return pool().scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.error("Scheduled task failed", e);
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * The refresh task of an index.
+     */
+    static final class Task {
+
+        private final FSIndex index;
+        private final long period;
+        private final ScheduledThreadPoolExecutor pool;
+        private final ScheduledFuture<?> periodic;
+        private final AtomicBoolean requested = new AtomicBoolean();
+        private volatile boolean cancelled;
+
+        private Task(FSIndex index, long period, ScheduledThreadPoolExecutor pool) {
+            this.index = index;
+            this.period = period;
+            this.pool = pool;
+            periodic = pool.scheduleWithFixedDelay(this::periodic, period, period, TimeUnit.NANOSECONDS);
+        }
+
+        private void periodic() {
+            if (index.hasUnrefreshedWrites()) {
+                if (index.getRunningMerges() > 0 && index.getStaleness() < period * MERGE_BACKOFF) {
+                    logger.trace("Postponing refresh due to running merges");
+                } else {
+                    refresh();
+                }
+            } else if (index.hasUnrefreshedMerges()) {
+                refresh();
+            }
+        }
+
+        /**
+         * Requests an immediate refresh of the index. Requests done while a previous request is waiting to be run are
+         * served by that same refresh.
+         */
+        void request() {
+            if (!cancelled && requested.compareAndSet(false, true)) {
+                pool.execute(() -> {
+                    requested.set(false);
+                    refresh();
+                });
+            }
+        }
+
+        private void refresh() {
+            if (!cancelled) {
+                try {
+                    index.refreshGeneration();
+                } catch (Exception e) {
+                    if (!cancelled) {
+                        logger.error("Scheduled refresh failed", e);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Cancels the periodic refreshes of the index and ignores further refresh requests.
+         */
+        void cancel() {
+            cancelled = true;
+            periodic.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.*;
+import org.apache.lucene.search.similarities.Similarity;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Upper bounds of the scores that the documents of an index segment can get for a {@link Query}, computed from the
+ * segment statistics without scoring any document.
+ *
+ * Bounds are only known for the queries whose scoring with {@link NoIDFSimilarity} is predictable, that is, term,
+ * boolean, boost, constant score and match all queries. The score of a term is bounded by the max frequency that the
+ * term can have in a single document of the segment, and by the max length norm of the field in the segment. The max
+ * norms are computed only once per segment and field, and they are kept until the segment is closed.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+final class ScoreBounds {
+
+    /** The bound of a query which can't match any document in a segment. */
+    static final float NO_MATCH = -1f;
+
+    /** The max norms per segment core and field. */
+    private static final Map<Object, Map<String, Float>> MAX_NORMS = new ConcurrentHashMap<>();
+
+    /** The relative tolerance added to the bounds to absorb floating point rounding differences. */
+    private static final float TOLERANCE = 1.001f;
+
+    private final NoIDFSimilarity similarity;
+    private final Query query;
+    private final float queryNorm;
+
+    private ScoreBounds(NoIDFSimilarity similarity, Query query, float queryNorm) {
+        this.similarity = similarity;
+        this.query = query;
+        this.queryNorm = queryNorm;
+    }
+
+    /**
+     * Returns the score bounds of the specified {@link Query} when it is run by the specified {@link IndexSearcher}.
+     *
+     * @param searcher the index searcher
+     * @param query the query to be run
+     * @return the score bounds, or {@code null} if they are unknown for the query or the searcher similarity
+     * @throws IOException if there are I/O errors while rewriting the query
+     */
+    static ScoreBounds create(IndexSearcher searcher, Query query) throws IOException {
+        Similarity similarity = searcher.getSimilarity(true);
+        if (!(similarity instanceof NoIDFSimilarity)) {
+            return null;
+        }
+        Query rewritten = searcher.rewrite(query);
+        float sumOfSquaredWeights = sumOfSquaredWeights(rewritten);
+        if (Float.isNaN(sumOfSquaredWeights)) {
+            return null;
+        }
+        float queryNorm = similarity.queryNorm(sumOfSquaredWeights);
+        if (Float.isInfinite(queryNorm) || Float.isNaN(queryNorm)) {
+            queryNorm = 1.0f;
+        }
+        return new ScoreBounds((NoIDFSimilarity) similarity, rewritten, queryNorm);
+    }
+
+    /**
+     * Returns the sum of squared weights used by {@link IndexSearcher} to compute the query norm, mimicking the
+     * weights of the supported queries with a constant inverse document frequency.
+     *
+     * @param query a rewritten query
+     * @return the sum of squared weights, or {@link Float#NaN} if the query is not supported
+     */
+    private static float sumOfSquaredWeights(Query query) {
+        if (query instanceof TermQuery || query instanceof ConstantScoreQuery || query instanceof MatchAllDocsQuery) {
+            return 1f;
+        } else if (query instanceof BoostQuery) {
+            float boost = ((BoostQuery) query).getBoost();
+            return boost * boost * sumOfSquaredWeights(((BoostQuery) query).getQuery());
+        } else if (query instanceof BooleanQuery) {
+            float sum = 0f;
+            for (BooleanClause clause : (BooleanQuery) query) {
+                if (clause.isScoring()) {
+                    sum += sumOfSquaredWeights(clause.getQuery());
+                }
+            }
+            return sum;
+        }
+        return Float.NaN;
+    }
+
+    /**
+     * Returns the max score that any document of the specified segment can get.
+     *
+     * @param context the segment
+     * @return the max score, or {@link #NO_MATCH} if no documents in the segment can match the query
+     * @throws IOException if there are I/O errors while reading the segment statistics
+     */
+    float upperBound(LeafReaderContext context) throws IOException {
+        float bound = bound(query, context.reader(), queryNorm);
+        return bound == NO_MATCH ? NO_MATCH : bound * TOLERANCE;
+    }
+
+    private float bound(Query query, LeafReader reader, float weight) throws IOException {
+        if (query instanceof TermQuery) {
+            return bound(((TermQuery) query).getTerm(), reader, weight);
+        } else if (query instanceof BoostQuery) {
+            return bound(((BoostQuery) query).getQuery(), reader, weight * ((BoostQuery) query).getBoost());
+        } else if (query instanceof ConstantScoreQuery || query instanceof MatchAllDocsQuery) {
+            return weight;
+        } else if (query instanceof BooleanQuery) {
+            return bound((BooleanQuery) query, reader, weight);
+        }
+        return Float.POSITIVE_INFINITY;
+    }
+
+    private float bound(BooleanQuery query, LeafReader reader, float weight) throws IOException {
+        float sum = 0f;
+        boolean required = false, matches = false;
+        for (BooleanClause clause : query) {
+            BooleanClause.Occur occur = clause.getOccur();
+            if (occur == BooleanClause.Occur.MUST_NOT) {
+                continue;
+            }
+            float bound = bound(clause.getQuery(), reader, weight);
+            if (clause.isRequired()) {
+                if (bound == NO_MATCH) {
+                    return NO_MATCH;
+                }
+                required = true;
+            } else if (bound == NO_MATCH) {
+                continue;
+            }
+            matches = true;
+            if (clause.isScoring()) {
+                sum += bound;
+            }
+        }
+        return required || matches ? sum : NO_MATCH;
+    }
+
+    private float bound(Term term, LeafReader reader, float weight) throws IOException {
+        Terms terms = reader.terms(term.field());
+        if (terms == null) {
+            return NO_MATCH;
+        }
+        TermsEnum termsEnum = terms.iterator();
+        if (!termsEnum.seekExact(term.bytes())) {
+            return NO_MATCH;
+        }
+        long maxFreq = 1;
+        if (terms.hasFreqs()) {
+            long totalTermFreq = termsEnum.totalTermFreq();
+            if (totalTermFreq < 0) {
+                return Float.POSITIVE_INFINITY;
+            }
+            // Each one of the other documents containing the term has at least one occurrence
+            maxFreq = totalTermFreq - termsEnum.docFreq() + 1;
+        }
+        return similarity.tf(maxFreq) * maxNorm(reader, term.field()) * weight;
+    }
+
+    private float maxNorm(LeafReader reader, String field) throws IOException {
+        Map<String, Float> norms = MAX_NORMS.get(reader.getCoreCacheKey());
+        if (norms == null) {
+            norms = new ConcurrentHashMap<>();
+            Map<String, Float> previous = MAX_NORMS.putIfAbsent(reader.getCoreCacheKey(), norms);
+            if (previous == null) {
+                reader.addCoreClosedListener(MAX_NORMS::remove);
+            } else {
+                norms = previous;
+            }
+        }
+        Float maxNorm = norms.get(field);
+        if (maxNorm == null) {
+            maxNorm = computeMaxNorm(reader, field);
+            norms.put(field, maxNorm);
+        }
+        return maxNorm;
+    }
+
+    private float computeMaxNorm(LeafReader reader, String field) throws IOException {
+        NumericDocValues norms = reader.getNormValues(field);
+        if (norms == null) {
+            return 1f;
+        }
+        float maxNorm = 0f;
+        for (int doc = 0; doc < reader.maxDoc(); doc++) {
+            maxNorm = Math.max(maxNorm, similarity.decodeNormValue(norms.get(doc)));
+        }
+        return maxNorm;
+    }
+}
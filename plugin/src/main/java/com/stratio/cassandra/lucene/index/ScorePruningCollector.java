@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.*;
+
+import java.io.IOException;
+
+/**
+ * {@link FilterCollector} for relevance top-k searches skipping the index segments whose max possible score, according
+ * to its {@link ScoreBounds}, is lower than the score of the k-th best document already collected.
+ *
+ * The k-th best score can be shared between several collectors searching different segments of the same index, so the
+ * segments searched by any of them can prune the segments searched by the others.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+class ScorePruningCollector extends FilterCollector {
+
+    private final TopFieldCollector collector;
+    private final ScoreBounds bounds;
+    private final Threshold threshold;
+    private final float afterScore;
+    private final float[] heap;
+    private int size = 0;
+    private long skipped = 0;
+
+    /**
+     * Builds a new {@link ScorePruningCollector}.
+     *
+     * @param collector the collector of the top-k documents sorted by relevance
+     * @param bounds the score bounds of the searched query
+     * @param threshold the min score that a document must have to be competitive, shared between collectors
+     * @param count the number of documents to be collected
+     * @param after the last retrieved document, {@code null} to start from the beginning
+     */
+    ScorePruningCollector(TopFieldCollector collector,
+                          ScoreBounds bounds,
+                          Threshold threshold,
+                          int count,
+                          FieldDoc after) {
+        super(collector);
+        this.collector = collector;
+        this.bounds = bounds;
+        this.threshold = threshold;
+        this.afterScore = after == null ? Float.POSITIVE_INFINITY : (Float) after.fields[0];
+        this.heap = new float[count];
+    }
+
+    /**
+     * Returns if the specified {@link Sort} is a relevance sort allowing score pruning.
+     *
+     * @param sort a rewritten sort
+     * @return {@code true} if the sort starts by descending relevance, {@code false} otherwise
+     */
+    static boolean canPrune(Sort sort) {
+        SortField[] sortFields = sort.getSort();
+        return sortFields[0].getType() == SortField.Type.SCORE && !sortFields[0].getReverse();
+    }
+
+    /**
+     * Returns the top documents collected by the delegate collector.
+     *
+     * @return the top documents
+     */
+    TopFieldDocs topDocs() {
+        return (TopFieldDocs) collector.topDocs();
+    }
+
+    /**
+     * Returns the number of documents which have been skipped without scoring them.
+     *
+     * @return the number of skipped documents
+     */
+    long getSkipped() {
+        return skipped;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        if (bounds.upperBound(context) < threshold.get()) {
+            skipped += context.reader().numDocs();
+            throw new CollectionTerminatedException();
+        }
+        return new FilterLeafCollector(super.getLeafCollector(context)) {
+
+            private Scorer scorer;
+
+            @Override
+            public void setScorer(Scorer scorer) throws IOException {
+                this.scorer = new ScoreCachingWrappingScorer(scorer);
+                super.setScorer(this.scorer);
+            }
+
+            @Override
+            public void collect(int doc) throws IOException {
+                super.collect(doc);
+                offer(scorer.score());
+            }
+        };
+    }
+
+    /**
+     * Records the score of a collected document, updating the threshold when there are enough documents.
+     *
+     * @param score the score of a collected document
+     */
+    private void offer(float score) {
+
+        // Documents with the same score as the last retrieved one might be discarded by the delegate collector
+        if (score >= afterScore) {
+            return;
+        }
+
+        if (size < heap.length) {
+            heap[size] = score;
+            siftUp(size++);
+            if (size == heap.length) {
+                threshold.update(heap[0]);
+            }
+        } else if (score > heap[0]) {
+            heap[0] = score;
+            siftDown(0);
+            threshold.update(heap[0]);
+        }
+    }
+
+    private void siftUp(int i) {
+        float value = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    private void siftDown(int i) {
+        float value = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+
+    /** The min score that a document must have to be competitive, shared between collectors. */
+    static final class Threshold {
+
+        private volatile float value = Float.NEGATIVE_INFINITY;
+
+        float get() {
+            return value;
+        }
+
+        synchronized void update(float score) {
+            if (score > value) {
+                value = score;
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import com.stratio.cassandra.lucene.util.Tracer;
+import org.apache.cassandra.utils.Pair;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.search.ScoreDoc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of the first page of {@link Document}s found by index searches. The cache is bounded both by the
+ * number of cached searches and by the total number of cached documents, and searches whose first page has more
+ * documents than the whole cache are not cached.
+ *
+ * The cache keys are provided by the caller, and they should include the index searcher generation, so the cached
+ * results are never returned once the index readers have been refreshed. The cache should also be invalidated on each
+ * refresh to release the memory used by the stale entries.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class SearchCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchCache.class);
+
+    private final int maxSize;
+    private final int maxDocuments;
+    private final Map<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int numDocuments = 0;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Builds a new {@link SearchCache} containing up to the specified number of searches and documents.
+     *
+     * @param maxSize the max number of cached searches
+     * @param maxDocuments the max number of cached documents of all the searches
+     */
+    public SearchCache(int maxSize, int maxDocuments) {
+        this.maxSize = maxSize;
+        this.maxDocuments = maxDocuments;
+    }
+
+    /**
+     * Returns the {@link Document}s found by the search identified by the specified key, running it only if there are
+     * no cached results for that key. If the cached results are exhausted, the iteration is continued with a search
+     * starting after the last cached document.
+     *
+     * @param key the key identifying the search
+     * @param search the search to be run if there are no cached results
+     * @param continuation the search to be run after the specified document when the cached results are exhausted
+     * @return the found documents
+     */
+    public DocumentIterator search(Object key,
+                                   Supplier<DocumentIterator> search,
+                                   Function<Pair<Document, ScoreDoc>, DocumentIterator> continuation) {
+        Entry entry = get(key);
+        if (entry != null) {
+            Tracer.trace("Lucene index search cache hit with {} documents", entry.documents.size());
+            return new CachedDocumentIterator(entry, continuation);
+        }
+        DocumentIterator documents = search.get();
+        if (documents.hasNext()) {
+            put(key, new Entry(documents.buffered(), documents.isFinished()));
+        } else {
+            put(key, new Entry(Collections.emptyList(), true));
+        }
+        return documents;
+    }
+
+    private synchronized Entry get(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    private synchronized void put(Object key, Entry entry) {
+        if (entry.documents.size() > maxDocuments) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            numDocuments -= previous.documents.size();
+        }
+        numDocuments += entry.documents.size();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxSize || numDocuments > maxDocuments) {
+            numDocuments -= iterator.next().documents.size();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Removes all the cached searches.
+     */
+    public synchronized void invalidate() {
+        logger.debug("Invalidating {} cached searches", entries.size());
+        entries.clear();
+        numDocuments = 0;
+    }
+
+    /**
+     * Returns the number of cached searches.
+     *
+     * @return the number of cached searches
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of cached documents of all the cached searches.
+     *
+     * @return the number of cached documents
+     */
+    public synchronized int getNumDocuments() {
+        return numDocuments;
+    }
+
+    /**
+     * Returns the number of searches which have been found in the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of searches which have not been found in the cache.
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of searches which have been removed from the cache to make room for new ones.
+     *
+     * @return the number of cache evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /** The cached results of a search. */
+    private static final class Entry {
+
+        private final List<Pair<Document, ScoreDoc>> documents;
+        private final boolean finished;
+
+        private Entry(List<Pair<Document, ScoreDoc>> documents, boolean finished) {
+            this.documents = Collections.unmodifiableList(documents);
+            this.finished = finished;
+        }
+    }
+
+    /** {@link DocumentIterator} replaying the results of a cached search. */
+    private static final class CachedDocumentIterator extends DocumentIterator {
+
+        private final Iterator<Pair<Document, ScoreDoc>> cached;
+        private final boolean finished;
+        private final Function<Pair<Document, ScoreDoc>, DocumentIterator> continuation;
+        private Pair<Document, ScoreDoc> last;
+        private DocumentIterator next;
+        private int numCachedDocuments = 0;
+
+        private CachedDocumentIterator(Entry entry,
+                                       Function<Pair<Document, ScoreDoc>, DocumentIterator> continuation) {
+            this.cached = entry.documents.iterator();
+            this.finished = entry.finished;
+            this.continuation = continuation;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            if (cached.hasNext()) {
+                return true;
+            }
+            if (finished || last == null) {
+                return false;
+            }
+            if (next == null) {
+                Tracer.trace("Lucene index search cache exhausted, searching after last cached document");
+                next = continuation.apply(last);
+            }
+            return next.hasNext();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean needsFetch() {
+            return !cached.hasNext() && !finished && (next == null || next.needsFetch());
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Pair<Document, ScoreDoc> next() {
+            if (cached.hasNext()) {
+                last = cached.next();
+                numCachedDocuments++;
+                return last;
+            } else if (hasNext()) {
+                return next.next();
+            } else {
+                throw new NoSuchElementException();
+            }
+        }
+
+        /**
+         * Returns the number of cached {@link Document}s returned so far plus the number of documents fetched from the
+         * index by the continuation search, if any.
+         *
+         * @return the number of read documents
+         */
+        @Override
+        public int getNumReadDocuments() {
+            return numCachedDocuments + (next == null ? 0 : next.getNumReadDocuments());
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            if (next != null) {
+                next.close();
+            }
+        }
+    }
+}
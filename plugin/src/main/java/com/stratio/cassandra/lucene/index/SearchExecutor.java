@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.cassandra.concurrent.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Node-wide bounded thread pool used by Lucene {@link org.apache.lucene.search.IndexSearcher}s to search index
+ * segments concurrently, and by sharded indexes to search their shards concurrently. It is shared by all the indexes
+ * in the node, and its size is the max number of search threads requested by any of them.
+ *
+ * Searches waiting for a task that has not been started yet run it in their own thread, so nested searches, such as
+ * the segments of a shard searched by a pool thread, can't exhaust the pool waiting for queued tasks.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public final class SearchExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchExecutor.class);
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static ThreadPoolExecutor pool;
+
+    /** Private constructor to hide the implicit public one. */
+    private SearchExecutor() {
+    }
+
+    /**
+     * Returns the shared search executor, growing it if it has less than the specified number of threads.
+     *
+     * @param threads the min number of threads of the executor
+     * @return the shared search executor, {@code null} if {@code threads} is not strictly positive
+     */
+    public static synchronized ExecutorService get(int threads) {
+        if (threads <= 0) {
+            return null;
+        }
+        if (pool == null) {
+            logger.info("Starting Lucene search pool with {} threads", threads);
+            pool = new CallerRunsPool(threads);
+            pool.allowCoreThreadTimeOut(true);
+        } else if (pool.getMaximumPoolSize() < threads) {
+            logger.info("Resizing Lucene search pool to {} threads", threads);
+            pool.setMaximumPoolSize(threads);
+            pool.setCorePoolSize(threads);
+        }
+        return pool;
+    }
+
+    /**
+     * Returns the number of threads of the shared search executor.
+     *
+     * @return the number of search threads, {@code 0} if the executor has not been started
+     */
+    public static synchronized int threads() {
+        return pool == null ? 0 : pool.getMaximumPoolSize();
+    }
+
+    /** {@link ThreadPoolExecutor} whose submitted tasks are run by the waiting thread if they have not started. */
+    private static final class CallerRunsPool extends ThreadPoolExecutor {
+
+        private CallerRunsPool(int threads) {
+            super(threads,
+                  threads,
+                  KEEP_ALIVE_SECONDS,
+                  TimeUnit.SECONDS,
+                  new LinkedBlockingQueue<>(),
+                  new NamedThreadFactory("LuceneSearch"));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+            return new CallerRunsTask<>(callable);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+            return new CallerRunsTask<>(() -> {
+                runnable.run();
+                return value;
+            });
+        }
+    }
+
+    /**
+     * {@link FutureTask} run by the first thread waiting for it if no pool thread has started it yet. The pool thread
+     * dequeuing it later does nothing, because a {@link FutureTask} is run at most once.
+     */
+    private static final class CallerRunsTask<T> extends FutureTask<T> {
+
+        private CallerRunsTask(Callable<T> callable) {
+            super(callable);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            run();
+            return super.get();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            run();
+            return super.get(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import com.stratio.cassandra.lucene.IndexException;
+import com.stratio.cassandra.lucene.util.Tracer;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.utils.Pair;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.search.ScoreDoc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Node-wide registry of open {@link DocumentIterator}s pinned by paged searches, so each page of a search continues the
+ * iteration started by the first page, over the same index searchers, instead of running the search again.
+ *
+ * Each lease keeps the documents returned to the last page reader, because the reader can consume more documents than
+ * the rows finally returned to the client. The next page is resumed from the position of its last returned row, and
+ * the documents after that position are returned again before continuing the iteration. If the position is not found
+ * the lease is discarded.
+ *
+ * Leases expire when they are not used during their time to live, releasing their index searchers. Expired leases are
+ * removed by a periodic task, so idle leases don't pin their index searchers once expired. Leases whose iterators
+ * are not closed, for example due to an abandoned read, are released after their time to live plus the range read
+ * timeout. The max number of live leases is shared by all the indexes in the node, and it is the max value requested
+ * by any of them. Searches that can't get a lease are run as usual.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public final class SearchLeases {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchLeases.class);
+
+    /** The period of the removal of expired leases, in milliseconds. */
+    static final long EXPIRATION_PERIOD_MS = 1000;
+
+    private static SearchLeases instance;
+
+    private int maxLeases;
+    private int numLeases = 0;
+    private final long readTimeout;
+    private final Map<Object, Lease> idle = new HashMap<>();
+    private final Set<Lease> busy = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Builds a new {@link SearchLeases} allowing up to the specified number of live leases.
+     *
+     * @param maxLeases the max number of live leases
+     * @param readTimeout the time after their time to live to release leases whose iterators are not closed, in ms
+     */
+    SearchLeases(int maxLeases, long readTimeout) {
+        this.maxLeases = maxLeases;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Returns the shared search leases, growing their max number of live leases if it is less than the specified one.
+     *
+     * @param maxLeases the min number of live leases
+     * @return the shared search leases
+     */
+    public static synchronized SearchLeases get(int maxLeases) {
+        if (instance == null) {
+            logger.info("Starting Lucene search leases with up to {} leases", maxLeases);
+            instance = new SearchLeases(maxLeases, DatabaseDescriptor.getRangeRpcTimeout());
+            RefreshScheduler.schedule(instance::expire, EXPIRATION_PERIOD_MS, TimeUnit.MILLISECONDS);
+        } else {
+            instance.grow(maxLeases);
+        }
+        return instance;
+    }
+
+    private synchronized void grow(int maxLeases) {
+        if (this.maxLeases < maxLeases) {
+            logger.info("Resizing Lucene search leases to {} leases", maxLeases);
+            this.maxLeases = maxLeases;
+        }
+    }
+
+    /**
+     * Returns the {@link Document}s found by the search identified by the specified key, resuming its lease if there is
+     * one for the specified position. Otherwise, the search is run and leased if there are free leases.
+     *
+     * @param key the key identifying the paged search in all its pages
+     * @param ttl the time to live of the lease after each page, in milliseconds
+     * @param position the position of the last row returned by the previous page, {@code null} for the first page
+     * @param positionOf the function returning the position of a document
+     * @param search the search to be run if there is no lease for {@code position}
+     * @return the found documents
+     */
+    public DocumentIterator search(Object key,
+                                   long ttl,
+                                   Object position,
+                                   Function<Pair<Document, ScoreDoc>, Object> positionOf,
+                                   Supplier<DocumentIterator> search) {
+        Lease lease = acquire(key, ttl);
+        if (lease != null) {
+            List<Pair<Document, ScoreDoc>> replay = lease.resume(position, positionOf);
+            if (replay != null) {
+                Tracer.trace("Lucene index search lease resumed replaying {} documents", replay.size());
+                return new LeasedDocumentIterator(key, ttl, lease, replay);
+            }
+            Tracer.trace("Lucene index search lease discarded because its position is unknown");
+            discard(lease);
+        }
+        if (!reserve()) {
+            Tracer.trace("Lucene index search without lease because there are {} live leases", maxLeases);
+            return search.get();
+        }
+        try {
+            lease = new Lease(key, search.get(), position);
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+        use(lease, ttl);
+        return new LeasedDocumentIterator(key, ttl, lease, Collections.emptyList());
+    }
+
+    private synchronized Lease acquire(Object key, long ttl) {
+        expire();
+        Lease lease = idle.remove(key);
+        if (lease != null) {
+            use(lease, ttl);
+        }
+        return lease;
+    }
+
+    private synchronized boolean reserve() {
+        expire();
+        if (numLeases < maxLeases) {
+            numLeases++;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void release() {
+        numLeases--;
+    }
+
+    private synchronized void use(Lease lease, long ttl) {
+        lease.expiration = System.currentTimeMillis() + ttl + readTimeout;
+        busy.add(lease);
+    }
+
+    private synchronized void park(Object key, Lease lease, long ttl) {
+        if (lease.invalid || lease.discarded) {
+            discard(lease);
+            return;
+        }
+        busy.remove(lease);
+        lease.expiration = System.currentTimeMillis() + ttl;
+        Lease previous = idle.put(key, lease);
+        if (previous != null) {
+            discard(previous);
+        }
+    }
+
+    private synchronized void discard(Lease lease) {
+        busy.remove(lease);
+        if (lease.discard()) {
+            release();
+        }
+    }
+
+    /**
+     * Removes the idle leases that have not been resumed during their time to live, and the leases in use whose
+     * iterator has not been closed during their time to live plus the read timeout, releasing their index searchers.
+     */
+    synchronized void expire() {
+        long now = System.currentTimeMillis();
+        Iterator<Lease> iterator = idle.values().iterator();
+        while (iterator.hasNext()) {
+            Lease lease = iterator.next();
+            if (lease.expiration <= now) {
+                iterator.remove();
+                discard(lease);
+            }
+        }
+        iterator = busy.iterator();
+        while (iterator.hasNext()) {
+            Lease lease = iterator.next();
+            if (lease.expiration <= now) {
+                logger.warn("Releasing search lease whose iterator has not been closed");
+                iterator.remove();
+                discard(lease);
+            }
+        }
+    }
+
+    /**
+     * Removes all the leases whose key satisfies the specified condition, releasing their index searchers. The leases
+     * that are in use are released as soon as their iterators are closed.
+     *
+     * @param condition the condition to be satisfied by the keys of the leases to be removed
+     */
+    public synchronized void invalidate(Predicate<Object> condition) {
+        Iterator<Map.Entry<Object, Lease>> iterator = idle.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Object, Lease> entry = iterator.next();
+            if (condition.test(entry.getKey())) {
+                iterator.remove();
+                discard(entry.getValue());
+            }
+        }
+        for (Lease lease : busy) {
+            if (condition.test(lease.key)) {
+                lease.invalid = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of live leases, both idle and in use.
+     *
+     * @return the number of live leases
+     */
+    public synchronized int size() {
+        return numLeases;
+    }
+
+    /** An open iteration and the documents returned to the reader of its last page. */
+    private static final class Lease {
+
+        private final Object key;
+        private final DocumentIterator documents;
+        private Object start;
+        private List<Pair<Document, ScoreDoc>> returned = new ArrayList<>();
+        private long expiration;
+        private boolean invalid = false;
+        private volatile boolean discarded = false;
+
+        private Lease(Object key, DocumentIterator documents, Object start) {
+            this.key = key;
+            this.documents = documents;
+            this.start = start;
+        }
+
+        /**
+         * Closes the iteration of this lease, if it is not already closed.
+         *
+         * @return {@code true} if the iteration has been closed, {@code false} if it was already closed
+         */
+        private synchronized boolean discard() {
+            if (discarded) {
+                return false;
+            }
+            discarded = true;
+            documents.close();
+            return true;
+        }
+
+        private void check() {
+            if (discarded) {
+                throw new IndexException("Search lease has expired");
+            }
+        }
+
+        /**
+         * Prepares this lease to continue after the specified position.
+         *
+         * @param position the position of the last row returned by the previous page
+         * @param positionOf the function returning the position of a document
+         * @return the already returned documents after {@code position}, {@code null} if it is not found
+         */
+        private List<Pair<Document, ScoreDoc>> resume(Object position,
+                                                      Function<Pair<Document, ScoreDoc>, Object> positionOf) {
+            List<Pair<Document, ScoreDoc>> replay = null;
+            if (Objects.equals(position, start)) {
+                replay = returned;
+            } else if (position != null) {
+                for (int i = 0; i < returned.size(); i++) {
+                    if (position.equals(positionOf.apply(returned.get(i)))) {
+                        replay = returned.subList(i + 1, returned.size());
+                        break;
+                    }
+                }
+            }
+            if (replay != null) {
+                start = position;
+                returned = new ArrayList<>();
+            }
+            return replay;
+        }
+    }
+
+    /** {@link DocumentIterator} replaying the documents of a lease and then continuing its iteration. */
+    private final class LeasedDocumentIterator extends DocumentIterator {
+
+        private final Object key;
+        private final long ttl;
+        private final Lease lease;
+        private final Iterator<Pair<Document, ScoreDoc>> replay;
+        private boolean closed = false;
+
+        private LeasedDocumentIterator(Object key,
+                                       long ttl,
+                                       Lease lease,
+                                       List<Pair<Document, ScoreDoc>> replay) {
+            this.key = key;
+            this.ttl = ttl;
+            this.lease = lease;
+            this.replay = new ArrayList<>(replay).iterator();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            synchronized (lease) {
+                lease.check();
+                return replay.hasNext() || lease.documents.hasNext();
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean needsFetch() {
+            synchronized (lease) {
+                lease.check();
+                return !replay.hasNext() && lease.documents.needsFetch();
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Pair<Document, ScoreDoc> next() {
+            synchronized (lease) {
+                lease.check();
+                Pair<Document, ScoreDoc> next = replay.hasNext() ? replay.next() : lease.documents.next();
+                lease.returned.add(next);
+                return next;
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                park(key, lease, ttl);
+            }
+        }
+    }
+}
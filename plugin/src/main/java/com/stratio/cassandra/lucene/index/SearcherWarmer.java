@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import com.google.common.base.MoreObjects;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Warms up new {@link IndexSearcher}s before they are published by running the most frequent recent searches against
+ * them, so the first searches after a refresh don't pay for loading the doc values, the sort ordinals and the cached
+ * filters of the new segments. The searches are sampled from live traffic, and their frequencies are halved after each
+ * warming, so the sample follows the recent traffic.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+class SearcherWarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearcherWarmer.class);
+
+    /** The max number of distinct sampled searches. */
+    static final int MAX_SAMPLES = 1000;
+
+    private final String name;
+    private final int queries;
+    private final Map<Sample, AtomicLong> samples = new ConcurrentHashMap<>();
+
+    /**
+     * Builds a new {@link SearcherWarmer}.
+     *
+     * @param name the index name
+     * @param queries the number of searches to be run on each new searcher, {@code 0} means no warming
+     */
+    SearcherWarmer(String name, int queries) {
+        this.name = name;
+        this.queries = queries;
+    }
+
+    /**
+     * Records the specified search in the sample of live traffic.
+     *
+     * @param query the searched query
+     * @param sort the sort of the search, {@code null} for no sort
+     */
+    void sample(Query query, Sort sort) {
+        if (queries > 0) {
+            Sample sample = new Sample(query, sort);
+            AtomicLong count = samples.get(sample);
+            if (count == null && samples.size() < MAX_SAMPLES) {
+                count = samples.computeIfAbsent(sample, s -> new AtomicLong());
+            }
+            if (count != null) {
+                count.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Returns the sampled searches to be run by the next warming, the most frequent first.
+     *
+     * @return the most frequent sampled searches
+     */
+    List<Sample> top() {
+        return samples.entrySet()
+                      .stream()
+                      .sorted((e1, e2) -> Long.compare(e2.getValue().get(), e1.getValue().get()))
+                      .limit(queries)
+                      .map(Map.Entry::getKey)
+                      .collect(toList());
+    }
+
+    /**
+     * Runs the most frequent sampled searches against the specified searcher and decays the sampled frequencies.
+     * Failed searches are logged and ignored.
+     *
+     * @param searcher the searcher to be warmed
+     */
+    void warm(IndexSearcher searcher) {
+        if (queries > 0 && !samples.isEmpty()) {
+            long start = System.nanoTime();
+            List<Sample> top = top();
+            samples.values().forEach(count -> count.updateAndGet(c -> c / 2));
+            samples.values().removeIf(count -> count.get() == 0);
+            for (Sample sample : top) {
+                try {
+                    sample.run(searcher);
+                } catch (Exception e) {
+                    logger.warn("Error warming {} with {}", name, sample, e);
+                }
+            }
+            logger.debug("Warmed {} with {} searches in {} ms",
+                         name, top.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * A sampled search.
+     */
+    static final class Sample {
+
+        private final Query query;
+        private final Sort sort;
+
+        private Sample(Query query, Sort sort) {
+            this.query = query;
+            this.sort = sort;
+        }
+
+        private void run(IndexSearcher searcher) throws IOException {
+            if (sort == null) {
+                searcher.search(query, 1);
+            } else {
+                searcher.search(query, 1, sort);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Sample sample = (Sample) o;
+            return query.equals(sample.query) && Objects.equals(sort, sample.sort);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, sort);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this).add("query", query).add("sort", sort).toString();
+        }
+    }
+}
@@ -0,0 +1,632 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Class wrapping several {@link FSIndex}s, each of them containing a disjoint subset of the indexed documents. The
+ * documents are routed to their shard by the caller, and searches are run in parallel over the involved shards.
+ *
+ * An index with a single shard uses the base directory path, so it is fully compatible with a plain {@link FSIndex}.
+ * If the existing files of the index have been written with a different number of shards, they are deleted, and the
+ * index should be rebuilt.
+ *
+ * The shards are searched concurrently with the node-wide {@link SearchExecutor}, which is grown to have at least as
+ * many threads as shards.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class ShardedFSIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedFSIndex.class);
+
+    private static final String SHARD_DIR_PREFIX = "shard_";
+
+    private final String name;
+    private final Path path;
+    private final List<FSIndex> shards;
+    private final ExecutorService searchPool;
+    private final boolean needsRebuild;
+    private final AtomicLong generation = new AtomicLong();
+    private final List<LongConsumer> refreshListeners = new CopyOnWriteArrayList<>();
+    private final LongAdder skippedDocs = new LongAdder();
+
+    private Sort mergeSort;
+    private Set<String> fields;
+
+    /**
+     * Builds a new {@link ShardedFSIndex}.
+     *
+     * @param name the index name
+     * @param path the directory path
+     * @param analyzer the index writer analyzer
+     * @param refresh the index reader refresh frequency in seconds
+     * @param ramBufferMB the index writer RAM buffer size in MB
+     * @param maxMergeMB the directory max merge size in MB
+     * @param maxCachedMB the directory max cache size in MB
+     * @param searchThreads the number of threads to search index segments concurrently, {@code 0} means sequential
+     * @param numShards the number of index shards
+     * @param directoryType the type of the file system directories
+     * @param directoryPreload if memory-mapped files should be loaded into physical memory when they are opened
+     * @param warmingQueries the number of recent searches to be run on each new searcher before publishing it
+     */
+    public ShardedFSIndex(String name,
+                          Path path,
+                          Analyzer analyzer,
+                          double refresh,
+                          int ramBufferMB,
+                          int maxMergeMB,
+                          int maxCachedMB,
+                          int searchThreads,
+                          int numShards,
+                          DirectoryType directoryType,
+                          boolean directoryPreload,
+                          int warmingQueries) {
+        this.name = name;
+        this.path = path;
+        needsRebuild = deleteIfResharded(name, path, numShards);
+        shards = new ArrayList<>(numShards);
+        if (numShards == 1) {
+            shards.add(new FSIndex(name,
+                                   path,
+                                   analyzer,
+                                   refresh,
+                                   ramBufferMB,
+                                   maxMergeMB,
+                                   maxCachedMB,
+                                   searchThreads,
+                                   directoryType,
+                                   directoryPreload,
+                                   warmingQueries));
+            searchPool = null;
+        } else {
+            for (int i = 0; i < numShards; i++) {
+                String shardName = String.format("%s[%d]", name, i);
+                Path shardPath = path.resolve(SHARD_DIR_PREFIX + i);
+                shards.add(new FSIndex(shardName,
+                                       shardPath,
+                                       analyzer,
+                                       refresh,
+                                       ramBufferMB,
+                                       maxMergeMB,
+                                       maxCachedMB,
+                                       searchThreads,
+                                       directoryType,
+                                       directoryPreload,
+                                       warmingQueries));
+            }
+            searchPool = SearchExecutor.get(numShards);
+        }
+    }
+
+    /**
+     * Deletes the files in the specified index directory if they have been written with a number of shards other than
+     * the specified one, so the index can be rebuilt with the new number of shards.
+     *
+     * @param name the index name
+     * @param path the directory path
+     * @param numShards the number of index shards
+     * @return {@code true} if the existing files have been deleted, {@code false} otherwise
+     */
+    static boolean deleteIfResharded(String name, Path path, int numShards) {
+        File[] files = path.toFile().listFiles();
+        if (files == null) {
+            return false;
+        }
+        boolean plain = false;
+        int sharded = 0;
+        for (File file : files) {
+            String fileName = file.getName();
+            if (file.isDirectory() && fileName.startsWith(SHARD_DIR_PREFIX)) {
+                sharded++;
+            } else if (fileName.startsWith(IndexFileNames.SEGMENTS)) {
+                plain = true;
+            }
+        }
+        int existingShards = plain ? 1 : sharded;
+        if (existingShards == 0 || (existingShards == numShards && (plain || numShards > 1))) {
+            return false;
+        }
+        logger.warn("Index {} has been written with {} shards instead of {}, deleting it to be rebuilt",
+                    name, existingShards, numShards);
+        for (File file : files) {
+            FileUtils.deleteRecursive(file);
+        }
+        return true;
+    }
+
+    /**
+     * Returns if the existing files of this index have been deleted because they were written with a different number
+     * of shards, so the index should be rebuilt.
+     *
+     * @return {@code true} if the index should be rebuilt, {@code false} otherwise
+     */
+    public boolean needsRebuild() {
+        return needsRebuild;
+    }
+
+    /**
+     * Returns the number of shards of this index.
+     *
+     * @return the number of shards
+     */
+    public int getNumShards() {
+        return shards.size();
+    }
+
+    /**
+     * Initializes all the shards with the specified merge sort and fields to be loaded.
+     *
+     * @param mergeSort the sort to be applied to the index during merges
+     * @param fields the names of the document fields to be loaded
+     */
+    public void init(Sort mergeSort, Set<String> fields) {
+        this.mergeSort = mergeSort;
+        this.fields = fields;
+        shards.forEach(shard -> {
+            shard.init(mergeSort, fields);
+            shard.addRefreshListener(this::afterRefresh);
+        });
+    }
+
+    private void afterRefresh(long nanos) {
+        generation.incrementAndGet();
+        refreshListeners.forEach(listener -> listener.accept(nanos));
+    }
+
+    /**
+     * Returns the generation of the index searchers, which is increased each time any shard is refreshed with new
+     * changes. Search results obtained with the same generation are based on the same index readers.
+     *
+     * @return the searchers generation
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Adds a listener to be notified each time any shard is refreshed with new changes.
+     *
+     * @param listener the listener to be run after each effective refresh
+     */
+    public void addRefreshListener(Runnable listener) {
+        refreshListeners.add(nanos -> listener.run());
+    }
+
+    /**
+     * Adds a listener to be notified with the duration in nanoseconds of each refresh of any shard with new changes.
+     *
+     * @param listener the listener to be run after each effective refresh with its duration in nanoseconds
+     */
+    public void addRefreshTimeListener(LongConsumer listener) {
+        refreshListeners.add(listener);
+    }
+
+    /**
+     * Upserts the specified {@link Document} in the specified shard.
+     *
+     * @param shard the shard containing the document
+     * @param term the {@link Term} to identify the document(s) to be deleted
+     * @param document the {@link Document} to be added
+     * @see FSIndex#upsert(Term, Document)
+     */
+    public void upsert(int shard, Term term, Document document) {
+        shards.get(shard).upsert(term, document);
+    }
+
+    /**
+     * Deletes all the {@link Document}s containing the specified {@link Term} from the specified shard.
+     *
+     * @param shard the shard containing the documents
+     * @param term the {@link Term} identifying the documents to be deleted
+     */
+    public void delete(int shard, Term term) {
+        shards.get(shard).delete(term);
+    }
+
+    /**
+     * Deletes all the {@link Document}s satisfying the specified {@link Query} from all the shards.
+     *
+     * @param query the {@link Query} identifying the documents to be deleted
+     */
+    public void delete(Query query) {
+        shards.forEach(shard -> shard.delete(query));
+    }
+
+    /**
+     * Deletes all the {@link Document}s.
+     */
+    public void truncate() {
+        shards.forEach(FSIndex::truncate);
+    }
+
+    /**
+     * Waits until the index readers of the specified shards are refreshed to include all the writes already applied to
+     * them, without blocking further writes.
+     *
+     * @param shards the shards to be waited for
+     * @param timeout the max time to wait, in milliseconds
+     * @see FSIndex#waitForGeneration(long, long)
+     */
+    public void waitForWrites(List<Integer> shards, long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        for (int shard : shards) {
+            FSIndex index = this.shards.get(shard);
+            index.waitForGeneration(index.getWriteGeneration(), deadline - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Commits the pending changes.
+     */
+    public void commit() {
+        shards.forEach(FSIndex::commit);
+    }
+
+    /**
+     * Commits all changes to the index, waits for pending merges to complete, and closes all associated resources.
+     */
+    public void close() {
+        shards.forEach(FSIndex::close);
+    }
+
+    /**
+     * Closes the index and removes all its files.
+     */
+    public void delete() {
+        try {
+            shards.forEach(FSIndex::delete);
+        } finally {
+            if (shards.size() > 1) {
+                FileUtils.deleteRecursive(path.toFile());
+            }
+        }
+        logger.info("Deleted {}", name);
+    }
+
+    /**
+     * Finds the top {@code count} hits for {@code query} in the specified shards, sorting the hits by {@code sort}.
+     *
+     * @param shards the shards to be searched
+     * @param after a query to find the last retrieved document, {@code null} to start from the beginning
+     * @param query the {@link Query} to search for
+     * @param sort the {@link Sort} to be applied
+     * @param count the max number of results to be collected
+     * @return the found documents, sorted according to the supplied {@link Sort} instance
+     */
+    public DocumentIterator search(List<Integer> shards, Query after, Query query, Sort sort, int count) {
+        if (shards.size() == 1) {
+            return this.shards.get(shards.get(0)).search(after, query, sort, count);
+        }
+        logger.debug("Searching in {} shards {}\n" +
+                     "after: {}\n" +
+                     "query: {}\n" +
+                     " sort: {}\n" +
+                     "count: {}", name, shards, after, query, sort, count);
+        List<SearcherManager> managers = shards.stream()
+                                               .map(this.shards::get)
+                                               .peek(shard -> shard.sample(query, sort))
+                                               .map(FSIndex::searcherManager)
+                                               .collect(toList());
+        return new DocumentIterator(managers, searchPool, mergeSort, after, query, sort, count, fields, skippedDocs);
+    }
+
+    /**
+     * Finds the top {@code count} hits for {@code query} in the specified shards, sorting the hits by {@code sort} and
+     * starting after the specified sort values.
+     *
+     * @param shards the shards to be searched
+     * @param after the sort values of the last retrieved document
+     * @param query the {@link Query} to search for
+     * @param sort the {@link Sort} to be applied
+     * @param count the max number of results to be collected
+     * @return the found documents, sorted according to the supplied {@link Sort} instance
+     */
+    public DocumentIterator searchAfter(List<Integer> shards, FieldDoc after, Query query, Sort sort, int count) {
+        if (shards.size() == 1) {
+            return this.shards.get(shards.get(0)).searchAfter(after, query, sort, count);
+        }
+        logger.debug("Searching in {} shards {}\n" +
+                     "after: {}\n" +
+                     "query: {}\n" +
+                     " sort: {}\n" +
+                     "count: {}", name, shards, after, query, sort, count);
+        List<SearcherManager> managers = shards.stream()
+                                               .map(this.shards::get)
+                                               .peek(shard -> shard.sample(query, sort))
+                                               .map(FSIndex::searcherManager)
+                                               .collect(toList());
+        return new DocumentIterator(managers, searchPool, mergeSort, after, query, sort, count, fields, skippedDocs);
+    }
+
+    /**
+     * Returns the total number of {@link Document}s in this index.
+     *
+     * @return the number of {@link Document}s
+     */
+    public int getNumDocs() {
+        return shards.stream().mapToInt(FSIndex::getNumDocs).sum();
+    }
+
+    /**
+     * Returns the number of {@link Document}s matching the specified {@link Query} in the specified shards, without
+     * collecting them.
+     *
+     * @param shards the shards to be searched
+     * @param query a query
+     * @return the number of hits
+     */
+    public long count(List<Integer> shards, Query query) {
+        return shards.stream().mapToLong(shard -> this.shards.get(shard).count(query)).sum();
+    }
+
+    /**
+     * Collects all the {@link Document}s matching the specified {@link Query} in the specified shards with the
+     * specified {@link Collector}, which is fed with the hits of one shard after another.
+     *
+     * @param shards the shards to be searched
+     * @param query a query
+     * @param collector the collector to be fed with the hits
+     */
+    public void search(List<Integer> shards, Query query, Collector collector) {
+        shards.forEach(shard -> this.shards.get(shard).search(query, collector));
+    }
+
+    /**
+     * Returns the estimated number of {@link Document}s matching the specified {@link Query} in all the shards,
+     * computed from the term statistics of the index without running the query.
+     *
+     * @param query a query
+     * @return the estimated number of hits
+     */
+    public long estimateHits(Query query) {
+        return shards.stream().mapToLong(shard -> shard.estimateHits(query)).sum();
+    }
+
+    /**
+     * Returns the total number of deleted {@link Document}s in this index.
+     *
+     * @return the number of deleted {@link Document}s
+     */
+    public int getNumDeletedDocs() {
+        return shards.stream().mapToInt(FSIndex::getNumDeletedDocs).sum();
+    }
+
+    /**
+     * Returns the total number of index slices searched concurrently.
+     *
+     * @return the number of searched slices
+     */
+    public long getSearchSlices() {
+        return shards.stream().mapToLong(FSIndex::getSearchSlices).sum();
+    }
+
+    /**
+     * Returns the total time spent searching index slices concurrently, in nanoseconds.
+     *
+     * @return the slices search time in nanoseconds
+     */
+    public long getSearchSlicesTime() {
+        return shards.stream().mapToLong(FSIndex::getSearchSlicesTime).sum();
+    }
+
+    /**
+     * Returns the total size of the currently open memory-mapped index files.
+     *
+     * @return the number of mapped bytes
+     */
+    public long getMappedBytes() {
+        return shards.stream().mapToLong(FSIndex::getMappedBytes).sum();
+    }
+
+    /**
+     * Returns the total number of timed bulk reads from the file system directories, which are a sample of all the
+     * reads.
+     *
+     * @return the number of sampled directory reads
+     */
+    public long getDirectoryReads() {
+        return shards.stream().mapToLong(FSIndex::getDirectoryReads).sum();
+    }
+
+    /**
+     * Returns the total time spent in the timed bulk reads from the file system directories, in nanoseconds.
+     *
+     * @return the sampled directory reads time in nanoseconds
+     */
+    public long getDirectoryReadsTime() {
+        return shards.stream().mapToLong(FSIndex::getDirectoryReadsTime).sum();
+    }
+
+    /**
+     * Returns the total number of non-competitive documents skipped by relevance searches without scoring them.
+     *
+     * @return the number of skipped documents
+     */
+    public long getSkippedDocs() {
+        return skippedDocs.sum() + shards.stream().mapToLong(FSIndex::getSkippedDocs).sum();
+    }
+
+    /**
+     * Returns the total number of segment merges that have been completed in all the shards.
+     *
+     * @return the number of merges
+     */
+    public long getMerges() {
+        return shards.stream().mapToLong(FSIndex::getMerges).sum();
+    }
+
+    /**
+     * Returns the total time spent in segment merges in all the shards, in nanoseconds.
+     *
+     * @return the merges time in nanoseconds
+     */
+    public long getMergesTime() {
+        return shards.stream().mapToLong(FSIndex::getMergesTime).sum();
+    }
+
+    /**
+     * Returns the total size of the segments that have been merged in all the shards, in bytes.
+     *
+     * @return the number of merged bytes
+     */
+    public long getMergedBytes() {
+        return shards.stream().mapToLong(FSIndex::getMergedBytes).sum();
+    }
+
+    /**
+     * Returns the number of segment merges currently running in all the shards.
+     *
+     * @return the number of running merges
+     */
+    public int getRunningMerges() {
+        return shards.stream().mapToInt(FSIndex::getRunningMerges).sum();
+    }
+
+    /**
+     * Returns the RAM used by the indexing buffers of all the shards.
+     *
+     * @return the used RAM in bytes
+     */
+    public long getRAMBufferBytes() {
+        return shards.stream().mapToLong(FSIndex::getRAMBufferBytes).sum();
+    }
+
+    /**
+     * Returns the number of flushes of the indexing buffers of all the shards done to keep the node-wide indexing RAM
+     * under its budget.
+     *
+     * @return the number of buffer flushes
+     */
+    public long getBufferFlushes() {
+        return shards.stream().mapToLong(FSIndex::getBufferFlushes).sum();
+    }
+
+    /**
+     * Returns the max staleness of all the shards, that is, the time since the least recently refreshed shard with
+     * writes not yet visible to searches was refreshed, in nanoseconds.
+     *
+     * @return the staleness in nanoseconds, {@code 0} if all the writes are visible to searches
+     */
+    public long getStaleness() {
+        return shards.stream().mapToLong(FSIndex::getStaleness).max().orElse(0);
+    }
+
+    /**
+     * Returns the number of segment merges of all the shards waiting to be run because merges are paused or because the
+     * node has reached its max number of running merges.
+     *
+     * @return the number of waiting merges
+     */
+    public int getWaitingMerges() {
+        return shards.stream().mapToInt(FSIndex::getWaitingMerges).sum();
+    }
+
+    /**
+     * Pauses the segment merges of all the shards that have not started yet.
+     */
+    public void pauseMerges() {
+        shards.forEach(FSIndex::pauseMerges);
+    }
+
+    /**
+     * Resumes the paused segment merges of all the shards.
+     */
+    public void resumeMerges() {
+        shards.forEach(FSIndex::resumeMerges);
+    }
+
+    /**
+     * Returns if the segment merges of all the shards are paused.
+     *
+     * @return {@code true} if merges are paused, {@code false} otherwise
+     */
+    public boolean isMergesPaused() {
+        return shards.stream().allMatch(FSIndex::isMergesPaused);
+    }
+
+    /**
+     * Sets if the segment merges of all the shards should take the free merge slots of the node before the merges of
+     * the not prioritized indexes.
+     *
+     * @param mergePriority {@code true} if merges should be prioritized, {@code false} otherwise
+     */
+    public void setMergePriority(boolean mergePriority) {
+        shards.forEach(shard -> shard.setMergePriority(mergePriority));
+    }
+
+    /**
+     * Returns if the segment merges of all the shards are prioritized.
+     *
+     * @return {@code true} if merges are prioritized, {@code false} otherwise
+     */
+    public boolean isMergePriority() {
+        return shards.stream().allMatch(FSIndex::isMergePriority);
+    }
+
+    /**
+     * Optimizes all the shards forcing merge segments leaving the specified number of segments per shard. This
+     * operation may block until all merging completes.
+     *
+     * @param maxNumSegments the maximum number of segments left in each shard after merging finishes
+     * @param doWait {@code true} if the call should block until the operation completes
+     */
+    public void forceMerge(int maxNumSegments, boolean doWait) {
+        shards.forEach(shard -> shard.forceMerge(maxNumSegments, doWait));
+    }
+
+    /**
+     * Optimizes all the shards forcing merge of all segments that have deleted documents. This operation may block
+     * until all merging completes.
+     *
+     * @param doWait {@code true} if the call should block until the operation completes
+     */
+    public void forceMergeDeletes(boolean doWait) {
+        shards.forEach(shard -> shard.forceMergeDeletes(doWait));
+    }
+
+    /**
+     * Refreshes the index readers of all the shards.
+     */
+    public void refresh() {
+        shards.forEach(FSIndex::refresh);
+    }
+}
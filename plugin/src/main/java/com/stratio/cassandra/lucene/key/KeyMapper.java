@@ -64,7 +64,6 @@ public final class KeyMapper {
         FIELD_TYPE.setOmitNorms(true);
         FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
         FIELD_TYPE.setTokenized(false);
-        FIELD_TYPE.setStored(true);
         FIELD_TYPE.setDocValuesType(DocValuesType.SORTED);
         FIELD_TYPE.freeze();
     }
@@ -56,7 +56,6 @@ public final class PartitionMapper {
         FIELD_TYPE.setOmitNorms(true);
         FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
         FIELD_TYPE.setTokenized(false);
-        FIELD_TYPE.setStored(true);
         FIELD_TYPE.setDocValuesType(DocValuesType.SORTED);
         FIELD_TYPE.freeze();
     }
@@ -36,6 +36,8 @@ import org.apache.lucene.util.NumericUtils;
 
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -198,6 +200,44 @@ public final class TokenMapper {
         return new TermQuery(new Term(FIELD_NAME, bytesRef(token)));
     }
 
+    /**
+     * Returns the index shard owning the specified {@link Token} when the token ring is split into the specified number
+     * of contiguous and equally sized ranges.
+     *
+     * @param token a Murmur3 token
+     * @param numShards the number of index shards
+     * @return the shard owning {@code token}, between {@code 0} and {@code numShards - 1}
+     */
+    public static int shard(Token token, int numShards) {
+        if (numShards <= 1 || token.isMinimum()) {
+            return 0;
+        }
+        long offset = (value(token) >> 32) + (1L << 31); // Range [0, 2^32)
+        return (int) ((offset * numShards) >>> 32);
+    }
+
+    /**
+     * Returns the index shards containing the tokens between the specified bounds.
+     *
+     * @param lower the lower token, the minimum token means no lower limit
+     * @param upper the upper token, the minimum token means no upper limit
+     * @param numShards the number of index shards
+     * @return the shards overlapping the token range
+     */
+    public static List<Integer> shards(Token lower, Token upper, int numShards) {
+        int first = lower.isMinimum() ? 0 : shard(lower, numShards);
+        int last = upper.isMinimum() ? numShards - 1 : shard(upper, numShards);
+        if (first > last) { // Wrapping range
+            first = 0;
+            last = numShards - 1;
+        }
+        List<Integer> shards = new ArrayList<>(last - first + 1);
+        for (int shard = first; shard <= last; shard++) {
+            shards.add(shard);
+        }
+        return shards;
+    }
+
     private static final BigInteger OFFSET = BigInteger.valueOf(Long.MIN_VALUE).negate();
 
     /**
@@ -24,7 +24,6 @@ import com.stratio.cassandra.lucene.util.GeospatialUtils;
 import org.apache.cassandra.db.marshal.*;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.document.StoredField;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.spatial.SpatialStrategy;
@@ -123,8 +122,6 @@ public class GeoPointMapper extends Mapper {
         for (IndexableField indexableField : bboxStrategy.createIndexableFields(point)) {
             document.add(indexableField);
         }
-
-        document.add(new StoredField(distanceStrategy.getFieldName(), point.getX() + " " + point.getY()));
     }
 
     /** {@inheritDoc} */
@@ -43,7 +43,10 @@ public abstract class Mapper {
     /** A no-action getAnalyzer for not tokenized {@link Mapper} implementations. */
     static final String KEYWORD_ANALYZER = StandardAnalyzers.KEYWORD.toString();
 
-    /** The store field in Lucene default option. */
+    /**
+     * The store field in Lucene default option. Mapped values are never stored, they are only indexed and/or written as
+     * doc values, because rows are always read back from Cassandra.
+     */
     public static final Store STORE = Store.NO;
 
     /** If the field must be validated when no specified. */
@@ -18,6 +18,7 @@ package com.stratio.cassandra.lucene.search;
 import com.google.common.base.MoreObjects;
 import com.stratio.cassandra.lucene.IndexPagingState;
 import com.stratio.cassandra.lucene.schema.Schema;
+import com.stratio.cassandra.lucene.search.aggregation.Aggregation;
 import com.stratio.cassandra.lucene.search.condition.Condition;
 import com.stratio.cassandra.lucene.search.sort.SortField;
 import org.apache.lucene.search.BooleanQuery;
@@ -29,6 +30,7 @@ import org.slf4j.LoggerFactory;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -61,6 +63,12 @@ public class Search {
     /** The paging state. */
     private final IndexPagingState paging;
 
+    /** The aggregations to be computed over the matched rows, by name. */
+    private final Map<String, Aggregation> aggregations;
+
+    /** The Lucene queries of the conditions, lazily built for the last used schema. */
+    private volatile ConditionQueries conditionQueries;
+
     /**
      * Constructor using the specified querying, filtering, sorting and refresh options.
      *
@@ -75,11 +83,31 @@ public class Search {
                   List<SortField> sort,
                   IndexPagingState paging,
                   Boolean refresh) {
+        this(filter, query, sort, paging, refresh, null);
+    }
+
+    /**
+     * Constructor using the specified querying, filtering, sorting, refresh and aggregation options.
+     *
+     * @param filter the filtering {@link Condition}s not involved in scoring
+     * @param query the querying {@link Condition}s participating in scoring
+     * @param sort the sort fields for the query
+     * @param paging the paging state
+     * @param refresh if this search must refresh the index before reading it
+     * @param aggregations the aggregations to be computed over the matched rows, by name
+     */
+    public Search(List<Condition> filter,
+                  List<Condition> query,
+                  List<SortField> sort,
+                  IndexPagingState paging,
+                  Boolean refresh,
+                  Map<String, Aggregation> aggregations) {
         this.filter = filter == null ? Collections.EMPTY_LIST : filter;
         this.query = query == null ? Collections.EMPTY_LIST : query;
         this.sort = sort == null ? Collections.EMPTY_LIST : sort;
         this.paging = paging;
         this.refresh = refresh == null ? DEFAULT_FORCE_REFRESH : refresh;
+        this.aggregations = aggregations == null ? Collections.emptyMap() : aggregations;
     }
 
     /**
@@ -136,13 +164,14 @@ public class Search {
      */
     public Query query(Schema schema, Query range) {
 
+        ConditionQueries queries = conditionQueries(schema);
         BooleanQuery.Builder builder = new BooleanQuery.Builder();
         if (range != null) {
             builder.add(range, FILTER);
         }
 
-        filter.forEach(condition -> builder.add(condition.query(schema), FILTER));
-        query.forEach(condition -> builder.add(condition.query(schema), MUST));
+        queries.filter.forEach(query -> builder.add(query, FILTER));
+        queries.query.forEach(query -> builder.add(query, MUST));
 
         BooleanQuery booleanQuery = builder.build();
         return booleanQuery.clauses().isEmpty() ? new MatchAllDocsQuery() : booleanQuery;
@@ -153,11 +182,29 @@ public class Search {
             return new MatchAllDocsQuery();
         } else {
             BooleanQuery.Builder builder = new BooleanQuery.Builder();
-            query.forEach(condition -> builder.add(condition.query(schema), MUST));
+            conditionQueries(schema).query.forEach(query -> builder.add(query, MUST));
             return builder.build();
         }
     }
 
+    /**
+     * Returns the Lucene {@link Query}s of the filtering and querying conditions using the specified schema. The
+     * queries are built only once per schema, so searches reused across requests don't pay the build cost again.
+     *
+     * @param schema the indexing schema
+     * @return the conditions queries
+     */
+    private ConditionQueries conditionQueries(Schema schema) {
+        ConditionQueries queries = conditionQueries;
+        if (queries == null || queries.schema != schema) {
+            queries = new ConditionQueries(schema,
+                                           filter.stream().map(c -> c.query(schema)).collect(Collectors.toList()),
+                                           query.stream().map(c -> c.query(schema)).collect(Collectors.toList()));
+            conditionQueries = queries;
+        }
+        return queries;
+    }
+
     /**
      * Returns if this search needs to refresh the index before reading it.
      *
@@ -181,6 +228,24 @@ public class Search {
         return paging;
     }
 
+    /**
+     * Returns if this search computes aggregations over the matched rows instead of returning them.
+     *
+     * @return {@code true} if this search computes aggregations, {@code false} otherwise
+     */
+    public boolean usesAggregations() {
+        return !aggregations.isEmpty();
+    }
+
+    /**
+     * Returns the aggregations to be computed over the matched rows, by name.
+     *
+     * @return the aggregations by name
+     */
+    public Map<String, Aggregation> aggregations() {
+        return aggregations;
+    }
+
     /**
      * Returns the names of the involved fields when post processing.
      *
@@ -199,9 +264,9 @@ public class Search {
      * @param schema a {@link Schema}
      */
     public void validate(Schema schema) {
-        filter.forEach(condition -> condition.query(schema));
-        query.forEach(condition -> condition.query(schema));
+        conditionQueries(schema);
         sort.forEach(field -> field.sortField(schema));
+        aggregations.values().forEach(aggregation -> aggregation.validate(schema));
     }
 
     /** {@inheritDoc} */
@@ -213,6 +278,21 @@ public class Search {
                           .add("sort", sort)
                           .add("refresh", refresh)
                           .add("paging", paging)
+                          .add("aggregations", aggregations)
                           .toString();
     }
+
+    /** The Lucene queries of the conditions of a search built with a certain schema. */
+    private static final class ConditionQueries {
+
+        private final Schema schema;
+        private final List<Query> filter;
+        private final List<Query> query;
+
+        private ConditionQueries(Schema schema, List<Query> filter, List<Query> query) {
+            this.schema = schema;
+            this.filter = filter;
+            this.query = query;
+        }
+    }
 }
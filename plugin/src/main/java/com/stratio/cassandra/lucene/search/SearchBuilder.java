@@ -17,6 +17,8 @@ package com.stratio.cassandra.lucene.search;
 
 import com.stratio.cassandra.lucene.IndexException;
 import com.stratio.cassandra.lucene.IndexPagingState;
+import com.stratio.cassandra.lucene.search.aggregation.Aggregation;
+import com.stratio.cassandra.lucene.search.aggregation.builder.AggregationBuilder;
 import com.stratio.cassandra.lucene.search.condition.builder.ConditionBuilder;
 import com.stratio.cassandra.lucene.search.sort.builder.SortFieldBuilder;
 import com.stratio.cassandra.lucene.util.Builder;
@@ -26,8 +28,10 @@ import org.codehaus.jackson.annotate.JsonProperty;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.stream.Collectors.toList;
 
@@ -57,6 +61,10 @@ public class SearchBuilder implements Builder<Search> {
     @JsonProperty("paging")
     private String paging;
 
+    /** The {@link AggregationBuilder}s for the aggregations to be computed, by name. */
+    @JsonProperty("aggregations")
+    private Map<String, AggregationBuilder<?>> aggregations;
+
     /** Default constructor. */
     SearchBuilder() {
     }
@@ -118,6 +126,21 @@ public class SearchBuilder implements Builder<Search> {
         return this;
     }
 
+    /**
+     * Adds the specified named aggregation to be computed over the matched rows instead of returning them.
+     *
+     * @param name the name of the aggregation in the results
+     * @param builder the aggregation to be added
+     * @return this builder with the specified aggregation
+     */
+    public SearchBuilder aggregation(String name, AggregationBuilder<?> builder) {
+        if (aggregations == null) {
+            aggregations = new LinkedHashMap<>();
+        }
+        aggregations.put(name, builder);
+        return this;
+    }
+
     /**
      * Returns the {@link Search} represented by this builder.
      *
@@ -129,7 +152,17 @@ public class SearchBuilder implements Builder<Search> {
                           query.stream().map(ConditionBuilder::build).collect(toList()),
                           sort.stream().map(SortFieldBuilder::build).collect(toList()),
                           paging == null ? null : IndexPagingState.build(ByteBufferUtils.byteBuffer(paging)),
-                          refresh);
+                          refresh,
+                          aggregations());
+    }
+
+    private Map<String, Aggregation> aggregations() {
+        if (aggregations == null) {
+            return null;
+        }
+        Map<String, Aggregation> built = new LinkedHashMap<>();
+        aggregations.forEach((name, builder) -> built.put(name, builder.build()));
+        return built;
     }
 
     /**
@@ -15,6 +15,10 @@
  */
 package com.stratio.cassandra.lucene.search;
 
+import com.stratio.cassandra.lucene.search.aggregation.builder.DateHistogramAggregationBuilder;
+import com.stratio.cassandra.lucene.search.aggregation.builder.HistogramAggregationBuilder;
+import com.stratio.cassandra.lucene.search.aggregation.builder.MetricAggregationBuilder;
+import com.stratio.cassandra.lucene.search.aggregation.builder.TermsAggregationBuilder;
 import com.stratio.cassandra.lucene.search.condition.builder.*;
 import com.stratio.cassandra.lucene.search.sort.builder.GeoDistanceSortFieldBuilder;
 import com.stratio.cassandra.lucene.search.sort.builder.SimpleSortFieldBuilder;
@@ -293,4 +297,76 @@ public final class SearchBuilders {
     public static BitemporalConditionBuilder bitemporal(String field) {
         return new BitemporalConditionBuilder(field);
     }
+
+    /**
+     * Returns a new {@link TermsAggregationBuilder} for the specified field.
+     *
+     * @param field the name of the field to be aggregated
+     * @return a new terms aggregation builder
+     */
+    public static TermsAggregationBuilder terms(String field) {
+        return new TermsAggregationBuilder(field);
+    }
+
+    /**
+     * Returns a new {@link HistogramAggregationBuilder} for the specified field and interval.
+     *
+     * @param field the name of the field to be aggregated
+     * @param interval the width of the buckets
+     * @return a new histogram aggregation builder
+     */
+    public static HistogramAggregationBuilder histogram(String field, double interval) {
+        return new HistogramAggregationBuilder(field, interval);
+    }
+
+    /**
+     * Returns a new {@link DateHistogramAggregationBuilder} for the specified field and interval.
+     *
+     * @param field the name of the field to be aggregated
+     * @param interval the width of the buckets, for example {@code 1d}
+     * @return a new date histogram aggregation builder
+     */
+    public static DateHistogramAggregationBuilder dateHistogram(String field, String interval) {
+        return new DateHistogramAggregationBuilder(field, interval);
+    }
+
+    /**
+     * Returns a new {@link MetricAggregationBuilder} for the min value of the specified field.
+     *
+     * @param field the name of the field to be aggregated
+     * @return a new min aggregation builder
+     */
+    public static MetricAggregationBuilder min(String field) {
+        return new MetricAggregationBuilder.Min(field);
+    }
+
+    /**
+     * Returns a new {@link MetricAggregationBuilder} for the max value of the specified field.
+     *
+     * @param field the name of the field to be aggregated
+     * @return a new max aggregation builder
+     */
+    public static MetricAggregationBuilder max(String field) {
+        return new MetricAggregationBuilder.Max(field);
+    }
+
+    /**
+     * Returns a new {@link MetricAggregationBuilder} for the sum of the values of the specified field.
+     *
+     * @param field the name of the field to be aggregated
+     * @return a new sum aggregation builder
+     */
+    public static MetricAggregationBuilder sum(String field) {
+        return new MetricAggregationBuilder.Sum(field);
+    }
+
+    /**
+     * Returns a new {@link MetricAggregationBuilder} for the average of the values of the specified field.
+     *
+     * @param field the name of the field to be aggregated
+     * @return a new avg aggregation builder
+     */
+    public static MetricAggregationBuilder avg(String field) {
+        return new MetricAggregationBuilder.Avg(field);
+    }
 }
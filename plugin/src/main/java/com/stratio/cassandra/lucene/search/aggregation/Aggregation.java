@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.search.aggregation;
+
+import com.stratio.cassandra.lucene.IndexException;
+import com.stratio.cassandra.lucene.schema.Schema;
+import com.stratio.cassandra.lucene.schema.mapping.Mapper;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.search.SortField;
+
+import java.util.List;
+
+/**
+ * An aggregation of the doc values of a field over the documents matched by a search. Each replica computes a partial
+ * result over its local documents with an {@link AggregationCollector}, and then the coordinator merges these partial
+ * results into the final one.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public abstract class Aggregation {
+
+    /** The name of the aggregated field. */
+    public final String field;
+
+    /**
+     * Returns a new {@link Aggregation} over the specified field.
+     *
+     * @param field the name of the aggregated field
+     */
+    protected Aggregation(String field) {
+        if (StringUtils.isBlank(field)) {
+            throw new IndexException("Field name required");
+        }
+        this.field = field;
+    }
+
+    /**
+     * Validates this {@link Aggregation} against the specified {@link Schema}.
+     *
+     * @param schema a {@link Schema}
+     */
+    public void validate(Schema schema) {
+        sortField(schema);
+    }
+
+    /**
+     * Returns the Lucene {@link SortField} of the aggregated field, which describes how its doc values are encoded.
+     *
+     * @param schema the indexing schema
+     * @return the Lucene sort field of the aggregated field
+     */
+    protected SortField sortField(Schema schema) {
+        Mapper mapper = schema.getMapper(field);
+        if (mapper == null) {
+            throw new IndexException("No mapper found for aggregation field '{}'", field);
+        } else if (!mapper.docValues) {
+            throw new IndexException("Field '{}' does not support aggregations", field);
+        }
+        return mapper.sortField(field, false);
+    }
+
+    /**
+     * Returns a new {@link AggregationCollector} computing the partial result of this aggregation over the documents of
+     * an index with the specified {@link Schema}.
+     *
+     * @param schema the indexing schema
+     * @return a new collector for this aggregation
+     */
+    public abstract AggregationCollector collector(Schema schema);
+
+    /**
+     * Returns the final result of this aggregation, merging the specified partial results.
+     *
+     * @param partials the partial results produced by the collectors of this aggregation
+     * @return the final result
+     */
+    public abstract Object merge(List<Object> partials);
+
+    /** {@inheritDoc} */
+    @Override
+    public abstract String toString();
+}
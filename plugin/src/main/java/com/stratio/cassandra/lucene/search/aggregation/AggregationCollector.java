@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.search.aggregation;
+
+import org.apache.lucene.search.SimpleCollector;
+
+/**
+ * A Lucene {@link org.apache.lucene.search.Collector} computing the partial result of an {@link Aggregation} over the
+ * matched documents of a local index. The partial result should be composed by maps, lists, strings and numbers, so it
+ * can be sent to the coordinator as JSON.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public abstract class AggregationCollector extends SimpleCollector {
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean needsScores() {
+        return false;
+    }
+
+    /**
+     * Returns the partial result of the aggregation over the collected documents.
+     *
+     * @return the partial result
+     */
+    public abstract Object partial();
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.search.aggregation;
+
+import com.stratio.cassandra.lucene.IndexException;
+import com.stratio.cassandra.lucene.schema.Schema;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utilities for computing named {@link Aggregation}s in the replicas and merging their partial results in the
+ * coordinator. Both the partial and the final results are exchanged as JSON objects whose keys are the names of the
+ * aggregations.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public final class Aggregations {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Private constructor to hide the implicit public one. */
+    private Aggregations() {
+    }
+
+    /**
+     * Returns new collectors for the specified named aggregations.
+     *
+     * @param aggregations the aggregations by name
+     * @param schema the indexing schema
+     * @return the collectors by aggregation name
+     */
+    public static Map<String, AggregationCollector> collectors(Map<String, Aggregation> aggregations, Schema schema) {
+        Map<String, AggregationCollector> collectors = new LinkedHashMap<>();
+        aggregations.forEach((name, aggregation) -> collectors.put(name, aggregation.collector(schema)));
+        return collectors;
+    }
+
+    /**
+     * Returns the JSON representation of the partial results of the specified collectors.
+     *
+     * @param collectors the collectors by aggregation name
+     * @return the partial results as a JSON object
+     */
+    public static String partials(Map<String, AggregationCollector> collectors) {
+        Map<String, Object> partials = new LinkedHashMap<>();
+        collectors.forEach((name, collector) -> partials.put(name, collector.partial()));
+        try {
+            return MAPPER.writeValueAsString(partials);
+        } catch (IOException e) {
+            throw new IndexException(e, "Unformateable aggregation results: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the JSON representation of the final results of the specified named aggregations, merging the specified
+     * partial results.
+     *
+     * @param aggregations the aggregations by name
+     * @param partials the partial results, as produced by {@link #partials(Map)}
+     * @return the final results as a JSON object
+     */
+    public static String merge(Map<String, Aggregation> aggregations, List<String> partials) {
+        try {
+            List<Map<?, ?>> parsed = new ArrayList<>(partials.size());
+            for (String partial : partials) {
+                parsed.add(MAPPER.readValue(partial, Map.class));
+            }
+            Map<String, Object> results = new LinkedHashMap<>();
+            aggregations.forEach((name, aggregation) -> {
+                List<Object> aggregationPartials = new ArrayList<>(parsed.size());
+                parsed.forEach(partial -> aggregationPartials.add(partial.get(name)));
+                results.put(name, aggregation.merge(aggregationPartials));
+            });
+            return MAPPER.writeValueAsString(results);
+        } catch (IOException e) {
+            throw new IndexException(e, "Unparseable aggregation results: {}", e.getMessage());
+        }
+    }
+}
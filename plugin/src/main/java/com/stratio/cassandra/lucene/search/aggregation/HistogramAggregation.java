@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.search.aggregation;
+
+import com.google.common.base.MoreObjects;
+import com.stratio.cassandra.lucene.IndexException;
+import com.stratio.cassandra.lucene.schema.Schema;
+import org.apache.lucene.index.LeafReaderContext;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * {@link Aggregation} counting the numeric values of a field falling in each fixed size interval. The key of each
+ * bucket is the lower bound of its interval, so the buckets are aligned to zero. Date fields are histogrammed by
+ * their milliseconds since the epoch.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class HistogramAggregation extends Aggregation {
+
+    /** The size of the intervals. */
+    public final double interval;
+
+    /**
+     * Returns a new {@link HistogramAggregation} over the specified field with the specified interval size.
+     *
+     * @param field the name of the aggregated field
+     * @param interval the size of the intervals
+     */
+    public HistogramAggregation(String field, Double interval) {
+        super(field);
+        if (interval == null || interval <= 0) {
+            throw new IndexException("Histogram interval must be strictly positive");
+        }
+        this.interval = interval;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AggregationCollector collector(Schema schema) {
+        NumericValues values = new NumericValues(sortField(schema));
+        return new AggregationCollector() {
+
+            private final Map<Double, Long> counts = new HashMap<>();
+
+            @Override
+            protected void doSetNextReader(LeafReaderContext context) throws IOException {
+                values.setNextReader(context.reader());
+            }
+
+            @Override
+            public void collect(int doc) {
+                values.forEach(doc, value -> counts.merge(Math.floor(value / interval) * interval, 1L, Long::sum));
+            }
+
+            @Override
+            public Object partial() {
+                List<List<Number>> partial = new ArrayList<>(counts.size());
+                counts.forEach((key, count) -> partial.add(Arrays.asList(key, count)));
+                return partial;
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object merge(List<Object> partials) {
+        SortedMap<Double, Long> counts = new TreeMap<>();
+        for (Object partial : partials) {
+            for (Object bucket : (List<?>) partial) {
+                List<?> pair = (List<?>) bucket;
+                double key = ((Number) pair.get(0)).doubleValue();
+                long count = ((Number) pair.get(1)).longValue();
+                counts.merge(key, count, Long::sum);
+            }
+        }
+        List<Map<String, Object>> buckets = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> buckets.add(bucket(key, count)));
+        return Collections.singletonMap("buckets", buckets);
+    }
+
+    private static Map<String, Object> bucket(double key, long count) {
+        Map<String, Object> bucket = new LinkedHashMap<>();
+        bucket.put("key", key == Math.rint(key) && Math.abs(key) < Long.MAX_VALUE ? (Number) (long) key : key);
+        bucket.put("count", count);
+        return bucket;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("field", field).add("interval", interval).toString();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.search.aggregation;
+
+import com.google.common.base.MoreObjects;
+import com.stratio.cassandra.lucene.schema.Schema;
+import org.apache.lucene.index.LeafReaderContext;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link Aggregation} computing a single value from the numeric values of a field, such as their min, max, sum or
+ * average.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class MetricAggregation extends Aggregation {
+
+    /** The functions computed by a {@link MetricAggregation}. */
+    public enum Function {
+        MIN, MAX, SUM, AVG
+    }
+
+    /** The computed function. */
+    public final Function function;
+
+    /**
+     * Returns a new {@link MetricAggregation} computing the specified function over the specified field.
+     *
+     * @param field the name of the aggregated field
+     * @param function the function to be computed
+     */
+    public MetricAggregation(String field, Function function) {
+        super(field);
+        this.function = function;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AggregationCollector collector(Schema schema) {
+        NumericValues values = new NumericValues(sortField(schema));
+        return new AggregationCollector() {
+
+            private long count;
+            private double min = Double.POSITIVE_INFINITY;
+            private double max = Double.NEGATIVE_INFINITY;
+            private double sum;
+
+            @Override
+            protected void doSetNextReader(LeafReaderContext context) throws IOException {
+                values.setNextReader(context.reader());
+            }
+
+            @Override
+            public void collect(int doc) {
+                values.forEach(doc, value -> {
+                    count++;
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                    sum += value;
+                });
+            }
+
+            @Override
+            public Object partial() {
+                Map<String, Object> partial = new LinkedHashMap<>();
+                partial.put("count", count);
+                if (count > 0) {
+                    partial.put("min", min);
+                    partial.put("max", max);
+                    partial.put("sum", sum);
+                }
+                return partial;
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object merge(List<Object> partials) {
+        long count = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        for (Object object : partials) {
+            Map<?, ?> partial = (Map<?, ?>) object;
+            long partialCount = ((Number) partial.get("count")).longValue();
+            if (partialCount > 0) {
+                count += partialCount;
+                min = Math.min(min, ((Number) partial.get("min")).doubleValue());
+                max = Math.max(max, ((Number) partial.get("max")).doubleValue());
+                sum += ((Number) partial.get("sum")).doubleValue();
+            }
+        }
+        Double value;
+        switch (function) {
+            case MIN:
+                value = count == 0 ? null : min;
+                break;
+            case MAX:
+                value = count == 0 ? null : max;
+                break;
+            case SUM:
+                value = sum;
+                break;
+            default:
+                value = count == 0 ? null : sum / count;
+        }
+        return Collections.singletonMap("value", value);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("field", field).add("function", function).toString();
+    }
+}
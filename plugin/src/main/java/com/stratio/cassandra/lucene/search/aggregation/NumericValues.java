@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.search.aggregation;
+
+import com.stratio.cassandra.lucene.IndexException;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.util.NumericUtils;
+
+import java.io.IOException;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Reader of the numeric doc values of a field, decoding them according to the type of the field.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+final class NumericValues {
+
+    private final String field;
+    private final SortField.Type type;
+    private SortedNumericDocValues values;
+
+    /**
+     * Returns a new reader of the numeric doc values described by the specified {@link SortField}.
+     *
+     * @param sortField the Lucene sort field of the field to be read
+     */
+    NumericValues(SortField sortField) {
+        if (!(sortField instanceof SortedNumericSortField)) {
+            throw new IndexException("Field '{}' is not numeric", sortField.getField());
+        }
+        this.field = sortField.getField();
+        this.type = ((SortedNumericSortField) sortField).getNumericType();
+    }
+
+    /**
+     * Returns if the values of the field are integral numbers.
+     *
+     * @return {@code true} if the values are integral, {@code false} otherwise
+     */
+    boolean isIntegral() {
+        return type == SortField.Type.INT || type == SortField.Type.LONG;
+    }
+
+    /**
+     * Prepares this for reading the documents of the specified segment.
+     *
+     * @param reader a segment reader
+     * @throws IOException if there are I/O errors
+     */
+    void setNextReader(LeafReader reader) throws IOException {
+        values = DocValues.getSortedNumeric(reader, field);
+    }
+
+    /**
+     * Applies the specified consumer to each value of the specified document of the current segment.
+     *
+     * @param doc a document id in the current segment
+     * @param consumer the consumer of the values
+     */
+    void forEach(int doc, DoubleConsumer consumer) {
+        values.setDocument(doc);
+        for (int i = 0; i < values.count(); i++) {
+            consumer.accept(decode(values.valueAt(i)));
+        }
+    }
+
+    private double decode(long value) {
+        switch (type) {
+            case FLOAT:
+                return NumericUtils.sortableIntToFloat((int) value);
+            case DOUBLE:
+                return NumericUtils.sortableLongToDouble(value);
+            default:
+                return value;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.search.aggregation;
+
+import com.google.common.base.MoreObjects;
+import com.stratio.cassandra.lucene.IndexException;
+import com.stratio.cassandra.lucene.schema.Schema;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedSetSortField;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * {@link Aggregation} counting the documents containing each value of a field, returning the most frequent values.
+ *
+ * Each replica returns only its most frequent values, a few more than the requested ones, so the counts of the values
+ * that are not among the most frequent in all the replicas can be underestimated.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class TermsAggregation extends Aggregation {
+
+    /** The default number of returned values. */
+    public static final int DEFAULT_SIZE = 10;
+
+    /** The number of returned values. */
+    public final int size;
+
+    /**
+     * Returns a new {@link TermsAggregation} over the specified field returning the specified number of values.
+     *
+     * @param field the name of the aggregated field
+     * @param size the number of returned values
+     */
+    public TermsAggregation(String field, Integer size) {
+        super(field);
+        if (size != null && size <= 0) {
+            throw new IndexException("Terms size must be strictly positive");
+        }
+        this.size = size == null ? DEFAULT_SIZE : size;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AggregationCollector collector(Schema schema) {
+        SortField sortField = sortField(schema);
+        int shardSize = size * 3 / 2 + 10;
+        return sortField instanceof SortedSetSortField
+               ? new TermsCollector(sortField.getField(), shardSize)
+               : new NumericTermsCollector(new NumericValues(sortField), shardSize);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object merge(List<Object> partials) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object partial : partials) {
+            ((Map<?, ?>) partial).forEach((key, count) -> counts.merge((String) key, ((Number) count).longValue(),
+                                                                        Long::sum));
+        }
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        top(counts, size).forEach((key, count) -> {
+            Map<String, Object> bucket = new LinkedHashMap<>();
+            bucket.put("key", key);
+            bucket.put("count", count);
+            buckets.add(bucket);
+        });
+        return Collections.singletonMap("buckets", buckets);
+    }
+
+    /**
+     * Returns the specified number of most frequent values, sorted by descending count and ascending value.
+     *
+     * @param counts the counts of the values
+     * @param size the max number of values to be returned
+     * @return the most frequent values and their counts
+     */
+    private static Map<String, Long> top(Map<String, Long> counts, int size) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        counts.entrySet()
+              .stream()
+              .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+              .limit(size)
+              .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("field", field).add("size", size).toString();
+    }
+
+    /** Collector for the terms of a sorted set doc values field, counting them by ordinal in each segment. */
+    private static class TermsCollector extends AggregationCollector {
+
+        private final String field;
+        private final int shardSize;
+        private final Map<String, Long> counts = new HashMap<>();
+        private SortedSetDocValues values;
+        private long[] ordCounts;
+
+        TermsCollector(String field, int shardSize) {
+            this.field = field;
+            this.shardSize = shardSize;
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            flush();
+            values = DocValues.getSortedSet(context.reader(), field);
+            ordCounts = new long[(int) values.getValueCount()];
+        }
+
+        @Override
+        public void collect(int doc) {
+            values.setDocument(doc);
+            for (long ord = values.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = values.nextOrd()) {
+                ordCounts[(int) ord]++;
+            }
+        }
+
+        private void flush() {
+            if (ordCounts != null) {
+                for (int ord = 0; ord < ordCounts.length; ord++) {
+                    if (ordCounts[ord] > 0) {
+                        counts.merge(values.lookupOrd(ord).utf8ToString(), ordCounts[ord], Long::sum);
+                    }
+                }
+                ordCounts = null;
+            }
+        }
+
+        @Override
+        public Object partial() {
+            flush();
+            return top(counts, shardSize);
+        }
+    }
+
+    /** Collector for the values of a numeric doc values field. */
+    private static class NumericTermsCollector extends AggregationCollector {
+
+        private final NumericValues values;
+        private final int shardSize;
+        private final Map<String, Long> counts = new HashMap<>();
+
+        NumericTermsCollector(NumericValues values, int shardSize) {
+            this.values = values;
+            this.shardSize = shardSize;
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            values.setNextReader(context.reader());
+        }
+
+        @Override
+        public void collect(int doc) {
+            values.forEach(doc, value -> {
+                String key = values.isIntegral() ? Long.toString((long) value) : Double.toString(value);
+                counts.merge(key, 1L, Long::sum);
+            });
+        }
+
+        @Override
+        public Object partial() {
+            return top(counts, shardSize);
+        }
+    }
+}
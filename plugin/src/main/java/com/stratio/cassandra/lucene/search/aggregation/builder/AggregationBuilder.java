@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.search.aggregation.builder;
+
+import com.stratio.cassandra.lucene.search.aggregation.Aggregation;
+import com.stratio.cassandra.lucene.util.Builder;
+import org.codehaus.jackson.annotate.JsonProperty;
+import org.codehaus.jackson.annotate.JsonSubTypes;
+import org.codehaus.jackson.annotate.JsonTypeInfo;
+
+/**
+ * {@link Builder} for building a new {@link Aggregation}.
+ *
+ * @param <T> the {@link Aggregation}
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = "type")
+@JsonSubTypes({@JsonSubTypes.Type(value = TermsAggregationBuilder.class, name = "terms"),
+               @JsonSubTypes.Type(value = HistogramAggregationBuilder.class, name = "histogram"),
+               @JsonSubTypes.Type(value = DateHistogramAggregationBuilder.class, name = "date_histogram"),
+               @JsonSubTypes.Type(value = MetricAggregationBuilder.Min.class, name = "min"),
+               @JsonSubTypes.Type(value = MetricAggregationBuilder.Max.class, name = "max"),
+               @JsonSubTypes.Type(value = MetricAggregationBuilder.Sum.class, name = "sum"),
+               @JsonSubTypes.Type(value = MetricAggregationBuilder.Avg.class, name = "avg")})
+public abstract class AggregationBuilder<T extends Aggregation> implements Builder<T> {
+
+    /** The name of the aggregated field. */
+    @JsonProperty("field")
+    protected final String field;
+
+    /**
+     * Creates a new {@link AggregationBuilder} for the specified field.
+     *
+     * @param field the name of the aggregated field
+     */
+    protected AggregationBuilder(String field) {
+        this.field = field;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public abstract T build();
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.search.aggregation.builder;
+
+import com.stratio.cassandra.lucene.IndexException;
+import com.stratio.cassandra.lucene.search.aggregation.HistogramAggregation;
+import org.codehaus.jackson.annotate.JsonCreator;
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link AggregationBuilder} for building a new {@link HistogramAggregation} over a date field, whose interval is a
+ * duration such as {@code 30s}, {@code 15m}, {@code 12h}, {@code 1d} or {@code 1w}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class DateHistogramAggregationBuilder extends AggregationBuilder<HistogramAggregation> {
+
+    private static final Pattern INTERVAL_PATTERN = Pattern.compile("(\\d+)(ms|s|m|h|d|w)");
+
+    /** The duration of the intervals. */
+    @JsonProperty("interval")
+    private final String interval;
+
+    /**
+     * Creates a new {@link DateHistogramAggregationBuilder} for the specified field and interval duration.
+     *
+     * @param field the name of the aggregated field
+     * @param interval the duration of the intervals
+     */
+    @JsonCreator
+    public DateHistogramAggregationBuilder(@JsonProperty("field") String field,
+                                           @JsonProperty("interval") String interval) {
+        super(field);
+        this.interval = interval;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public HistogramAggregation build() {
+        return new HistogramAggregation(field, (double) millis(interval));
+    }
+
+    private static long millis(String interval) {
+        Matcher matcher = interval == null ? null : INTERVAL_PATTERN.matcher(interval.trim());
+        if (matcher == null || !matcher.matches()) {
+            throw new IndexException("Invalid date histogram interval '{}'", interval);
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        switch (matcher.group(2)) {
+            case "ms":
+                return amount;
+            case "s":
+                return TimeUnit.SECONDS.toMillis(amount);
+            case "m":
+                return TimeUnit.MINUTES.toMillis(amount);
+            case "h":
+                return TimeUnit.HOURS.toMillis(amount);
+            case "d":
+                return TimeUnit.DAYS.toMillis(amount);
+            default:
+                return TimeUnit.DAYS.toMillis(amount * 7);
+        }
+    }
+}
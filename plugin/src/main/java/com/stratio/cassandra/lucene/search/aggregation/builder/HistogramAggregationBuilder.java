@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.search.aggregation.builder;
+
+import com.stratio.cassandra.lucene.search.aggregation.HistogramAggregation;
+import org.codehaus.jackson.annotate.JsonCreator;
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * {@link AggregationBuilder} for building a new {@link HistogramAggregation} over a numeric field.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class HistogramAggregationBuilder extends AggregationBuilder<HistogramAggregation> {
+
+    /** The size of the intervals. */
+    @JsonProperty("interval")
+    private final Double interval;
+
+    /**
+     * Creates a new {@link HistogramAggregationBuilder} for the specified field and interval size.
+     *
+     * @param field the name of the aggregated field
+     * @param interval the size of the intervals
+     */
+    @JsonCreator
+    public HistogramAggregationBuilder(@JsonProperty("field") String field,
+                                       @JsonProperty("interval") Double interval) {
+        super(field);
+        this.interval = interval;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public HistogramAggregation build() {
+        return new HistogramAggregation(field, interval);
+    }
+}
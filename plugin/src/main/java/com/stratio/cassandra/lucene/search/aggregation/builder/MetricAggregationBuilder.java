@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.search.aggregation.builder;
+
+import com.stratio.cassandra.lucene.search.aggregation.MetricAggregation;
+import com.stratio.cassandra.lucene.search.aggregation.MetricAggregation.Function;
+import org.codehaus.jackson.annotate.JsonCreator;
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * {@link AggregationBuilder} for building a new {@link MetricAggregation}, with a subclass for each function.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public abstract class MetricAggregationBuilder extends AggregationBuilder<MetricAggregation> {
+
+    private final Function function;
+
+    /**
+     * Creates a new {@link MetricAggregationBuilder} for the specified field and function.
+     *
+     * @param field the name of the aggregated field
+     * @param function the function to be computed
+     */
+    MetricAggregationBuilder(String field, Function function) {
+        super(field);
+        this.function = function;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MetricAggregation build() {
+        return new MetricAggregation(field, function);
+    }
+
+    /** {@link MetricAggregationBuilder} for the min value of a field. */
+    public static class Min extends MetricAggregationBuilder {
+
+        /**
+         * Creates a new {@link Min} for the specified field.
+         *
+         * @param field the name of the aggregated field
+         */
+        @JsonCreator
+        public Min(@JsonProperty("field") String field) {
+            super(field, Function.MIN);
+        }
+    }
+
+    /** {@link MetricAggregationBuilder} for the max value of a field. */
+    public static class Max extends MetricAggregationBuilder {
+
+        /**
+         * Creates a new {@link Max} for the specified field.
+         *
+         * @param field the name of the aggregated field
+         */
+        @JsonCreator
+        public Max(@JsonProperty("field") String field) {
+            super(field, Function.MAX);
+        }
+    }
+
+    /** {@link MetricAggregationBuilder} for the sum of the values of a field. */
+    public static class Sum extends MetricAggregationBuilder {
+
+        /**
+         * Creates a new {@link Sum} for the specified field.
+         *
+         * @param field the name of the aggregated field
+         */
+        @JsonCreator
+        public Sum(@JsonProperty("field") String field) {
+            super(field, Function.SUM);
+        }
+    }
+
+    /** {@link MetricAggregationBuilder} for the average of the values of a field. */
+    public static class Avg extends MetricAggregationBuilder {
+
+        /**
+         * Creates a new {@link Avg} for the specified field.
+         *
+         * @param field the name of the aggregated field
+         */
+        @JsonCreator
+        public Avg(@JsonProperty("field") String field) {
+            super(field, Function.AVG);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.search.aggregation.builder;
+
+import com.stratio.cassandra.lucene.search.aggregation.TermsAggregation;
+import org.codehaus.jackson.annotate.JsonCreator;
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * {@link AggregationBuilder} for building a new {@link TermsAggregation}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class TermsAggregationBuilder extends AggregationBuilder<TermsAggregation> {
+
+    /** The number of returned values. */
+    @JsonProperty("size")
+    private Integer size;
+
+    /**
+     * Creates a new {@link TermsAggregationBuilder} for the specified field.
+     *
+     * @param field the name of the aggregated field
+     */
+    @JsonCreator
+    public TermsAggregationBuilder(@JsonProperty("field") String field) {
+        super(field);
+    }
+
+    /**
+     * Returns this builder with the specified number of returned values.
+     *
+     * @param size the number of returned values
+     * @return this builder with the specified size
+     */
+    public TermsAggregationBuilder size(Integer size) {
+        this.size = size;
+        return this;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TermsAggregation build() {
+        return new TermsAggregation(field, size);
+    }
+}
@@ -19,6 +19,8 @@ import com.stratio.cassandra.lucene.IndexException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -30,6 +32,10 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * an identifier, ensuring that all tasks with same identifier will be executed orderly in the same thread. Each thread
  * has its own task queue.
  *
+ * Tasks can also be submitted as part of a batch. Each thread accumulates its batched tasks until its queue is drained,
+ * the batch is full or a not batched task has to be executed. Then the batched tasks are run in submission order. A
+ * batched task replaces any previous task with the same key in the same batch, so only the last one is run.
+ *
  * @author Andres de la Pena {@literal <adelapena@stratio.com>}
  */
 public class TaskQueue {
@@ -37,6 +43,8 @@ public class TaskQueue {
     private static final Logger logger = LoggerFactory.getLogger(TaskQueue.class);
 
     private BlockingExecutor[] pools;
+    private Map<Object, Runnable>[] batches;
+    private int maxBatchSize;
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
@@ -44,10 +52,13 @@ public class TaskQueue {
      * Returns a new {@link TaskQueue}.
      *
      * @param numThreads the number of executor threads
-     * @param queuesSize the max number of tasks in each thread queue before blocking
+     * @param queuesSize the max number of tasks in each thread queue before blocking, and the max batch size
      */
+    @SuppressWarnings("unchecked")
     public TaskQueue(int numThreads, int queuesSize) {
         if (numThreads > 0) {
+            maxBatchSize = queuesSize;
+            batches = new Map[numThreads];
             pools = new BlockingExecutor[numThreads];
             for (int i = 0; i < numThreads; i++) {
                 pools[i] = new BlockingExecutor(1,
@@ -58,6 +69,7 @@ public class TaskQueue {
                                                 TimeUnit.NANOSECONDS,
                                                 null);
                 pools[i].submit(() -> logger.debug("Task queue starts"));
+                batches[i] = new LinkedHashMap<>();
             }
         }
     }
@@ -80,8 +92,47 @@ public class TaskQueue {
         } else {
             lock.readLock().lock();
             try {
-                int i = Math.abs(id.hashCode() % pools.length);
-                return pools[i].submit(task);
+                int i = pool(id);
+                return pools[i].submit(() -> {
+                    flush(i);
+                    task.run();
+                });
+            } catch (Exception e) {
+                logger.error("Task queue submission failed", e);
+                throw new IndexException(e);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Submits a non value-returning task for batched asynchronous execution.
+     *
+     * The specified identifier is used to choose the thread executor where the task will be queued, as it is done by
+     * {@link #submitAsynchronous(Object, Runnable)}. The task will be added to the current batch of that thread,
+     * replacing any previous task with the same key.
+     *
+     * @param id the identifier of the task used to choose the thread executor where the task will be queued for
+     * asynchronous execution
+     * @param key the key identifying the tasks to be coalesced, only the last submitted task with a key is run
+     * @param task the task to be batched for asynchronous execution
+     */
+    public void submitBatched(Object id, Object key, Runnable task) {
+        if (pools == null) {
+            task.run();
+        } else {
+            lock.readLock().lock();
+            try {
+                int i = pool(id);
+                pools[i].submit(() -> {
+                    Map<Object, Runnable> batch = batches[i];
+                    batch.remove(key);
+                    batch.put(key, task);
+                    if (batch.size() >= maxBatchSize || pools[i].getQueue().isEmpty()) {
+                        flush(i);
+                    }
+                });
             } catch (Exception e) {
                 logger.error("Task queue submission failed", e);
                 throw new IndexException(e);
@@ -91,6 +142,60 @@ public class TaskQueue {
         }
     }
 
+    private int pool(Object id) {
+        return Math.abs(id.hashCode() % pools.length);
+    }
+
+    /**
+     * Returns the number of executor threads of this queue, each of them with its own task queue.
+     *
+     * @return the number of threads, {@code 0} if the tasks are run synchronously by the submitting thread
+     */
+    public int getNumThreads() {
+        return pools == null ? 0 : pools.length;
+    }
+
+    /**
+     * Returns the index of the executor thread where the tasks with the specified identifier are queued.
+     *
+     * @param id the identifier of a task
+     * @return the index of the thread executor, {@code -1} if the tasks are run synchronously by the submitting thread
+     */
+    public int getThread(Object id) {
+        return pools == null ? -1 : pool(id);
+    }
+
+    /**
+     * Returns the number of tasks waiting in the queue of the specified executor thread, not including the tasks
+     * accumulated in its current batch.
+     *
+     * @param thread the index of the thread executor
+     * @return the number of queued tasks
+     */
+    public int getQueueSize(int thread) {
+        return pools[thread].getQueue().size();
+    }
+
+    /**
+     * Runs the tasks of the current batch of the specified thread. It should be called only from that thread.
+     *
+     * @param i the index of the thread executor
+     */
+    private void flush(int i) {
+        Map<Object, Runnable> batch = batches[i];
+        if (!batch.isEmpty()) {
+            logger.trace("Running batch of {} tasks", batch.size());
+            for (Runnable task : batch.values()) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    logger.error("Batched task failed", e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
     /**
      * Submits a non value-returning task for synchronous execution. It waits for all synchronous tasks to be
      * completed.
@@ -111,6 +216,36 @@ public class TaskQueue {
         }
     }
 
+    /**
+     * Waits for the completion of all the tasks submitted before this call, including the batched ones. Unlike {@link
+     * #await()}, this doesn't prevent the submission of new tasks while waiting, so it doesn't stall the writers.
+     */
+    public void awaitSubmitted() {
+        if (pools != null) {
+            Future<?>[] futures = new Future<?>[pools.length];
+            lock.readLock().lock();
+            try {
+                for (int i = 0; i < pools.length; i++) {
+                    int pool = i;
+                    futures[i] = pools[i].submit(() -> flush(pool));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                logger.error("Task queue await interrupted", e);
+                throw new IndexException(e);
+            } catch (ExecutionException e) {
+                logger.error("Task queue await failed", e);
+                throw new IndexException(e);
+            }
+        }
+    }
+
     /**
      * Await for task completion.
      */
@@ -120,8 +255,8 @@ public class TaskQueue {
             try {
                 Future<?>[] futures = new Future<?>[pools.length];
                 for (int i = 0; i < pools.length; i++) {
-                    Future<?> future = pools[i].submit(() -> {
-                    });
+                    int pool = i;
+                    Future<?> future = pools[i].submit(() -> flush(pool));
                     futures[i] = future;
                 }
                 for (Future<?> future : futures) {
@@ -146,8 +281,10 @@ public class TaskQueue {
         if (pools != null) {
             lock.writeLock().lock();
             try {
-                for (BlockingExecutor pool : pools) {
-                    pool.shutdown();
+                for (int i = 0; i < pools.length; i++) {
+                    int pool = i;
+                    pools[i].submit(() -> flush(pool));
+                    pools[i].shutdown();
                 }
             } finally {
                 lock.writeLock().unlock();
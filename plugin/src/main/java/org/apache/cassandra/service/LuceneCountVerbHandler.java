@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import com.stratio.cassandra.lucene.Index;
+import org.apache.cassandra.concurrent.Stage;
+import org.apache.cassandra.concurrent.StageManager;
+import org.apache.cassandra.db.*;
+import org.apache.cassandra.exceptions.InvalidRequestException;
+import org.apache.cassandra.exceptions.ReadFailureException;
+import org.apache.cassandra.exceptions.ReadTimeoutException;
+import org.apache.cassandra.io.IVersionedSerializer;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.net.IAsyncCallbackWithFailure;
+import org.apache.cassandra.net.IVerbHandler;
+import org.apache.cassandra.net.MessageIn;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.tracing.Tracing;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link IVerbHandler} for the requests counting the rows matched by the Lucene search of a {@link ReadCommand} in the
+ * local index without reading them, as the Cassandra {@code ReadCommandVerbHandler} does for reads.
+ *
+ * The requests use a verb not used by Cassandra, and they are replied with the number of matched rows and the partial
+ * results of the search aggregations instead of with rows. Ordinary reads can't ask for this, so they are never
+ * answered with counts.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class LuceneCountVerbHandler implements IVerbHandler<ReadCommand> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LuceneCountVerbHandler.class);
+
+    /** The verb of the count requests, which is not used by Cassandra. */
+    static final MessagingService.Verb VERB = MessagingService.Verb.UNUSED_1;
+
+    /** The serializer of the count replies. */
+    static final IVersionedSerializer<Pair<Long, ByteBuffer>> serializer = new CountSerializer();
+
+    private static boolean registered = false;
+
+    /**
+     * Registers the handler, the request serializer and the reply serializer of the count requests, so this node can
+     * both send and answer them. Requests are answered in the read stage.
+     */
+    public static synchronized void register() {
+        if (!registered) {
+            MessagingService.verbStages.put(VERB, Stage.READ);
+            MessagingService.verbSerializers.put(VERB, ReadCommand.serializer);
+            MessagingService.callbackDeserializers.put(VERB, serializer);
+            MessagingService.instance().registerVerbHandlers(VERB, new LuceneCountVerbHandler());
+            registered = true;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void doVerb(MessageIn<ReadCommand> message, int id) {
+        if (StorageService.instance.isBootstrapMode()) {
+            throw new RuntimeException("Cannot service reads while bootstrapping!");
+        }
+        Pair<Long, ByteBuffer> count = count(message.payload);
+        MessageOut<Pair<Long, ByteBuffer>> reply = new MessageOut<>(MessagingService.Verb.REQUEST_RESPONSE,
+                                                                    count,
+                                                                    serializer);
+        Tracing.trace("Enqueuing count response to {}", message.from);
+        MessagingService.instance().sendReply(reply, id, message.from);
+    }
+
+    /**
+     * Counts the rows matched by the Lucene search of the specified read command in the local index.
+     *
+     * @param command a read command with a Lucene search
+     * @return the number of matched rows and the partial aggregation results, which are {@code null} if the search
+     * has no aggregations
+     */
+    private static Pair<Long, ByteBuffer> count(ReadCommand command) {
+        ColumnFamilyStore cfs = Keyspace.openAndGetStore(command.metadata());
+        org.apache.cassandra.index.Index index = command.getIndex(cfs);
+        if (!(index instanceof Index)) {
+            throw new InvalidRequestException("Count requests require a Lucene index search");
+        }
+        try (ReadOrderGroup orderGroup = command.startOrderGroup()) {
+            return ((Index) index).count(command, orderGroup);
+        }
+    }
+
+    /**
+     * Sends a request counting the rows matched by the Lucene search of the specified read command to the specified
+     * replica. The request is run in the read stage of this node if the replica is this node.
+     *
+     * @param command a read command with a Lucene search
+     * @param endpoint the replica to be asked
+     * @return the callback receiving the count
+     */
+    static Callback send(ReadCommand command, InetAddress endpoint) {
+        Callback callback = new Callback();
+        if (endpoint.equals(FBUtilities.getBroadcastAddress())) {
+            StageManager.getStage(Stage.READ).execute(() -> {
+                try {
+                    callback.result.complete(count(command));
+                } catch (Throwable e) {
+                    callback.result.completeExceptionally(e);
+                }
+            });
+        } else {
+            MessageOut<ReadCommand> message = new MessageOut<>(VERB, command, ReadCommand.serializer);
+            Tracing.trace("Enqueuing count request to {}", endpoint);
+            MessagingService.instance().sendRRWithFailure(message, endpoint, callback);
+        }
+        return callback;
+    }
+
+    /**
+     * Callback receiving the reply of a count request.
+     */
+    static class Callback implements IAsyncCallbackWithFailure<Pair<Long, ByteBuffer>> {
+
+        private final CompletableFuture<Pair<Long, ByteBuffer>> result = new CompletableFuture<>();
+
+        /** {@inheritDoc} */
+        @Override
+        public void response(MessageIn<Pair<Long, ByteBuffer>> message) {
+            result.complete(message.payload);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void onFailure(InetAddress from) {
+            result.completeExceptionally(new IOException("Count request failed in " + from));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isLatencyForSnitch() {
+            return true;
+        }
+
+        /**
+         * Waits for the reply of the count request.
+         *
+         * @param consistency the consistency level of the count
+         * @param timeout the max time to wait in milliseconds
+         * @return the number of matched rows and the partial aggregation results
+         * @throws ReadTimeoutException if the replica doesn't reply in time
+         * @throws ReadFailureException if the replica fails to count
+         */
+        Pair<Long, ByteBuffer> get(ConsistencyLevel consistency, long timeout) {
+            try {
+                return result.get(Math.max(0, timeout), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new ReadTimeoutException(consistency, 0, 1, false);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                logger.debug(e.getCause().getMessage());
+                throw new ReadFailureException(consistency, 0, 1, 1, false);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    /**
+     * Serializer of count replies.
+     */
+    private static class CountSerializer implements IVersionedSerializer<Pair<Long, ByteBuffer>> {
+
+        /** {@inheritDoc} */
+        @Override
+        public void serialize(Pair<Long, ByteBuffer> count, DataOutputPlus out, int version) throws IOException {
+            out.writeLong(count.left);
+            out.writeBoolean(count.right != null);
+            if (count.right != null) {
+                ByteBufferUtil.writeWithVIntLength(count.right, out);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Pair<Long, ByteBuffer> deserialize(DataInputPlus in, int version) throws IOException {
+            long count = in.readLong();
+            ByteBuffer partials = in.readBoolean() ? ByteBufferUtil.readWithVIntLength(in) : null;
+            return Pair.create(count, partials);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public long serializedSize(Pair<Long, ByteBuffer> count, int version) {
+            long size = TypeSizes.sizeof((long) count.left) + TypeSizes.sizeof(count.right != null);
+            if (count.right != null) {
+                size += ByteBufferUtil.serializedSizeWithVIntLength(count.right);
+            }
+            return size;
+        }
+    }
+}
@@ -27,10 +27,13 @@ import org.apache.cassandra.dht.RingPosition;
 import org.apache.cassandra.exceptions.*;
 import org.apache.cassandra.locator.LocalStrategy;
 import org.apache.cassandra.metrics.ClientRequestMetrics;
+import org.apache.cassandra.tracing.Tracing;
 import org.apache.cassandra.utils.AbstractIterator;
+import org.apache.cassandra.utils.Pair;
 
 import java.lang.reflect.Method;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -120,6 +123,38 @@ public class LuceneStorageProxy {
 
     ///////////////////////////////////////
 
+    /**
+     * Counts the rows matched by the specified range command, which should contain a Lucene search, without reading
+     * them. Each merged token range is counted by the index of a single replica with a {@link LuceneCountVerbHandler}
+     * request, so the consistency level should be {@code ONE} or {@code LOCAL_ONE}. All the ranges are counted
+     * concurrently.
+     *
+     * @param command the range command
+     * @param consistency the consistency level
+     * @return the number of matched rows and the partial aggregation results of each token range
+     */
+    public static List<Pair<Long, ByteBuffer>> count(PartitionRangeReadCommand command, ConsistencyLevel consistency) {
+        Tracing.trace("Computing ranges to count");
+        long startTime = System.nanoTime();
+
+        Keyspace keyspace = Keyspace.open(command.metadata().ksName);
+        List<LuceneCountVerbHandler.Callback> callbacks = new ArrayList<>();
+        rangeMerger(command, consistency).forEachRemaining(range -> {
+            consistency.assureSufficientLiveNodes(keyspace, range.liveEndpoints);
+            PartitionRangeReadCommand rangeCommand = command.forSubRange(range.range);
+            callbacks.add(LuceneCountVerbHandler.send(rangeCommand, range.filteredEndpoints.get(0)));
+        });
+        Tracing.trace("Submitted {} concurrent range count requests", callbacks.size());
+
+        long timeout = DatabaseDescriptor.getRangeRpcTimeout();
+        List<Pair<Long, ByteBuffer>> counts = new ArrayList<>(callbacks.size());
+        for (LuceneCountVerbHandler.Callback callback : callbacks) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            counts.add(callback.get(consistency, timeout - elapsed));
+        }
+        return counts;
+    }
+
     public static RangeMerger rangeMerger(PartitionRangeReadCommand command, ConsistencyLevel consistency) {
         Keyspace keyspace = Keyspace.open(command.metadata().ksName);
         RangeIterator rangeIterator = new RangeIterator(command, keyspace, consistency);
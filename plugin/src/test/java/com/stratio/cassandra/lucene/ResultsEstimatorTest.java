@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene;
+
+import com.stratio.cassandra.lucene.search.Search;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.stratio.cassandra.lucene.search.SearchBuilders.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Class for testing {@link ResultsEstimator}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class ResultsEstimatorTest {
+
+    private static final Search FILTER = search().filter(match("field", "value")).build();
+    private static final Search SORTED = search().query(match("field", "value")).sort(field("field")).build();
+
+    @Test
+    public void testEstimateWithoutSearch() {
+        ResultsEstimator estimator = new ResultsEstimator(10, () -> 0, search -> 100);
+        assertEquals("Thread without search should be estimated as a single row", 1, estimator.estimate());
+    }
+
+    @Test
+    public void testEstimateFullScan() {
+        ResultsEstimator estimator = new ResultsEstimator(10, () -> 0, search -> 100);
+        estimator.setCurrentSearch(SORTED);
+        assertEquals("Full scan search should be estimated as a single row", 1, estimator.estimate());
+    }
+
+    @Test
+    public void testEstimateFilter() {
+        ResultsEstimator estimator = new ResultsEstimator(10, () -> 0, search -> 100);
+        estimator.setCurrentSearch(FILTER);
+        assertEquals("Wrong filter search estimate", 100, estimator.estimate());
+    }
+
+    @Test
+    public void testEstimateNoHits() {
+        ResultsEstimator estimator = new ResultsEstimator(10, () -> 0, search -> 0);
+        estimator.setCurrentSearch(FILTER);
+        assertEquals("Estimate should be at least a single row", 1, estimator.estimate());
+    }
+
+    @Test
+    public void testEstimateOtherThread() throws Exception {
+        ResultsEstimator estimator = new ResultsEstimator(10, () -> 0, search -> 100);
+        estimator.setCurrentSearch(FILTER);
+        long estimate = CompletableFuture.supplyAsync(estimator::estimate).get();
+        assertEquals("Search of other thread should not be used", 1, estimate);
+        assertEquals("Wrong filter search estimate", 100, estimator.estimate());
+    }
+
+    @Test
+    public void testEstimateCache() {
+        AtomicLong generation = new AtomicLong();
+        AtomicInteger estimations = new AtomicInteger();
+        ResultsEstimator estimator = new ResultsEstimator(10, generation::get, search -> {
+            estimations.incrementAndGet();
+            return 100;
+        });
+        estimator.setCurrentSearch(FILTER);
+        estimator.estimate();
+        estimator.estimate();
+        assertEquals("Estimate should be cached", 1, estimations.get());
+        generation.incrementAndGet();
+        estimator.estimate();
+        assertEquals("Estimate should be computed again for new generation", 2, estimations.get());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import com.google.common.collect.Sets;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Class for testing {@link DocumentLoader}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class DocumentLoaderTest {
+
+    private static Directory directory(String prefix) throws IOException {
+        Directory directory = new RAMDirectory();
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
+        config.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter writer = new IndexWriter(directory, config);
+
+        // Segment with doc values
+        for (int i = 0; i < 3; i++) {
+            String value = prefix + i;
+            Document document = new Document();
+            document.add(new SortedDocValuesField("sorted", new BytesRef(value)));
+            document.add(new BinaryDocValuesField("binary", new BytesRef(value)));
+            document.add(new StoredField("stored", value));
+            writer.addDocument(document);
+        }
+        writer.commit();
+
+        // Segment without doc values
+        for (int i = 3; i < 6; i++) {
+            String value = prefix + i;
+            Document document = new Document();
+            document.add(new StoredField("sorted", new BytesRef(value)));
+            document.add(new StoredField("binary", new BytesRef(value)));
+            document.add(new StoredField("stored", value));
+            writer.addDocument(document);
+        }
+        writer.close();
+        return directory;
+    }
+
+    private static void assertDocument(String expected, Document document) {
+        assertEquals("Wrong sorted field", expected, document.getBinaryValue("sorted").utf8ToString());
+        assertEquals("Wrong binary field", expected, document.getBinaryValue("binary").utf8ToString());
+        assertEquals("Wrong stored field", expected, document.get("stored"));
+        assertNull("Unexpected field", document.get("other"));
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        try (Directory directory = directory("a"); IndexReader reader = DirectoryReader.open(directory)) {
+            assertEquals("Expected two segments", 2, reader.leaves().size());
+            IndexSearcher[] searchers = new IndexSearcher[]{new IndexSearcher(reader)};
+            DocumentLoader loader = new DocumentLoader(Sets.newHashSet("sorted", "binary", "stored", "other"));
+            ScoreDoc[] hits = new ScoreDoc[]{new ScoreDoc(4, 1),
+                                             new ScoreDoc(0, 1),
+                                             new ScoreDoc(5, 1),
+                                             new ScoreDoc(2, 1)};
+            Document[] documents = loader.load(searchers, hits);
+            assertEquals("Wrong number of documents", hits.length, documents.length);
+            assertDocument("a4", documents[0]);
+            assertDocument("a0", documents[1]);
+            assertDocument("a5", documents[2]);
+            assertDocument("a2", documents[3]);
+        }
+    }
+
+    @Test
+    public void testLoadShards() throws IOException {
+        try (Directory directory0 = directory("a");
+             Directory directory1 = directory("b");
+             IndexReader reader0 = DirectoryReader.open(directory0);
+             IndexReader reader1 = DirectoryReader.open(directory1)) {
+            IndexSearcher[] searchers = new IndexSearcher[]{new IndexSearcher(reader0), new IndexSearcher(reader1)};
+            DocumentLoader loader = new DocumentLoader(Sets.newHashSet("sorted", "binary", "stored"));
+            ScoreDoc[] hits = new ScoreDoc[]{new ScoreDoc(1, 1, 1), new ScoreDoc(1, 1, 0), new ScoreDoc(3, 1, 1)};
+            Document[] documents = loader.load(searchers, hits);
+            assertDocument("b1", documents[0]);
+            assertDocument("a1", documents[1]);
+            assertDocument("b3", documents[2]);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package com.stratio.cassandra.lucene.index;
 
 import com.google.common.collect.Sets;
+import com.stratio.cassandra.lucene.IndexException;
 import com.stratio.cassandra.lucene.IndexOptions;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
@@ -37,6 +38,7 @@ import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 /**
  * @author Andres de la Pena {@literal <adelapena@stratio.com>}
@@ -46,6 +48,7 @@ public class FSIndexTest {
     private static final Double REFRESH_SECONDS = 0.1D;
     private static final int REFRESH_MILLISECONDS = (int) (REFRESH_SECONDS * 1000);
     private static final int WAIT_MILLISECONDS = REFRESH_MILLISECONDS * 2;
+    private static final long TIMEOUT = 10000;
 
     @Rule
     public TemporaryFolder folder = new TemporaryFolder();
@@ -59,7 +62,11 @@ public class FSIndexTest {
                                     REFRESH_SECONDS,
                                     IndexOptions.DEFAULT_RAM_BUFFER_MB,
                                     IndexOptions.DEFAULT_MAX_MERGE_MB,
-                                    IndexOptions.DEFAULT_MAX_CACHED_MB);
+                                    IndexOptions.DEFAULT_MAX_CACHED_MB,
+                                    IndexOptions.DEFAULT_SEARCH_THREADS,
+                                    IndexOptions.DEFAULT_DIRECTORY_TYPE,
+                                    IndexOptions.DEFAULT_DIRECTORY_PRELOAD,
+                                    IndexOptions.DEFAULT_WARMING_QUERIES);
         Sort sort = new Sort(new SortedSetSortField("field", false));
         Set<String> fields = Sets.newHashSet("field");
         index.init(sort, fields);
@@ -90,12 +97,14 @@ public class FSIndexTest {
             documents.add(documentIterator.next().left);
         }
         assertEquals("Expected 2 documents", 2, documents.size());
+        assertEquals("Expected 2 hits", 2, index.count(query));
 
         // Delete by term
         index.delete(term1);
         index.commit();
         Thread.sleep(WAIT_MILLISECONDS);
         assertEquals("Expected 1 document", 1, index.getNumDocs());
+        assertEquals("Expected 1 hit", 1, index.count(query));
 
         // Delete by query
         index.upsert(term1, document1);
@@ -126,4 +135,304 @@ public class FSIndexTest {
         // Cleanup
         folder.delete();
     }
+
+    @Test
+    public void testParallelSearch() throws IOException {
+
+        FSIndex index = new FSIndex("test_index",
+                                    Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath()),
+                                    new StandardAnalyzer(),
+                                    REFRESH_SECONDS,
+                                    IndexOptions.DEFAULT_RAM_BUFFER_MB,
+                                    IndexOptions.DEFAULT_MAX_MERGE_MB,
+                                    IndexOptions.DEFAULT_MAX_CACHED_MB,
+                                    2,
+                                    IndexOptions.DEFAULT_DIRECTORY_TYPE,
+                                    IndexOptions.DEFAULT_DIRECTORY_PRELOAD,
+                                    IndexOptions.DEFAULT_WARMING_QUERIES);
+        Sort sort = new Sort(new SortedSetSortField("field", false));
+        Set<String> fields = Sets.newHashSet("field");
+        index.init(sort, fields);
+
+        // Create several segments
+        for (int i = 0; i < 5; i++) {
+            String value = "value" + i;
+            Document document = new Document();
+            document.add(new StringField("field", value, Field.Store.NO));
+            document.add(new SortedSetDocValuesField("field", new BytesRef(value)));
+            index.upsert(new Term("field", value), document);
+            index.commit();
+        }
+        index.refresh();
+
+        Query query = new WildcardQuery(new Term("field", "value*"));
+        Sort querySort = new Sort(new SortedSetSortField("field", true));
+        DocumentIterator documentIterator = index.search(null, query, querySort, 2);
+        int count = 0;
+        while (documentIterator.hasNext()) {
+            documentIterator.next();
+            count++;
+        }
+        assertEquals("Expected 5 documents", 5, count);
+        assertEquals("Expected searched slices", true, index.getSearchSlices() > 0);
+
+        // Delete
+        index.delete();
+
+        // Cleanup
+        folder.delete();
+    }
+
+    private static long testDirectoryType(FSIndex index) {
+        index.init(new Sort(new SortedSetSortField("field", false)), Sets.newHashSet("field"));
+        for (int i = 0; i < 5; i++) {
+            String value = "value" + i;
+            Document document = new Document();
+            document.add(new StringField("field", value, Field.Store.YES));
+            document.add(new SortedSetDocValuesField("field", new BytesRef(value)));
+            index.upsert(new Term("field", value), document);
+        }
+        index.commit();
+        index.refresh();
+
+        Query query = new WildcardQuery(new Term("field", "value*"));
+        DocumentIterator documentIterator = index.search(null, query, new Sort(SortField.FIELD_DOC), 10);
+        int count = 0;
+        while (documentIterator.hasNext()) {
+            documentIterator.next();
+            count++;
+        }
+        assertEquals("Expected 5 documents", 5, count);
+        assertEquals("Expected directory reads", true, index.getDirectoryReads() > 0);
+        long mappedBytes = index.getMappedBytes();
+        index.delete();
+        return mappedBytes;
+    }
+
+    @Test
+    public void testMergeStats() throws IOException {
+
+        FSIndex index = new FSIndex("test_index",
+                                    Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath()),
+                                    new StandardAnalyzer(),
+                                    REFRESH_SECONDS,
+                                    IndexOptions.DEFAULT_RAM_BUFFER_MB,
+                                    IndexOptions.DEFAULT_MAX_MERGE_MB,
+                                    IndexOptions.DEFAULT_MAX_CACHED_MB,
+                                    IndexOptions.DEFAULT_SEARCH_THREADS,
+                                    IndexOptions.DEFAULT_DIRECTORY_TYPE,
+                                    IndexOptions.DEFAULT_DIRECTORY_PRELOAD,
+                                    IndexOptions.DEFAULT_WARMING_QUERIES);
+        Sort sort = new Sort(new SortedSetSortField("field", false));
+        index.init(sort, Sets.newHashSet("field"));
+        assertEquals("Expected no merges", 0, index.getMerges());
+
+        // Create several segments and merge them
+        for (int i = 0; i < 5; i++) {
+            String value = "value" + i;
+            Document document = new Document();
+            document.add(new StringField("field", value, Field.Store.NO));
+            document.add(new SortedSetDocValuesField("field", new BytesRef(value)));
+            index.upsert(new Term("field", value), document);
+            index.commit();
+        }
+        index.forceMerge(1, true);
+
+        assertEquals("Expected merges", true, index.getMerges() > 0);
+        assertEquals("Expected merged bytes", true, index.getMergedBytes() > 0);
+        assertEquals("Expected merge time", true, index.getMergesTime() > 0);
+        assertEquals("Expected no running merges", 0, index.getRunningMerges());
+
+        // Delete
+        index.delete();
+    }
+
+    @Test
+    public void testPauseMerges() throws IOException, InterruptedException {
+
+        FSIndex index = new FSIndex("test_index",
+                                    Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath()),
+                                    new StandardAnalyzer(),
+                                    REFRESH_SECONDS,
+                                    IndexOptions.DEFAULT_RAM_BUFFER_MB,
+                                    IndexOptions.DEFAULT_MAX_MERGE_MB,
+                                    IndexOptions.DEFAULT_MAX_CACHED_MB,
+                                    IndexOptions.DEFAULT_SEARCH_THREADS,
+                                    IndexOptions.DEFAULT_DIRECTORY_TYPE,
+                                    IndexOptions.DEFAULT_DIRECTORY_PRELOAD,
+                                    IndexOptions.DEFAULT_WARMING_QUERIES);
+        Sort sort = new Sort(new SortedSetSortField("field", false));
+        index.init(sort, Sets.newHashSet("field"));
+
+        // Create enough segments to trigger merges while paused
+        index.pauseMerges();
+        assertEquals("Expected paused merges", true, index.isMergesPaused());
+        for (int i = 0; i < 20; i++) {
+            String value = "value" + i;
+            Document document = new Document();
+            document.add(new StringField("field", value, Field.Store.NO));
+            document.add(new SortedSetDocValuesField("field", new BytesRef(value)));
+            index.upsert(new Term("field", value), document);
+            index.commit();
+        }
+        for (int i = 0; i < 50 && index.getWaitingMerges() == 0; i++) {
+            Thread.sleep(REFRESH_MILLISECONDS);
+        }
+        assertEquals("Expected waiting merges", true, index.getWaitingMerges() > 0);
+        assertEquals("Expected no merges", 0, index.getMerges());
+
+        // Forced merges are rejected while paused
+        try {
+            index.forceMerge(1, true);
+            fail("Expected forced merge to be rejected");
+        } catch (IndexException e) {
+            assertEquals("Expected still paused merges", true, index.isMergesPaused());
+        }
+
+        // Resume merges
+        index.resumeMerges();
+        assertEquals("Expected not paused merges", false, index.isMergesPaused());
+        index.forceMerge(1, true);
+        assertEquals("Expected merges", true, index.getMerges() > 0);
+        assertEquals("Expected no waiting merges", 0, index.getWaitingMerges());
+
+        // Delete
+        index.delete();
+    }
+
+    @Test
+    public void testWaitForGeneration() throws IOException {
+
+        // Use a long refresh time to make sure that waiting triggers the refresh
+        FSIndex index = new FSIndex("test_index",
+                                    Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath()),
+                                    new StandardAnalyzer(),
+                                    60D,
+                                    IndexOptions.DEFAULT_RAM_BUFFER_MB,
+                                    IndexOptions.DEFAULT_MAX_MERGE_MB,
+                                    IndexOptions.DEFAULT_MAX_CACHED_MB,
+                                    IndexOptions.DEFAULT_SEARCH_THREADS,
+                                    IndexOptions.DEFAULT_DIRECTORY_TYPE,
+                                    IndexOptions.DEFAULT_DIRECTORY_PRELOAD,
+                                    IndexOptions.DEFAULT_WARMING_QUERIES);
+        Sort sort = new Sort(new SortedSetSortField("field", false));
+        index.init(sort, Sets.newHashSet("field"));
+        assertEquals("Expected no writes", 0, index.getWriteGeneration());
+
+        // Insert
+        Document document = new Document();
+        document.add(new StringField("field", "value", Field.Store.NO));
+        document.add(new SortedSetDocValuesField("field", new BytesRef("value")));
+        index.upsert(new Term("field", "value"), document);
+        long generation = index.getWriteGeneration();
+        assertEquals("Expected write generation", true, generation > 0);
+
+        // Wait and search
+        index.waitForGeneration(generation, TIMEOUT);
+        TotalHitCountCollector collector = new TotalHitCountCollector();
+        index.search(new MatchAllDocsQuery(), collector);
+        assertEquals("Expected 1 document", 1, collector.getTotalHits());
+
+        // Delete and wait
+        index.delete(new Term("field", "value"));
+        assertEquals("Expected newer write generation", true, index.getWriteGeneration() > generation);
+        index.waitForGeneration(index.getWriteGeneration(), TIMEOUT);
+        collector = new TotalHitCountCollector();
+        index.search(new MatchAllDocsQuery(), collector);
+        assertEquals("Expected no documents", 0, collector.getTotalHits());
+
+        // Delete
+        index.delete();
+    }
+
+    @Test(expected = IndexException.class)
+    public void testWaitForGenerationClosed() throws IOException {
+        FSIndex index = new FSIndex("test_index",
+                                    Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath()),
+                                    new StandardAnalyzer(),
+                                    60D,
+                                    IndexOptions.DEFAULT_RAM_BUFFER_MB,
+                                    IndexOptions.DEFAULT_MAX_MERGE_MB,
+                                    IndexOptions.DEFAULT_MAX_CACHED_MB,
+                                    IndexOptions.DEFAULT_SEARCH_THREADS,
+                                    IndexOptions.DEFAULT_DIRECTORY_TYPE,
+                                    IndexOptions.DEFAULT_DIRECTORY_PRELOAD,
+                                    IndexOptions.DEFAULT_WARMING_QUERIES);
+        Sort sort = new Sort(new SortedSetSortField("field", false));
+        index.init(sort, Sets.newHashSet("field"));
+        index.close();
+        index.waitForGeneration(index.getWriteGeneration() + 1, TIMEOUT);
+    }
+
+    @Test
+    public void testScheduledRefresh() throws IOException, InterruptedException {
+
+        FSIndex index = new FSIndex("test_index",
+                                    Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath()),
+                                    new StandardAnalyzer(),
+                                    REFRESH_SECONDS,
+                                    IndexOptions.DEFAULT_RAM_BUFFER_MB,
+                                    IndexOptions.DEFAULT_MAX_MERGE_MB,
+                                    IndexOptions.DEFAULT_MAX_CACHED_MB,
+                                    IndexOptions.DEFAULT_SEARCH_THREADS,
+                                    IndexOptions.DEFAULT_DIRECTORY_TYPE,
+                                    IndexOptions.DEFAULT_DIRECTORY_PRELOAD,
+                                    IndexOptions.DEFAULT_WARMING_QUERIES);
+        Sort sort = new Sort(new SortedSetSortField("field", false));
+        index.init(sort, Sets.newHashSet("field"));
+        assertEquals("Expected no unrefreshed writes", false, index.hasUnrefreshedWrites());
+        assertEquals("Expected no staleness", 0, index.getStaleness());
+
+        // Insert
+        Document document = new Document();
+        document.add(new StringField("field", "value", Field.Store.NO));
+        document.add(new SortedSetDocValuesField("field", new BytesRef("value")));
+        index.upsert(new Term("field", "value"), document);
+        assertEquals("Expected unrefreshed writes", true, index.hasUnrefreshedWrites());
+        assertEquals("Expected staleness", true, index.getStaleness() > 0);
+
+        // Wait for the scheduled refresh
+        for (int i = 0; i < 50 && index.hasUnrefreshedWrites(); i++) {
+            Thread.sleep(REFRESH_MILLISECONDS);
+        }
+        assertEquals("Expected no unrefreshed writes", false, index.hasUnrefreshedWrites());
+        assertEquals("Expected no staleness", 0, index.getStaleness());
+        assertEquals("Expected 1 document", 1, index.getNumDocs());
+
+        // Delete
+        index.delete();
+    }
+
+    @Test
+    public void testDirectoryTypes() throws IOException {
+
+        // Disable NRT caching to make all the reads hit the file system directory
+        FSIndex mmapIndex = new FSIndex("test_index",
+                                        Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath()),
+                                        new StandardAnalyzer(),
+                                        REFRESH_SECONDS,
+                                        IndexOptions.DEFAULT_RAM_BUFFER_MB,
+                                        0,
+                                        0,
+                                        IndexOptions.DEFAULT_SEARCH_THREADS,
+                                        DirectoryType.MMAP,
+                                        true,
+                                        IndexOptions.DEFAULT_WARMING_QUERIES);
+        assertEquals("Expected mapped bytes", true, testDirectoryType(mmapIndex) > 0);
+
+        FSIndex nioIndex = new FSIndex("test_index",
+                                       Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath()),
+                                       new StandardAnalyzer(),
+                                       REFRESH_SECONDS,
+                                       IndexOptions.DEFAULT_RAM_BUFFER_MB,
+                                       0,
+                                       0,
+                                       IndexOptions.DEFAULT_SEARCH_THREADS,
+                                       DirectoryType.NIO,
+                                       false,
+                                       IndexOptions.DEFAULT_WARMING_QUERIES);
+        assertEquals("Expected no mapped bytes", 0, testDirectoryType(nioIndex));
+
+        folder.delete();
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Class for testing {@link HitsEstimator}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class HitsEstimatorTest {
+
+    private static Directory directory() throws IOException {
+        Directory directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+        for (int i = 0; i < 10; i++) {
+            Document document = new Document();
+            document.add(new StringField("color", i < 2 ? "red" : "blue", Field.Store.NO));
+            document.add(new StringField("size", i % 2 == 0 ? "big" : "small", Field.Store.NO));
+            writer.addDocument(document);
+        }
+        writer.close();
+        return directory;
+    }
+
+    private static Query term(String field, String value) {
+        return new TermQuery(new Term(field, value));
+    }
+
+    private static Query bool(BooleanClause.Occur occur, Query... queries) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (Query query : queries) {
+            builder.add(query, occur);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testEstimate() throws IOException {
+        try (Directory directory = directory(); IndexReader reader = DirectoryReader.open(directory)) {
+            assertEquals("Wrong term estimate", 2, HitsEstimator.estimate(reader, term("color", "red")));
+            assertEquals("Wrong missing term estimate", 0, HitsEstimator.estimate(reader, term("color", "green")));
+            assertEquals("Wrong boosted estimate",
+                         8,
+                         HitsEstimator.estimate(reader, new BoostQuery(term("color", "blue"), 2f)));
+            assertEquals("Wrong constant score estimate",
+                         5,
+                         HitsEstimator.estimate(reader, new ConstantScoreQuery(term("size", "big"))));
+            assertEquals("Wrong conjunction estimate",
+                         2,
+                         HitsEstimator.estimate(reader,
+                                                bool(BooleanClause.Occur.MUST,
+                                                     term("color", "red"),
+                                                     term("size", "big"))));
+            assertEquals("Wrong filter estimate",
+                         2,
+                         HitsEstimator.estimate(reader,
+                                                bool(BooleanClause.Occur.FILTER,
+                                                     term("size", "small"),
+                                                     term("color", "red"))));
+            assertEquals("Wrong disjunction estimate",
+                         7,
+                         HitsEstimator.estimate(reader,
+                                                bool(BooleanClause.Occur.SHOULD,
+                                                     term("color", "red"),
+                                                     term("size", "big"))));
+            assertEquals("Wrong capped disjunction estimate",
+                         10,
+                         HitsEstimator.estimate(reader,
+                                                bool(BooleanClause.Occur.SHOULD,
+                                                     term("color", "blue"),
+                                                     term("size", "big"))));
+            assertEquals("Wrong negation estimate",
+                         10,
+                         HitsEstimator.estimate(reader, bool(BooleanClause.Occur.MUST_NOT, term("color", "red"))));
+            assertEquals("Wrong unknown query estimate",
+                         10,
+                         HitsEstimator.estimate(reader, new WildcardQuery(new Term("color", "r*"))));
+        }
+    }
+}
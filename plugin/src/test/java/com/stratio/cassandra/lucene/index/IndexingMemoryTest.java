@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import com.google.common.collect.Sets;
+import com.stratio.cassandra.lucene.IndexOptions;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortedSetSortField;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Class for testing {@link IndexingMemory}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class IndexingMemoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FSIndex index(int numDocs) throws IOException {
+        FSIndex index = new FSIndex("test_index",
+                                    Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath()),
+                                    new StandardAnalyzer(),
+                                    IndexOptions.DEFAULT_REFRESH_SECONDS,
+                                    IndexOptions.DEFAULT_RAM_BUFFER_MB,
+                                    IndexOptions.DEFAULT_MAX_MERGE_MB,
+                                    IndexOptions.DEFAULT_MAX_CACHED_MB,
+                                    IndexOptions.DEFAULT_SEARCH_THREADS,
+                                    IndexOptions.DEFAULT_DIRECTORY_TYPE,
+                                    IndexOptions.DEFAULT_DIRECTORY_PRELOAD,
+                                    IndexOptions.DEFAULT_WARMING_QUERIES);
+        index.init(new Sort(new SortedSetSortField("field", false)), Sets.newHashSet("field"));
+        for (int i = 0; i < numDocs; i++) {
+            String value = "value" + i;
+            Document document = new Document();
+            document.add(new StringField("field", value, Field.Store.NO));
+            document.add(new SortedSetDocValuesField("field", new BytesRef(value)));
+            index.upsert(new Term("field", value), document);
+        }
+        return index;
+    }
+
+    @Test
+    public void testFlushUnderBudget() throws IOException {
+        FSIndex index = index(10);
+        long used = index.getRAMBufferBytes();
+        assertEquals("Expected used RAM", true, used > 0);
+        assertEquals("Expected no flushes", 0, IndexingMemory.flush(Arrays.asList(index), used));
+        assertEquals("Expected no buffer flushes", 0, index.getBufferFlushes());
+        index.delete();
+    }
+
+    @Test
+    public void testFlushBiggestFirst() throws IOException {
+        FSIndex small = index(10);
+        FSIndex big = index(1000);
+        long smallUsed = small.getRAMBufferBytes();
+        long bigUsed = big.getRAMBufferBytes();
+        assertEquals("Expected bigger buffer", true, bigUsed > smallUsed);
+
+        // Flushing the biggest buffer is enough to fit in the budget
+        long budget = smallUsed + bigUsed - 1;
+        assertEquals("Expected one flush", 1, IndexingMemory.flush(Arrays.asList(small, big), budget));
+        assertEquals("Expected no small buffer flushes", 0, small.getBufferFlushes());
+        assertEquals("Expected big buffer flushes", 1, big.getBufferFlushes());
+        assertEquals("Expected freed RAM", true, big.getRAMBufferBytes() < bigUsed);
+
+        // All the used buffers are flushed with no budget
+        assertEquals("Expected flushes", true, IndexingMemory.flush(Arrays.asList(small, big), 0) > 0);
+        assertEquals("Expected small buffer flushes", 1, small.getBufferFlushes());
+
+        small.delete();
+        big.delete();
+    }
+}
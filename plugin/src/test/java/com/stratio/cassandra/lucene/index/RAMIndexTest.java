@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Class for testing {@link RAMIndex}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class RAMIndexTest {
+
+    private static TopFieldDocs search(List<String> values, Sort sort, int count) {
+        RAMIndex index = new RAMIndex(new StandardAnalyzer());
+        for (String value : values) {
+            Document document = new Document();
+            document.add(new StringField("field", value, Field.Store.NO));
+            document.add(new SortedDocValuesField("field", new BytesRef(value)));
+            index.add(document);
+        }
+        TopFieldDocs topDocs = index.search(new MatchAllDocsQuery(), sort, count);
+        index.close();
+        return topDocs;
+    }
+
+    @Test
+    public void testSearch() {
+        Sort sort = new Sort(new SortField("field", SortField.Type.STRING));
+        List<String> values = Arrays.asList("d", "b", "a", "c");
+        TopFieldDocs topDocs = search(values, sort, 3);
+        assertEquals("Expected 4 total hits", 4, topDocs.totalHits);
+        assertEquals("Expected 3 hits", 3, topDocs.scoreDocs.length);
+        assertEquals("Document ids should be insertion positions", "a", values.get(topDocs.scoreDocs[0].doc));
+        assertEquals("Document ids should be insertion positions", "b", values.get(topDocs.scoreDocs[1].doc));
+        assertEquals("Document ids should be insertion positions", "c", values.get(topDocs.scoreDocs[2].doc));
+    }
+
+    @Test
+    public void testMerge() {
+        Sort sort = new Sort(new SortField("field", SortField.Type.STRING));
+        List<List<String>> values = Arrays.asList(Arrays.asList("e", "a", "c"), Arrays.asList("b", "f", "d"));
+        TopFieldDocs[] shardHits = new TopFieldDocs[]{search(values.get(0), sort, 3), search(values.get(1), sort, 3)};
+        TopFieldDocs merged = TopDocs.merge(new Sort(shardHits[0].fields), 4, shardHits);
+        assertEquals("Expected 4 hits", 4, merged.scoreDocs.length);
+        String[] expected = new String[]{"a", "b", "c", "d"};
+        for (int i = 0; i < expected.length; i++) {
+            ScoreDoc scoreDoc = merged.scoreDocs[i];
+            assertEquals("Merged hits are wrong", expected[i], values.get(scoreDoc.shardIndex).get(scoreDoc.doc));
+        }
+    }
+
+    private static String text(int frequency) {
+        String text = String.join(" ", Collections.nCopies(frequency, "foo"));
+        return text + String.join("", Collections.nCopies(10 - frequency, " bar"));
+    }
+
+    private static TopFieldDocs searchRelevance(List<Integer> frequencies, Query query, int count) {
+        RAMIndex index = new RAMIndex(new StandardAnalyzer());
+        for (Integer frequency : frequencies) {
+            Document document = new Document();
+            document.add(new TextField("field", text(frequency), Field.Store.NO));
+            index.add(document);
+        }
+        TopFieldDocs topDocs = index.search(query, Sort.RELEVANCE, count);
+        index.close();
+        return topDocs;
+    }
+
+    @Test
+    public void testMergeRelevance() {
+
+        // The term is much more frequent in the first index, so its IDF is lower there
+        Query query = new TermQuery(new Term("field", "foo"));
+        List<List<Integer>> frequencies = Arrays.asList(Arrays.asList(2, 3, 4, 5), Arrays.asList(0, 6, 0, 1));
+        TopFieldDocs[] shardHits = new TopFieldDocs[]{searchRelevance(frequencies.get(0), query, 5),
+                                                      searchRelevance(frequencies.get(1), query, 5)};
+        TopFieldDocs merged = TopDocs.merge(Sort.RELEVANCE, 5, shardHits);
+        assertEquals("Expected 5 hits", 5, merged.scoreDocs.length);
+        int[] expected = new int[]{6, 5, 4, 3, 2};
+        for (int i = 0; i < expected.length; i++) {
+            ScoreDoc scoreDoc = merged.scoreDocs[i];
+            int frequency = frequencies.get(scoreDoc.shardIndex).get(scoreDoc.doc);
+            assertEquals("Merged hits should be sorted by term frequency", expected[i], frequency);
+        }
+    }
+}
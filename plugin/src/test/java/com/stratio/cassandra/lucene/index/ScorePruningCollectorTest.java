@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Class for testing {@link ScorePruningCollector}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class ScorePruningCollectorTest {
+
+    private static final Sort SORT = new Sort(SortField.FIELD_SCORE, new SortField("id", SortField.Type.STRING));
+
+    private static void add(IndexWriter writer, String id, String text) throws IOException {
+        Document document = new Document();
+        document.add(new StringField("id", id, Field.Store.YES));
+        document.add(new SortedDocValuesField("id", new BytesRef(id)));
+        document.add(new TextField("text", text, Field.Store.NO));
+        writer.addDocument(document);
+    }
+
+    private static Directory directory() throws IOException {
+        Directory directory = new RAMDirectory();
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
+        config.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter writer = new IndexWriter(directory, config);
+
+        // Segment with high scores
+        for (int i = 0; i < 5; i++) {
+            add(writer, "a" + i, "foo foo foo foo");
+        }
+        writer.commit();
+
+        // Segments with low scores
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 5; j++) {
+                add(writer, "b" + i + j, "foo bar bar bar bar bar bar bar bar bar bar bar bar bar bar bar");
+            }
+            writer.commit();
+        }
+
+        // Segment without matches
+        add(writer, "c", "bar");
+        writer.close();
+        return directory;
+    }
+
+    private static TopFieldDocs search(IndexSearcher searcher, Query query, int count, FieldDoc after)
+    throws IOException {
+        ScorePruningCollector.Threshold threshold = new ScorePruningCollector.Threshold();
+        ScoreBounds bounds = ScoreBounds.create(searcher, query);
+        assertNotNull("Expected known score bounds", bounds);
+        TopFieldCollector topCollector = TopFieldCollector.create(SORT, count, after, true, false, false);
+        ScorePruningCollector collector = new ScorePruningCollector(topCollector, bounds, threshold, count, after);
+        searcher.search(query, collector);
+        return collector.topDocs();
+    }
+
+    private static void assertSameHits(TopDocs expected, TopDocs actual) {
+        assertEquals("Wrong number of hits", expected.scoreDocs.length, actual.scoreDocs.length);
+        for (int i = 0; i < expected.scoreDocs.length; i++) {
+            assertEquals("Wrong hit", expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+        }
+    }
+
+    @Test
+    public void testCanPrune() {
+        assertTrue(ScorePruningCollector.canPrune(SORT));
+        assertFalse(ScorePruningCollector.canPrune(new Sort(new SortField("id", SortField.Type.STRING))));
+        assertFalse(ScorePruningCollector.canPrune(new Sort(new SortField(null, SortField.Type.SCORE, true))));
+    }
+
+    @Test
+    public void testPruning() throws IOException {
+        try (Directory directory = directory(); IndexReader reader = DirectoryReader.open(directory)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            searcher.setSimilarity(new NoIDFSimilarity());
+            Query query = new TermQuery(new Term("text", "foo"));
+
+            TopDocs expected = searcher.search(query, 3, SORT);
+            ScorePruningCollector.Threshold threshold = new ScorePruningCollector.Threshold();
+            ScoreBounds bounds = ScoreBounds.create(searcher, query);
+            TopFieldCollector topCollector = TopFieldCollector.create(SORT, 3, null, true, false, false);
+            ScorePruningCollector collector = new ScorePruningCollector(topCollector, bounds, threshold, 3, null);
+            searcher.search(query, collector);
+
+            assertSameHits(expected, collector.topDocs());
+            assertEquals("Expected skipped low score segments", 16, collector.getSkipped());
+        }
+    }
+
+    @Test
+    public void testPruningAfter() throws IOException {
+        try (Directory directory = directory(); IndexReader reader = DirectoryReader.open(directory)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            searcher.setSimilarity(new NoIDFSimilarity());
+            BooleanQuery.Builder builder = new BooleanQuery.Builder();
+            builder.add(new TermQuery(new Term("text", "foo")), BooleanClause.Occur.SHOULD);
+            builder.add(new BoostQuery(new TermQuery(new Term("text", "baz")), 2f), BooleanClause.Occur.SHOULD);
+            Query query = builder.build();
+
+            TopFieldDocs first = search(searcher, query, 4, null);
+            assertSameHits(searcher.search(query, 4, SORT), first);
+            FieldDoc last = (FieldDoc) first.scoreDocs[first.scoreDocs.length - 1];
+            assertSameHits(searcher.searchAfter(last, query, 10, SORT), search(searcher, query, 10, last));
+        }
+    }
+
+    @Test
+    public void testUnknownBounds() throws IOException {
+        try (Directory directory = directory(); IndexReader reader = DirectoryReader.open(directory)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            searcher.setSimilarity(new NoIDFSimilarity());
+            PhraseQuery query = new PhraseQuery("text", "foo", "bar");
+            assertNull("Expected unknown score bounds", ScoreBounds.create(searcher, query));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import com.google.common.collect.Sets;
+import com.stratio.cassandra.lucene.IndexOptions;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Class for testing {@link SearchCache}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class SearchCacheTest {
+
+    private static final Double REFRESH_SECONDS = 0.1D;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Document document(String value) {
+        Document document = new Document();
+        document.add(new StringField("field", value, Field.Store.YES));
+        document.add(new SortedDocValuesField("field", new BytesRef(value)));
+        return document;
+    }
+
+    private static Query after(Document document) {
+        return new TermQuery(new Term("field", document.getBinaryValue("field")));
+    }
+
+    private static List<String> values(DocumentIterator iterator) {
+        List<String> values = new ArrayList<>();
+        while (iterator.hasNext()) {
+            values.add(iterator.next().left.getBinaryValue("field").utf8ToString());
+        }
+        iterator.close();
+        return values;
+    }
+
+    @Test
+    public void testSearchCache() throws IOException {
+
+        ShardedFSIndex index = new ShardedFSIndex("test_index",
+                                                  Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath()),
+                                                  new StandardAnalyzer(),
+                                                  REFRESH_SECONDS,
+                                                  IndexOptions.DEFAULT_RAM_BUFFER_MB,
+                                                  IndexOptions.DEFAULT_MAX_MERGE_MB,
+                                                  IndexOptions.DEFAULT_MAX_CACHED_MB,
+                                                  IndexOptions.DEFAULT_SEARCH_THREADS,
+                                                  IndexOptions.DEFAULT_INDEX_SHARDS,
+                                                  IndexOptions.DEFAULT_DIRECTORY_TYPE,
+                                                  IndexOptions.DEFAULT_DIRECTORY_PRELOAD,
+                                                  IndexOptions.DEFAULT_WARMING_QUERIES);
+        Sort sort = new Sort(new SortField("field", SortField.Type.STRING));
+        index.init(sort, Sets.newHashSet("field"));
+        SearchCache cache = new SearchCache(1, 100);
+        index.addRefreshListener(cache::invalidate);
+
+        List<String> values = Arrays.asList("a", "b", "c", "d", "e", "f", "g");
+        for (String value : values) {
+            index.upsert(0, new Term("field", value), document(value));
+        }
+        index.commit();
+        index.refresh();
+
+        List<Integer> shards = Collections.singletonList(0);
+        Query query = new WildcardQuery(new Term("field", "*"));
+        long generation = index.getGeneration();
+
+        // Miss
+        assertEquals("Search cache miss is wrong",
+                     values,
+                     values(cache.search(Arrays.asList("q1", generation),
+                                         () -> index.search(shards, null, query, sort, 2),
+                                         last -> index.search(shards,
+                                                              after(last.left),
+                                                              query,
+                                                              sort,
+                                                              2))));
+        assertEquals("Expected 0 hits", 0, cache.getHits());
+        assertEquals("Expected 1 miss", 1, cache.getMisses());
+        assertEquals("Expected 1 cached search", 1, cache.size());
+
+        // Hit, continuing after the last cached document
+        DocumentIterator hit = cache.search(Arrays.asList("q1", generation),
+                                            () -> index.search(shards, null, query, sort, 2),
+                                            last -> index.search(shards, after(last.left), query, sort, 2));
+        assertEquals("Search cache hit is wrong", values, values(hit));
+        assertTrue("Expected cached and continued documents to be read", hit.getNumReadDocuments() >= values.size());
+        assertEquals("Expected 1 hit", 1, cache.getHits());
+        assertEquals("Expected 1 miss", 1, cache.getMisses());
+
+        // Eviction
+        Query otherQuery = new TermQuery(new Term("field", "c"));
+        assertEquals("Search cache miss is wrong",
+                     Collections.singletonList("c"),
+                     values(cache.search(Arrays.asList("q2", generation),
+                                         () -> index.search(shards, null, otherQuery, sort, 2),
+                                         last -> {
+                                             throw new AssertionError("Unexpected continuation");
+                                         })));
+        assertEquals("Expected 2 misses", 2, cache.getMisses());
+        assertEquals("Expected 1 eviction", 1, cache.getEvictions());
+        assertEquals("Expected 1 cached search", 1, cache.size());
+
+        // Eviction by number of documents
+        SearchCache bounded = new SearchCache(10, 3);
+        values(bounded.search("q1", () -> index.search(shards, null, query, sort, 2), last -> null));
+        assertEquals("Expected 2 cached documents", 2, bounded.getNumDocuments());
+        for (String value : Arrays.asList("c", "d")) {
+            Query termQuery = new TermQuery(new Term("field", value));
+            values(bounded.search(value, () -> index.search(shards, null, termQuery, sort, 2), last -> null));
+        }
+        assertEquals("Expected 1 eviction", 1, bounded.getEvictions());
+        assertEquals("Expected 2 cached searches", 2, bounded.size());
+        assertEquals("Expected 2 cached documents", 2, bounded.getNumDocuments());
+
+        // Invalidation on refresh
+        index.upsert(0, new Term("field", "h"), document("h"));
+        index.commit();
+        index.refresh();
+        assertTrue("Expected new generation", index.getGeneration() > generation);
+        assertEquals("Expected 0 cached searches", 0, cache.size());
+
+        index.delete();
+        folder.delete();
+    }
+}
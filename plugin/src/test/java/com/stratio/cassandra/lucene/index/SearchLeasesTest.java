@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.cassandra.utils.Pair;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.search.ScoreDoc;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Class for testing {@link SearchLeases}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class SearchLeasesTest {
+
+    private static final long TTL = 60000;
+
+    private static Object position(Pair<Document, ScoreDoc> document) {
+        return document.left.get("id");
+    }
+
+    private static List<String> next(DocumentIterator iterator, int count) {
+        List<String> values = new ArrayList<>();
+        while (values.size() < count && iterator.hasNext()) {
+            values.add(iterator.next().left.get("id"));
+        }
+        iterator.close();
+        return values;
+    }
+
+    /** {@link DocumentIterator} over the documents with the specified ids. */
+    private static final class ListDocumentIterator extends DocumentIterator {
+
+        private final Iterator<Pair<Document, ScoreDoc>> iterator;
+        private boolean closed = false;
+
+        private ListDocumentIterator(String... ids) {
+            List<Pair<Document, ScoreDoc>> documents = new ArrayList<>();
+            for (int i = 0; i < ids.length; i++) {
+                Document document = new Document();
+                document.add(new StringField("id", ids[i], Field.Store.YES));
+                documents.add(Pair.create(document, new ScoreDoc(i, 1f)));
+            }
+            iterator = documents.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public boolean needsFetch() {
+            return false;
+        }
+
+        @Override
+        public Pair<Document, ScoreDoc> next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static Supplier<DocumentIterator> search(AtomicInteger searches, List<ListDocumentIterator> iterators) {
+        return () -> {
+            searches.incrementAndGet();
+            ListDocumentIterator iterator = new ListDocumentIterator("a", "b", "c", "d", "e");
+            iterators.add(iterator);
+            return iterator;
+        };
+    }
+
+    @Test
+    public void testResume() {
+        SearchLeases leases = new SearchLeases(10, TTL);
+        AtomicInteger searches = new AtomicInteger();
+        List<ListDocumentIterator> iterators = new ArrayList<>();
+        Supplier<DocumentIterator> search = search(searches, iterators);
+
+        // The reader consumes three documents but only the first two rows are returned
+        DocumentIterator first = leases.search("key", TTL, null, SearchLeasesTest::position, search);
+        assertEquals("First page is wrong", Arrays.asList("a", "b", "c"), next(first, 3));
+        assertEquals("Expected a live lease", 1, leases.size());
+
+        DocumentIterator second = leases.search("key", TTL, "b", SearchLeasesTest::position, search);
+        assertEquals("Second page is wrong", Arrays.asList("c", "d"), next(second, 2));
+
+        // No rows returned by the last page
+        DocumentIterator third = leases.search("key", TTL, "b", SearchLeasesTest::position, search);
+        assertEquals("Third page is wrong", Arrays.asList("c", "d", "e"), next(third, 10));
+
+        assertEquals("Expected a single search", 1, searches.get());
+        assertEquals("Expected a live lease", 1, leases.size());
+    }
+
+    @Test
+    public void testUnknownPosition() {
+        SearchLeases leases = new SearchLeases(10, TTL);
+        AtomicInteger searches = new AtomicInteger();
+        List<ListDocumentIterator> iterators = new ArrayList<>();
+        Supplier<DocumentIterator> search = search(searches, iterators);
+
+        assertEquals("First page is wrong",
+                     Arrays.asList("a", "b"),
+                     next(leases.search("key", TTL, null, SearchLeasesTest::position, search), 2));
+        assertEquals("Second page is wrong",
+                     Arrays.asList("a", "b"),
+                     next(leases.search("key", TTL, "z", SearchLeasesTest::position, search), 2));
+        assertEquals("Expected a new search", 2, searches.get());
+        assertTrue("Expected the discarded lease to be closed", iterators.get(0).closed);
+        assertEquals("Expected a live lease", 1, leases.size());
+    }
+
+    @Test
+    public void testMaxLeases() {
+        SearchLeases leases = new SearchLeases(1, TTL);
+        AtomicInteger searches = new AtomicInteger();
+        List<ListDocumentIterator> iterators = new ArrayList<>();
+        Supplier<DocumentIterator> search = search(searches, iterators);
+
+        DocumentIterator leased = leases.search("a", TTL, null, SearchLeasesTest::position, search);
+        DocumentIterator unleased = leases.search("b", TTL, null, SearchLeasesTest::position, search);
+        assertEquals("Expected a live lease", 1, leases.size());
+        assertEquals("Expected an unleased search", iterators.get(1), unleased);
+        leased.close();
+        unleased.close();
+        assertEquals("Expected a live lease", 1, leases.size());
+    }
+
+    @Test
+    public void testExpiration() {
+        SearchLeases leases = new SearchLeases(10, TTL);
+        AtomicInteger searches = new AtomicInteger();
+        List<ListDocumentIterator> iterators = new ArrayList<>();
+        Supplier<DocumentIterator> search = search(searches, iterators);
+
+        next(leases.search("key", 0, null, SearchLeasesTest::position, search), 2);
+        assertEquals("Second page is wrong",
+                     Arrays.asList("a", "b"),
+                     next(leases.search("key", 0, "b", SearchLeasesTest::position, search), 2));
+        assertEquals("Expected a new search", 2, searches.get());
+        assertTrue("Expected the expired lease to be closed", iterators.get(0).closed);
+    }
+
+    @Test
+    public void testScheduledExpiration() {
+        SearchLeases leases = new SearchLeases(10, TTL);
+        AtomicInteger searches = new AtomicInteger();
+        List<ListDocumentIterator> iterators = new ArrayList<>();
+        Supplier<DocumentIterator> search = search(searches, iterators);
+
+        next(leases.search("key", 0, null, SearchLeasesTest::position, search), 2);
+        assertEquals("Expected a live lease", 1, leases.size());
+        leases.expire();
+        assertEquals("Expected no live leases", 0, leases.size());
+        assertTrue("Expected the expired lease to be closed", iterators.get(0).closed);
+    }
+
+    @Test
+    public void testUnclosedIterator() {
+        SearchLeases leases = new SearchLeases(10, 0);
+        AtomicInteger searches = new AtomicInteger();
+        List<ListDocumentIterator> iterators = new ArrayList<>();
+        Supplier<DocumentIterator> search = search(searches, iterators);
+
+        DocumentIterator iterator = leases.search("key", 0, null, SearchLeasesTest::position, search);
+        iterator.next();
+        leases.expire();
+        assertEquals("Expected no live leases", 0, leases.size());
+        assertTrue("Expected the abandoned lease to be closed", iterators.get(0).closed);
+        iterator.close();
+        assertEquals("Expected no live leases", 0, leases.size());
+    }
+
+    @Test
+    public void testInvalidateInUse() {
+        SearchLeases leases = new SearchLeases(10, TTL);
+        AtomicInteger searches = new AtomicInteger();
+        List<ListDocumentIterator> iterators = new ArrayList<>();
+        Supplier<DocumentIterator> search = search(searches, iterators);
+
+        DocumentIterator iterator = leases.search("key", TTL, null, SearchLeasesTest::position, search);
+        iterator.next();
+        leases.invalidate(key -> key.equals("key"));
+        assertEquals("Expected a live lease", 1, leases.size());
+        iterator.close();
+        assertEquals("Expected no live leases", 0, leases.size());
+        assertTrue("Expected the invalidated lease to be closed", iterators.get(0).closed);
+    }
+
+    @Test
+    public void testInvalidate() {
+        SearchLeases leases = new SearchLeases(10, TTL);
+        AtomicInteger searches = new AtomicInteger();
+        List<ListDocumentIterator> iterators = new ArrayList<>();
+        Supplier<DocumentIterator> search = search(searches, iterators);
+
+        next(leases.search("key", TTL, null, SearchLeasesTest::position, search), 2);
+        leases.invalidate(key -> key.equals("key"));
+        assertEquals("Expected no live leases", 0, leases.size());
+        assertTrue("Expected the invalidated lease to be closed", iterators.get(0).closed);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Class for testing {@link SearcherWarmer}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class SearcherWarmerTest {
+
+    private static Query term(String value) {
+        return new TermQuery(new Term("field", value));
+    }
+
+    private static Directory directory() throws IOException {
+        Directory directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+        for (String value : Arrays.asList("a", "b", "c")) {
+            Document document = new Document();
+            document.add(new StringField("field", value, Field.Store.NO));
+            document.add(new SortedDocValuesField("field", new BytesRef(value)));
+            writer.addDocument(document);
+        }
+        writer.close();
+        return directory;
+    }
+
+    @Test
+    public void testTop() {
+        SearcherWarmer warmer = new SearcherWarmer("test", 2);
+        warmer.sample(term("a"), null);
+        warmer.sample(term("b"), null);
+        warmer.sample(term("b"), null);
+        assertEquals("Wrong top searches", 2, warmer.top().size());
+        warmer.sample(term("c"), null);
+        assertEquals("Wrong top searches", 2, warmer.top().size());
+    }
+
+    @Test
+    public void testDisabled() {
+        SearcherWarmer warmer = new SearcherWarmer("test", 0);
+        warmer.sample(term("a"), null);
+        assertEquals("Expected no samples", 0, warmer.top().size());
+    }
+
+    @Test
+    public void testMaxSamples() {
+        SearcherWarmer warmer = new SearcherWarmer("test", SearcherWarmer.MAX_SAMPLES * 2);
+        for (int i = 0; i < SearcherWarmer.MAX_SAMPLES * 2; i++) {
+            warmer.sample(term("value" + i), null);
+        }
+        assertEquals("Expected bounded samples", SearcherWarmer.MAX_SAMPLES, warmer.top().size());
+    }
+
+    @Test
+    public void testWarm() throws IOException {
+        SearcherWarmer warmer = new SearcherWarmer("test", 2);
+        Sort sort = new Sort(new SortField("field", SortField.Type.STRING));
+        for (int i = 0; i < 4; i++) {
+            warmer.sample(term("a"), sort);
+        }
+        warmer.sample(term("b"), null);
+        warmer.sample(term("b"), null);
+        warmer.sample(term("c"), null);
+        try (Directory directory = directory(); IndexReader reader = DirectoryReader.open(directory)) {
+
+            List<Query> queries = new ArrayList<>();
+            IndexSearcher searcher = new IndexSearcher(reader) {
+                @Override
+                public Weight createNormalizedWeight(Query query, boolean needsScores) throws IOException {
+                    queries.add(query);
+                    return super.createNormalizedWeight(query, needsScores);
+                }
+            };
+
+            // The most frequent searches are run
+            warmer.warm(searcher);
+            assertEquals("Wrong warming searches", Arrays.asList(term("a"), term("b")), queries);
+
+            // The least frequent searches decay and they are discarded
+            queries.clear();
+            warmer.warm(searcher);
+            assertEquals("Wrong warming searches after decay", Arrays.asList(term("a"), term("b")), queries);
+            assertEquals("Expected decayed samples", 1, warmer.top().size());
+        }
+    }
+}
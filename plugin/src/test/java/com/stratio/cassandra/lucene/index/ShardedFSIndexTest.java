@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.index;
+
+import com.google.common.collect.Sets;
+import com.stratio.cassandra.lucene.IndexOptions;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class ShardedFSIndexTest {
+
+    private static final Double REFRESH_SECONDS = 0.1D;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Document document(String value) {
+        Document document = new Document();
+        document.add(new StringField("field", value, Field.Store.YES));
+        document.add(new SortedDocValuesField("field", new BytesRef(value)));
+        return document;
+    }
+
+    private static List<String> values(DocumentIterator iterator) {
+        List<String> values = new ArrayList<>();
+        while (iterator.hasNext()) {
+            values.add(iterator.next().left.getBinaryValue("field").utf8ToString());
+        }
+        return values;
+    }
+
+    @Test
+    public void testShardedSearch() throws IOException {
+
+        ShardedFSIndex index = new ShardedFSIndex("test_index",
+                                                  Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath()),
+                                                  new StandardAnalyzer(),
+                                                  REFRESH_SECONDS,
+                                                  IndexOptions.DEFAULT_RAM_BUFFER_MB,
+                                                  IndexOptions.DEFAULT_MAX_MERGE_MB,
+                                                  IndexOptions.DEFAULT_MAX_CACHED_MB,
+                                                  IndexOptions.DEFAULT_SEARCH_THREADS,
+                                                  3,
+                                                  IndexOptions.DEFAULT_DIRECTORY_TYPE,
+                                                  IndexOptions.DEFAULT_DIRECTORY_PRELOAD,
+                                                  IndexOptions.DEFAULT_WARMING_QUERIES);
+        Sort sort = new Sort(new SortField("field", SortField.Type.STRING));
+        index.init(sort, Sets.newHashSet("field"));
+        assertEquals("Expected 3 shards", 3, index.getNumShards());
+
+        List<String> values = Arrays.asList("a", "b", "c", "d", "e", "f", "g");
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i);
+            index.upsert(i % 3, new Term("field", value), document(value));
+        }
+        index.commit();
+        index.refresh();
+        assertEquals("Expected 7 documents", 7, index.getNumDocs());
+
+        Query query = new WildcardQuery(new Term("field", "*"));
+        assertEquals("Sharded search is wrong",
+                     values,
+                     values(index.search(Arrays.asList(0, 1, 2), null, query, sort, 2)));
+        assertEquals("Sharded search is wrong",
+                     Arrays.asList("a", "c", "d", "f", "g"),
+                     values(index.search(Arrays.asList(0, 2), null, query, sort, 2)));
+        assertEquals("Sharded search is wrong",
+                     Arrays.asList("b", "e"),
+                     values(index.search(Arrays.asList(1), null, query, sort, 2)));
+
+        // Delete by term
+        index.delete(1, new Term("field", "b"));
+        index.refresh();
+        assertEquals("Expected 6 documents", 6, index.getNumDocs());
+
+        // Delete by query
+        index.delete(new TermQuery(new Term("field", "a")));
+        index.refresh();
+        assertEquals("Expected 5 documents", 5, index.getNumDocs());
+
+        // Truncate
+        index.truncate();
+        index.refresh();
+        assertEquals("Expected 0 documents", 0, index.getNumDocs());
+
+        // Delete
+        index.delete();
+
+        // Cleanup
+        folder.delete();
+    }
+
+    @Test
+    public void testShardedSearchAfter() throws IOException {
+
+        ShardedFSIndex index = new ShardedFSIndex("test_index",
+                                                  Paths.get(folder.newFolder("directory" + UUID.randomUUID()).getPath()),
+                                                  new StandardAnalyzer(),
+                                                  REFRESH_SECONDS,
+                                                  IndexOptions.DEFAULT_RAM_BUFFER_MB,
+                                                  IndexOptions.DEFAULT_MAX_MERGE_MB,
+                                                  IndexOptions.DEFAULT_MAX_CACHED_MB,
+                                                  IndexOptions.DEFAULT_SEARCH_THREADS,
+                                                  3,
+                                                  IndexOptions.DEFAULT_DIRECTORY_TYPE,
+                                                  IndexOptions.DEFAULT_DIRECTORY_PRELOAD,
+                                                  IndexOptions.DEFAULT_WARMING_QUERIES);
+        Sort sort = new Sort(new SortField("field", SortField.Type.STRING));
+        index.init(sort, Sets.newHashSet("field"));
+
+        List<String> values = Arrays.asList("a", "b", "c", "d", "e", "f", "g");
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i);
+            index.upsert(i % 3, new Term("field", value), document(value));
+        }
+        index.commit();
+        index.refresh();
+
+        Query query = new WildcardQuery(new Term("field", "*"));
+        Query last = new TermQuery(new Term("field", "c"));
+        assertEquals("Sharded search after sort values is wrong",
+                     values(index.search(Arrays.asList(0, 1, 2), last, query, sort, 2)),
+                     values(index.searchAfter(Arrays.asList(0, 1, 2), after("c"), query, sort, 2)));
+        assertEquals("Sharded search after sort values is wrong",
+                     Arrays.asList("d", "e", "f", "g"),
+                     values(index.searchAfter(Arrays.asList(0, 1, 2), after("c"), query, sort, 2)));
+        assertEquals("Sharded search after sort values is wrong",
+                     Arrays.asList("e"),
+                     values(index.searchAfter(Arrays.asList(1), after("b"), query, sort, 2)));
+
+        // The last retrieved document doesn't need to be in the index
+        index.delete(2, new Term("field", "c"));
+        index.refresh();
+        assertEquals("Sharded search after deleted sort values is wrong",
+                     Arrays.asList("d", "e", "f", "g"),
+                     values(index.searchAfter(Arrays.asList(0, 1, 2), after("c"), query, sort, 2)));
+
+        index.delete();
+        folder.delete();
+    }
+
+    @Test
+    public void testDeleteIfResharded() throws IOException {
+        File directory = folder.newFolder("directory" + UUID.randomUUID());
+        assertEquals("Expected empty directory not to be deleted",
+                     false,
+                     ShardedFSIndex.deleteIfResharded("test_index", directory.toPath(), 2));
+        assertEquals("Expected shard directory", true, new File(directory, "shard_0").mkdir());
+        assertEquals("Expected shard directory", true, new File(directory, "shard_1").mkdir());
+        assertEquals("Expected same shards not to be deleted",
+                     false,
+                     ShardedFSIndex.deleteIfResharded("test_index", directory.toPath(), 2));
+        assertEquals("Expected different shards to be deleted",
+                     true,
+                     ShardedFSIndex.deleteIfResharded("test_index", directory.toPath(), 1));
+        assertEquals("Expected deleted shards", 0, directory.list().length);
+    }
+
+    private static FieldDoc after(String value) {
+        return new FieldDoc(Integer.MAX_VALUE, Float.NaN, new Object[]{new BytesRef(value)});
+    }
+}
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
 /**
  * @author Andres de la Pena {@literal <adelapena@stratio.com>}
@@ -64,4 +65,41 @@ public class TokenMapperTest {
                                     .collect(Collectors.toList());
         assertArrayEquals("TokenMapper.toCollated is wrong", TOKENS.toArray(), tokens.toArray());
     }
+
+    @Test
+    public void testShard() {
+        assertEquals("TokenMapper.shard is wrong", 0, TokenMapper.shard(new LongToken(Long.MIN_VALUE), 4));
+        assertEquals("TokenMapper.shard is wrong", 0, TokenMapper.shard(new LongToken(Long.MIN_VALUE + 1), 4));
+        assertEquals("TokenMapper.shard is wrong", 1, TokenMapper.shard(new LongToken(-1), 4));
+        assertEquals("TokenMapper.shard is wrong", 2, TokenMapper.shard(new LongToken(0), 4));
+        assertEquals("TokenMapper.shard is wrong", 3, TokenMapper.shard(new LongToken(Long.MAX_VALUE), 4));
+        assertEquals("TokenMapper.shard is wrong", 0, TokenMapper.shard(new LongToken(Long.MAX_VALUE), 1));
+    }
+
+    @Test
+    public void testShardIsMonotonic() {
+        int previous = 0;
+        for (Token token : TOKENS) {
+            int shard = TokenMapper.shard(token, 7);
+            assertEquals("TokenMapper.shard is not monotonic", true, shard >= previous);
+            previous = shard;
+        }
+    }
+
+    @Test
+    public void testShards() {
+        Token min = new LongToken(Long.MIN_VALUE);
+        assertEquals("TokenMapper.shards is wrong",
+                     Arrays.asList(0, 1, 2, 3),
+                     TokenMapper.shards(min, min, 4));
+        assertEquals("TokenMapper.shards is wrong",
+                     Arrays.asList(1, 2),
+                     TokenMapper.shards(new LongToken(-1), new LongToken(0), 4));
+        assertEquals("TokenMapper.shards is wrong",
+                     Arrays.asList(2, 3),
+                     TokenMapper.shards(new LongToken(0), min, 4));
+        assertEquals("TokenMapper.shards is wrong",
+                     Arrays.asList(0, 1, 2, 3),
+                     TokenMapper.shards(new LongToken(0), new LongToken(-1), 4));
+    }
 }
@@ -21,6 +21,7 @@ import com.stratio.cassandra.lucene.schema.mapping.builder.GeoPointMapperBuilder
 import com.stratio.cassandra.lucene.util.GeospatialUtils;
 import org.apache.cassandra.db.marshal.*;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexableField;
 import org.junit.Test;
 
 import java.util.UUID;
@@ -347,8 +348,11 @@ public class GeoPointMapperTest extends AbstractMapperTest {
 
         Document document = new Document();
         mapper.addFields(document, columns);
-        assertEquals("Fields are not properly created", 2, document.getFields("field.dist").length);
-        assertEquals("Fields are not properly created", 7, document.getFields().size());
+        assertEquals("Fields are not properly created", 1, document.getFields("field.dist").length);
+        assertEquals("Fields are not properly created", 6, document.getFields().size());
+        for (IndexableField field : document.getFields()) {
+            assertFalse("Fields must not be stored", field.fieldType().stored());
+        }
     }
 
     @Test
@@ -67,7 +67,8 @@ public class SearchBuilderTest {
                      "filter=[], " +
                      "query=[MatchCondition{boost=null, field=f, value=1, docValues=false}], sort=[], " +
                      "refresh=false, " +
-                     "paging=null}",
+                     "paging=null, " +
+                     "aggregations={}}",
                      SearchBuilder.fromJson("{query:{type: \"match\", field: \"f\", value:1}}").build().toString());
     }
 
@@ -79,7 +80,8 @@ public class SearchBuilderTest {
                      "query=[], " +
                      "sort=[SimpleSortField{field=f, reverse=false}], " +
                      "refresh=false, " +
-                     "paging=null}",
+                     "paging=null, " +
+                     "aggregations={}}",
                      SearchBuilder.fromJson("{sort:{fields:[{field:\"f\"}]}}").build().toString());
     }
 
@@ -91,7 +93,8 @@ public class SearchBuilderTest {
                      "query=[MatchCondition{boost=null, field=f2, value=2, docValues=false}], " +
                      "sort=[SimpleSortField{field=f, reverse=false}], " +
                      "refresh=true, " +
-                     "paging=null}",
+                     "paging=null, " +
+                     "aggregations={}}",
                      SearchBuilder.fromJson("{filter:{type: \"match\", field: \"f1\", value:1}, " +
                                             "query:{type: \"match\", field: \"f2\", value:2}, " +
                                             "sort:{fields:[{field:\"f\"}]}, " +
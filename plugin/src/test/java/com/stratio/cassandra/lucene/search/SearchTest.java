@@ -16,9 +16,12 @@
 package com.stratio.cassandra.lucene.search;
 
 import com.google.common.collect.Sets;
+import com.stratio.cassandra.lucene.IndexException;
 import com.stratio.cassandra.lucene.schema.Schema;
+import com.stratio.cassandra.lucene.search.aggregation.HistogramAggregation;
 import com.stratio.cassandra.lucene.search.condition.builder.MatchConditionBuilder;
 import com.stratio.cassandra.lucene.search.sort.builder.SortFieldBuilder;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.junit.Test;
@@ -51,6 +54,31 @@ public class SearchTest {
                                                  .build().refresh());
     }
 
+    @Test(expected = IndexException.class)
+    public void testFromJsonCount() {
+        SearchBuilder.fromJson("{filter:{type:\"match\",field:\"f\",value:\"v\"},count:true}");
+    }
+
+    @Test
+    public void testBuilderAggregations() {
+        SearchBuilder builder = search().filter(MATCH)
+                                        .aggregation("colors", terms("f").size(3))
+                                        .aggregation("days", dateHistogram("f", "1d"))
+                                        .aggregation("sizes", histogram("f", 10))
+                                        .aggregation("total", sum("f"));
+        Search search = builder.build();
+        assertTrue("Aggregations are not set", search.usesAggregations());
+        assertEquals("Aggregations are not built", 4, search.aggregations().size());
+        assertEquals("Date histogram interval is wrong",
+                     86400000d,
+                     ((HistogramAggregation) search.aggregations().get("days")).interval,
+                     0);
+        assertEquals("Aggregations are not serialized",
+                     builder.toJson(),
+                     SearchBuilder.fromJson(builder.toJson()).toJson());
+        assertFalse("Default aggregations are set", search().build().usesAggregations());
+    }
+
     @Test
     public void testUsesRelevance() {
         assertFalse("Use relevance is wrong", filter(MATCH).build().usesRelevance());
@@ -126,6 +154,23 @@ public class SearchTest {
         assertTrue("Pure negation is wrong", query instanceof MatchAllDocsQuery);
     }
 
+    @Test
+    public void testQueryReuse() {
+        Schema schema = schema().mapper("f", stringMapper()).build();
+        Search search = search().filter(MATCH).query(MATCH).build();
+        BooleanQuery query1 = (BooleanQuery) search.query(schema, null);
+        BooleanQuery query2 = (BooleanQuery) search.query(schema, null);
+        assertEquals("Query is wrong", query1, query2);
+        assertSame("Query is not reused", query1.clauses().get(0).getQuery(), query2.clauses().get(0).getQuery());
+        assertSame("Query is not reused", query1.clauses().get(1).getQuery(), query2.clauses().get(1).getQuery());
+        Schema otherSchema = schema().mapper("f", stringMapper()).build();
+        BooleanQuery query3 = (BooleanQuery) search.query(otherSchema, null);
+        assertEquals("Query is wrong", query1, query3);
+        assertNotSame("Query is wrongly reused",
+                      query1.clauses().get(0).getQuery(),
+                      query3.clauses().get(0).getQuery());
+    }
+
     @Test
     public void testPostProcessingFields() {
         assertEquals("postProcessingFields is wrong",
@@ -152,7 +197,8 @@ public class SearchTest {
                      "MatchCondition{boost=null, field=f2, value=v2, docValues=false}], " +
                      "query=[MatchCondition{boost=null, field=f3, value=v3, docValues=false}, " +
                      "MatchCondition{boost=0.3, field=f4, value=v4, docValues=false}], " +
-                     "sort=[SimpleSortField{field=f5, reverse=true}], refresh=true, paging=null}",
+                     "sort=[SimpleSortField{field=f5, reverse=true}], refresh=true, paging=null, " +
+                     "aggregations={}}",
                      search.toString());
     }
 
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.search.aggregation;
+
+import com.stratio.cassandra.lucene.IndexException;
+import com.stratio.cassandra.lucene.schema.Schema;
+import com.stratio.cassandra.lucene.search.Search;
+import com.stratio.cassandra.lucene.search.SearchBuilder;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MultiCollector;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.stratio.cassandra.lucene.schema.SchemaBuilders.*;
+import static com.stratio.cassandra.lucene.search.SearchBuilders.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Class for testing {@link Aggregations}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class AggregationsTest {
+
+    private static final Schema SCHEMA = schema().mapper("color", stringMapper())
+                                                 .mapper("size", integerMapper())
+                                                 .build();
+
+    private static Directory directory(int from, int to) throws IOException {
+        Directory directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+        for (int i = from; i < to; i++) {
+            Document document = new Document();
+            document.add(new SortedSetDocValuesField("color", new BytesRef(i % 3 == 0 ? "red" : "blue")));
+            document.add(new SortedNumericDocValuesField("size", i));
+            writer.addDocument(document);
+        }
+        writer.close();
+        return directory;
+    }
+
+    private static String partials(Map<String, Aggregation> aggregations, int from, int to) throws IOException {
+        try (Directory directory = directory(from, to); IndexReader reader = DirectoryReader.open(directory)) {
+            Map<String, AggregationCollector> collectors = Aggregations.collectors(aggregations, SCHEMA);
+            new IndexSearcher(reader).search(new MatchAllDocsQuery(),
+                                             MultiCollector.wrap(new ArrayList<>(collectors.values())));
+            return Aggregations.partials(collectors);
+        }
+    }
+
+    private static String aggregate(SearchBuilder builder) throws IOException {
+        Search search = builder.build();
+        search.validate(SCHEMA);
+        List<String> partials = new ArrayList<>();
+        partials.add(partials(search.aggregations(), 0, 6));
+        partials.add(partials(search.aggregations(), 6, 10));
+        return Aggregations.merge(search.aggregations(), partials);
+    }
+
+    @Test
+    public void testTerms() throws IOException {
+        String results = aggregate(search().aggregation("colors", terms("color")));
+        assertEquals("Wrong terms results",
+                     "{\"colors\":{\"buckets\":[{\"key\":\"blue\",\"count\":6},{\"key\":\"red\",\"count\":4}]}}",
+                     results);
+    }
+
+    @Test
+    public void testTermsSize() throws IOException {
+        String results = aggregate(search().aggregation("colors", terms("color").size(1)));
+        assertEquals("Wrong sized terms results",
+                     "{\"colors\":{\"buckets\":[{\"key\":\"blue\",\"count\":6}]}}",
+                     results);
+    }
+
+    @Test
+    public void testHistogram() throws IOException {
+        String results = aggregate(search().aggregation("sizes", histogram("size", 4)));
+        assertEquals("Wrong histogram results",
+                     "{\"sizes\":{\"buckets\":[{\"key\":0,\"count\":4},{\"key\":4,\"count\":4},"
+                     + "{\"key\":8,\"count\":2}]}}",
+                     results);
+    }
+
+    @Test
+    public void testMetrics() throws IOException {
+        String results = aggregate(search().aggregation("min", min("size"))
+                                           .aggregation("max", max("size"))
+                                           .aggregation("sum", sum("size"))
+                                           .aggregation("avg", avg("size")));
+        assertEquals("Wrong metric results",
+                     "{\"min\":{\"value\":0.0},\"max\":{\"value\":9.0},\"sum\":{\"value\":45.0},"
+                     + "\"avg\":{\"value\":4.5}}",
+                     results);
+    }
+
+    @Test(expected = IndexException.class)
+    public void testNotNumeric() {
+        search().aggregation("sum", sum("color")).build().validate(SCHEMA);
+    }
+
+    @Test(expected = IndexException.class)
+    public void testNotMapped() {
+        search().aggregation("terms", terms("shape")).build().validate(SCHEMA);
+    }
+}
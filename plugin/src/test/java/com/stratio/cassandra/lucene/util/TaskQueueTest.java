@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stratio.cassandra.lucene.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Class for testing {@link TaskQueue}.
+ *
+ * @author Andres de la Pena {@literal <adelapena@stratio.com>}
+ */
+public class TaskQueueTest {
+
+    @Test
+    public void testBatchedCoalescing() throws InterruptedException {
+        TaskQueue queue = new TaskQueue(1, 100);
+        List<String> results = new CopyOnWriteArrayList<>();
+
+        // Block the thread to make the batched tasks to be queued
+        CountDownLatch latch = new CountDownLatch(1);
+        queue.submitAsynchronous("id", () -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        queue.submitBatched("id", "a", () -> results.add("a1"));
+        queue.submitBatched("id", "b", () -> results.add("b1"));
+        queue.submitBatched("id", "a", () -> results.add("a2"));
+        queue.submitBatched("id", "c", () -> results.add("c1"));
+        queue.submitBatched("id", "a", () -> results.add("a3"));
+        latch.countDown();
+        queue.await();
+
+        assertEquals("Batched tasks are wrong", Arrays.asList("b1", "c1", "a3"), results);
+        queue.shutdown();
+    }
+
+    @Test
+    public void testBatchedBeforeAsynchronous() throws InterruptedException {
+        TaskQueue queue = new TaskQueue(1, 100);
+        List<String> results = new CopyOnWriteArrayList<>();
+
+        CountDownLatch latch = new CountDownLatch(1);
+        queue.submitAsynchronous("id", () -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        queue.submitAsynchronous("id", () -> results.add("b"));
+        latch.countDown();
+        queue.await();
+
+        assertEquals("Batched tasks are wrong", Arrays.asList("a", "b"), results);
+        queue.shutdown();
+    }
+
+    @Test
+    public void testBatchedSynchronous() {
+        TaskQueue queue = new TaskQueue(0, 100);
+        List<String> results = new CopyOnWriteArrayList<>();
+        queue.submitBatched("id", "a", () -> results.add("a1"));
+        queue.submitBatched("id", "a", () -> results.add("a2"));
+        assertEquals("Batched tasks are wrong", Arrays.asList("a1", "a2"), results);
+        queue.shutdown();
+    }
+
+    @Test
+    public void testQueueSize() throws InterruptedException {
+        TaskQueue queue = new TaskQueue(2, 100);
+        assertEquals("Number of threads is wrong", 2, queue.getNumThreads());
+        int thread = queue.getThread("id");
+
+        // Block the thread once it has taken the blocking task from its queue
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        queue.submitAsynchronous("id", () -> {
+            started.countDown();
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        queue.submitBatched("id", "a", () -> {
+        });
+        queue.submitBatched("id", "b", () -> {
+        });
+        assertEquals("Queue size is wrong", 2, queue.getQueueSize(thread));
+
+        latch.countDown();
+        queue.await();
+        assertEquals("Queue size is wrong after await", 0, queue.getQueueSize(thread));
+        queue.shutdown();
+    }
+
+    @Test
+    public void testAwaitSubmitted() {
+        TaskQueue queue = new TaskQueue(4, 100);
+        List<String> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String value = "v" + i;
+            queue.submitBatched(value, value, () -> results.add(value));
+        }
+        queue.awaitSubmitted();
+        assertEquals("Submitted tasks are not completed", 10, results.size());
+        queue.shutdown();
+    }
+
+    @Test
+    public void testAwaitSubmittedSynchronous() {
+        TaskQueue queue = new TaskQueue(0, 100);
+        queue.awaitSubmitted();
+        queue.shutdown();
+    }
+
+    @Test
+    public void testQueueSizeSynchronous() {
+        TaskQueue queue = new TaskQueue(0, 100);
+        assertEquals("Number of threads is wrong", 0, queue.getNumThreads());
+        assertEquals("Thread is wrong", -1, queue.getThread("id"));
+        queue.shutdown();
+    }
+}